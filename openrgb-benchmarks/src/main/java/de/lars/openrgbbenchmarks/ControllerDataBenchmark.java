@@ -0,0 +1,67 @@
+package de.lars.openrgbbenchmarks;
+
+import de.lars.openrgbmock.ControllerDataBuilder;
+import de.lars.openrgbwrapper.Device;
+import de.lars.openrgbwrapper.DeviceView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of {@code REQUEST_CONTROLLER_DATA} replies of typical devices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerDataBenchmark {
+
+    @Param({"keyboard", "matrix", "strip1000"})
+    public String payload;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        switch (payload) {
+            case "keyboard":
+                data = ControllerDataBuilder.keyboard("Keyboard").build();
+                break;
+            case "matrix":
+                data = ControllerDataBuilder.matrixDevice("Case", 4, 8, 8).build();
+                break;
+            case "strip1000":
+                data = ControllerDataBuilder.ledStrip("Strip", 1000).build();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload " + payload);
+        }
+    }
+
+    @Benchmark
+    public Device decode() {
+        return Device.decode(0, data);
+    }
+
+    @Benchmark
+    public DeviceView wrap() {
+        return DeviceView.wrap(0, data);
+    }
+
+    @Benchmark
+    public int wrapLedCount() {
+        return DeviceView.wrap(0, data).getLedCount();
+    }
+}
@@ -0,0 +1,164 @@
+package de.lars.openrgbbenchmarks;
+
+import de.lars.openrgbmock.ControllerDataBuilder;
+import de.lars.openrgbmock.MockServer;
+import de.lars.openrgbmock.MockSession;
+import de.lars.openrgbmock.VirtualController;
+import de.lars.openrgbwrapper.network.Client;
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * In-process client that passes all packets to a session of a {@link MockServer},
+ * so the client side can be measured without a socket.
+ */
+public class LoopbackClient extends Client {
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final MockServer server;
+    private MockSession session;
+    /** received bytes that do not form a complete packet yet */
+    private ByteBuffer inbound = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final BlockingQueue<byte[]> replies = new LinkedBlockingQueue<>();
+    private byte[] reply;
+    private int replyOffset;
+
+    private volatile long receivedBytes;
+    private volatile long receivedPackets;
+
+    /**
+     * Create a new loopback client
+     * @param server            server that handles the packets
+     */
+    public LoopbackClient(MockServer server) {
+        super("loopback", 0);
+        this.server = server;
+    }
+
+    /**
+     * Create a new loopback client with its own server
+     * @param protocolVersion   protocol version reported by the server
+     * @param controllers       controller data of each device, see {@link ControllerDataBuilder}
+     */
+    public LoopbackClient(int protocolVersion, byte[]... controllers) {
+        this(createServer(protocolVersion, controllers));
+    }
+
+    @Override
+    public synchronized boolean connect() {
+        if(connected) return false;
+        replies.clear();
+        reply = null;
+        inbound.clear();
+        session = server.openSession(replies::offer);
+        connected = true;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean disconnect() {
+        if(!connected) return false;
+        connected = false;
+        server.closeSession(session);
+        session = null;
+        replies.offer(END_OF_STREAM);
+        return true;
+    }
+
+    @Override
+    public synchronized void write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+        if(!connected)
+            throw new IOException("Client is not connected.");
+        for(int i = offset; i < offset + length; i++) {
+            ByteBuffer buffer = buffers[i];
+            receivedBytes += buffer.remaining();
+            if(inbound.remaining() < buffer.remaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(inbound.capacity() * 2, inbound.position() + buffer.remaining()))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                inbound.flip();
+                inbound = larger.put(inbound);
+            }
+            inbound.put(buffer);
+        }
+        handlePackets();
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        if(length == 0) return 0;
+        if(reply == null || replyOffset == reply.length) {
+            try {
+                reply = replies.take();
+                replyOffset = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for data.", e);
+            }
+            if(reply == END_OF_STREAM) {
+                reply = null;
+                return -1;
+            }
+        }
+        int count = Math.min(length, reply.length - replyOffset);
+        System.arraycopy(reply, replyOffset, data, offset, count);
+        replyOffset += count;
+        return count;
+    }
+
+    public MockServer getServer() {
+        return server;
+    }
+
+    /**
+     * Get the number of bytes written by the client
+     * @return          number of bytes
+     */
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    /**
+     * Get the number of packets written by the client
+     * @return          number of packets
+     */
+    public long getReceivedPackets() {
+        return receivedPackets;
+    }
+
+    private void handlePackets() throws IOException {
+        inbound.flip();
+        while(inbound.remaining() >= Packet.HEADER_SIZE) {
+            int start = inbound.position();
+            int deviceId = inbound.getInt(start + 4);
+            int packetId = inbound.getInt(start + 8);
+            int dataLength = inbound.getInt(start + 12);
+            if(inbound.remaining() < Packet.HEADER_SIZE + dataLength)
+                break;
+            inbound.position(start + Packet.HEADER_SIZE + dataLength);
+            receivedPackets++;
+            Packet packet = new Packet(PacketIdentifier.fromId(packetId), deviceId, dataLength);
+            // the session reads the data directly from the inbound buffer
+            session.handle(packet, inbound.array(), start + Packet.HEADER_SIZE, System.nanoTime());
+        }
+        inbound.compact();
+    }
+
+    private static MockServer createServer(int protocolVersion, byte[][] controllers) {
+        MockServer server = new MockServer();
+        server.setProtocolVersion(protocolVersion);
+        List<VirtualController> list = new ArrayList<>();
+        for(byte[] data : controllers)
+            list.add(new VirtualController(data));
+        server.setControllers(list);
+        return server;
+    }
+}
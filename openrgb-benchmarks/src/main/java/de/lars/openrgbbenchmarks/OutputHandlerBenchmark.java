@@ -0,0 +1,148 @@
+package de.lars.openrgbbenchmarks;
+
+import de.lars.openrgbmock.ControllerDataBuilder;
+import de.lars.openrgbplugin.OpenRgbServer;
+import de.lars.openrgbplugin.OutputHandler;
+import de.lars.openrgbplugin.OutputHost;
+import de.lars.openrgbplugin.utils.DeviceRef;
+import de.lars.openrgbplugin.utils.MappingRule;
+import de.lars.openrgbwrapper.FrameSender;
+import de.lars.openrgbwrapper.OpenRGB;
+import de.lars.remotelightcore.notification.Notification;
+import de.lars.remotelightcore.devices.virtual.VirtualOutput;
+import de.lars.remotelightcore.utils.color.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end frame path of the plugin: {@link OutputHandler#receivedPixelData(Color[])}
+ * including packing, the frame sender and encoding against an in-process {@link LoopbackClient}.
+ * <p>Every invocation waits until the frame sender has sent the frames of all devices,
+ * so the time includes the hand-off to the sender thread.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputHandlerBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int deviceCount;
+
+    @Param({"100", "1000"})
+    public int ledCount;
+
+    /** reverse all devices to measure the mapped frame path */
+    @Param({"false", "true"})
+    public boolean reversed;
+
+    private OpenRGB openRGB;
+    private FrameSender sender;
+    private OutputHandler handler;
+    /** two different frames, so every frame changes all leds */
+    private Color[][] frames;
+    private int frame;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[][] controllers = new byte[deviceCount][];
+        List<DeviceRef> devices = new ArrayList<>();
+        List<MappingRule> mapping = new ArrayList<>();
+        for(int i = 0; i < deviceCount; i++) {
+            controllers[i] = ControllerDataBuilder.ledStrip("Strip " + i, ledCount).build();
+            devices.add(DeviceRef.of(i));
+            if(reversed)
+                mapping.add(MappingRule.reverse(DeviceRef.of(i)));
+        }
+        openRGB = new OpenRGB(new LoopbackClient(1, controllers), "Benchmark");
+        openRGB.connect();
+        sender = openRGB.getFrameSender();
+
+        int pixels = deviceCount * ledCount;
+        VirtualOutput output = new VirtualOutput("benchmark", pixels);
+        handler = new OutputHandler(new Host(new OpenRgbServer(openRGB, 0)), output, devices);
+        handler.setName("Benchmark");
+        handler.setMapping(mapping);
+        handler.onActivate(output);
+
+        Random random = new Random(42);
+        frames = new Color[2][pixels];
+        for(Color[] colors : frames) {
+            for(int i = 0; i < pixels; i++)
+                colors[i] = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        openRGB.disconnect();
+    }
+
+    @Benchmark
+    public void receivedPixelData() {
+        long sent = sender.getSentFrames() + deviceCount;
+        handler.receivedPixelData(frames[frame++ & 1]);
+        // wait for the sender thread, one frame per device
+        while(sender.getSentFrames() < sent) {
+            if(!openRGB.isConnected())
+                throw new IllegalStateException("Loopback client was disconnected.");
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Single server without auto connect. The handler only notifies about errors,
+     * e.g. an empty device group, which would make the benchmark wait forever.
+     */
+    private static class Host implements OutputHost {
+
+        private final List<OpenRgbServer> servers;
+
+        Host(OpenRgbServer server) {
+            servers = Collections.singletonList(server);
+        }
+
+        @Override
+        public List<OpenRgbServer> getServers() {
+            return servers;
+        }
+
+        @Override
+        public OpenRgbServer getServer(int index) {
+            return index == 0 ? servers.get(0) : null;
+        }
+
+        @Override
+        public boolean isAutoConnectEnabled() {
+            return false;
+        }
+
+        @Override
+        public void setAutoConnectEnabled(boolean enable) {
+        }
+
+        @Override
+        public void addNotification(Notification notification) {
+            throw new IllegalStateException("Output handler reported an error, check the benchmark setup.");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package de.lars.openrgbbenchmarks;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the 16 byte packet header.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketHeaderBenchmark {
+
+    private ByteBuffer buffer;
+    private byte[] header;
+    private int deviceId;
+
+    @Setup
+    public void setup() {
+        buffer = ByteBuffer.allocate(Packet.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header = new byte[Packet.HEADER_SIZE];
+        ByteBuffer encoded = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        Packet.writeHeader(encoded, 0, PacketIdentifier.RGBCONTROLLER_UPDATELEDS, 3, 4006);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeHeader() {
+        Packet.writeHeader(buffer, 0, PacketIdentifier.RGBCONTROLLER_UPDATELEDS, deviceId++ & 0xF, 4006);
+        return buffer;
+    }
+
+    @Benchmark
+    public Packet decodeHeader() {
+        return Packet.decodeHeader(header);
+    }
+}
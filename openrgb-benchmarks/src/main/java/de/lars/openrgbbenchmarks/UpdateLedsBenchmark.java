@@ -0,0 +1,98 @@
+package de.lars.openrgbbenchmarks;
+
+import de.lars.openrgbmock.ControllerDataBuilder;
+import de.lars.openrgbwrapper.OpenRGB;
+import de.lars.openrgbwrapper.models.Color;
+import de.lars.openrgbwrapper.utils.ColorCalibration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and sending one frame for all devices through {@code updateLeds}
+ * against an in-process {@link LoopbackClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateLedsBenchmark {
+
+    @Param({"1", "8"})
+    public int deviceCount;
+
+    @Param({"100", "1000"})
+    public int ledCount;
+
+    private OpenRGB openRGB;
+    private Color[] colors;
+    private int[] packed;
+    private ColorCalibration calibration;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[][] controllers = new byte[deviceCount][];
+        for(int i = 0; i < deviceCount; i++)
+            controllers[i] = ControllerDataBuilder.ledStrip("Strip " + i, ledCount).build();
+        openRGB = new OpenRGB(new LoopbackClient(1, controllers), "Benchmark");
+        openRGB.connect();
+
+        Random random = new Random(42);
+        colors = new Color[ledCount];
+        packed = new int[ledCount];
+        for(int i = 0; i < ledCount; i++) {
+            packed[i] = random.nextInt(0xFFFFFF + 1);
+            colors[i] = new Color(packed[i] >> 16 & 0xFF, packed[i] >> 8 & 0xFF, packed[i] & 0xFF);
+        }
+        calibration = ColorCalibration.of(2.2, 1.0, 0.8, 0.7);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        openRGB.disconnect();
+    }
+
+    @Benchmark
+    public void colorArray() {
+        for(int i = 0; i < deviceCount; i++)
+            openRGB.updateLeds(i, colors);
+    }
+
+    @Benchmark
+    public void packed() {
+        for(int i = 0; i < deviceCount; i++)
+            openRGB.updateLeds(i, packed, 0, ledCount);
+    }
+
+    @Benchmark
+    public void packedCalibrated() {
+        for(int i = 0; i < deviceCount; i++)
+            openRGB.updateLeds(i, packed, 0, ledCount, calibration);
+    }
+
+    @Benchmark
+    public void packedBatch() {
+        openRGB.beginBatch();
+        try {
+            for(int i = 0; i < deviceCount; i++)
+                openRGB.updateLeds(i, packed, 0, ledCount);
+        } finally {
+            openRGB.commit();
+        }
+    }
+}
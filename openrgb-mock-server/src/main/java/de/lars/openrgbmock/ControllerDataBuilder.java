@@ -0,0 +1,332 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.types.DeviceType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds controller data payloads in the format of a {@code REQUEST_CONTROLLER_DATA}
+ * reply (protocol version 0), as decoded by {@link de.lars.openrgbwrapper.Device#decode(int, byte[])}.
+ */
+public class ControllerDataBuilder {
+
+    /** zone types as defined by OpenRGB */
+    public static final int ZONE_TYPE_SINGLE = 0;
+    public static final int ZONE_TYPE_LINEAR = 1;
+    public static final int ZONE_TYPE_MATRIX = 2;
+    /** value of a matrix map cell without led */
+    public static final int NO_LED = 0xFFFFFFFF;
+
+    private final String name;
+    private final DeviceType type;
+    private String description = "";
+    private String version = "";
+    private String serial = "";
+    private String location = "";
+    private int activeMode = 0;
+    private final List<byte[]> modes = new ArrayList<>();
+    private final List<byte[]> zones = new ArrayList<>();
+    private final List<String> ledNames = new ArrayList<>();
+    private final List<Integer> colors = new ArrayList<>();
+
+    /**
+     * Create a new builder
+     * @param name      device name
+     * @param type      device type
+     */
+    public ControllerDataBuilder(String name, DeviceType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public ControllerDataBuilder description(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public ControllerDataBuilder version(String version) {
+        this.version = version;
+        return this;
+    }
+
+    public ControllerDataBuilder serial(String serial) {
+        this.serial = serial;
+        return this;
+    }
+
+    public ControllerDataBuilder location(String location) {
+        this.location = location;
+        return this;
+    }
+
+    public ControllerDataBuilder activeMode(int activeMode) {
+        this.activeMode = activeMode;
+        return this;
+    }
+
+    /**
+     * Add a mode
+     * @param name          mode name
+     * @param value         mode value of the device
+     * @param colors        mode colors packed as {@code 0xRRGGBB}
+     */
+    public ControllerDataBuilder mode(String name, int value, int... colors) {
+        ByteBuffer buffer = allocate(stringSize(name) + 9 * 4 + 2 + colors.length * 4);
+        putString(buffer, name);
+        buffer.putInt(value);
+        buffer.putInt(0);                   // flags
+        buffer.putInt(0).putInt(100);       // speed min, max
+        buffer.putInt(colors.length);       // color min
+        buffer.putInt(colors.length);       // color max
+        buffer.putInt(50);                  // speed
+        buffer.putInt(0);                   // direction
+        buffer.putInt(colors.length > 0 ? 2 : 0); // color mode
+        buffer.putShort((short) colors.length);
+        for(int color : colors)
+            putColor(buffer, color);
+        modes.add(buffer.array());
+        return this;
+    }
+
+    /**
+     * Add a zone without matrix map and one led per zone led
+     * @param name          zone name
+     * @param type          zone type
+     * @param ledCount      number of leds
+     * @param ledPrefix     name prefix of the leds, followed by the led index
+     */
+    public ControllerDataBuilder zone(String name, int type, int ledCount, String ledPrefix) {
+        ByteBuffer buffer = allocate(stringSize(name) + 4 * 4 + 2);
+        putZoneFields(buffer, name, type, ledCount);
+        buffer.putShort((short) 0);
+        zones.add(buffer.array());
+        for(int i = 0; i < ledCount; i++)
+            led(ledPrefix + i, 0);
+        return this;
+    }
+
+    /**
+     * Add a matrix zone. Leds for the zone must be added with {@link #led(String, int)}.
+     * @param name          zone name
+     * @param matrix        led index of each cell (row by row) or {@link #NO_LED}
+     * @param height        matrix height
+     * @param width         matrix width
+     */
+    public ControllerDataBuilder matrixZone(String name, int[] matrix, int height, int width) {
+        if(matrix.length != height * width)
+            throw new IllegalArgumentException("Matrix size does not match " + height + "x" + width + ".");
+        int ledCount = 0;
+        for(int cell : matrix) {
+            if(cell != NO_LED)
+                ledCount++;
+        }
+        int matrixSize = 8 + matrix.length * 4;
+        ByteBuffer buffer = allocate(stringSize(name) + 4 * 4 + 2 + matrixSize);
+        putZoneFields(buffer, name, ZONE_TYPE_MATRIX, ledCount);
+        buffer.putShort((short) matrixSize);
+        buffer.putInt(height).putInt(width);
+        for(int cell : matrix)
+            buffer.putInt(cell);
+        zones.add(buffer.array());
+        return this;
+    }
+
+    /**
+     * Add a led with its current color
+     * @param name          led name
+     * @param color         color packed as {@code 0xRRGGBB}
+     */
+    public ControllerDataBuilder led(String name, int color) {
+        ledNames.add(name);
+        colors.add(color);
+        return this;
+    }
+
+    /**
+     * Set the current color of all leds
+     * @param color         color packed as {@code 0xRRGGBB}
+     */
+    public ControllerDataBuilder fill(int color) {
+        for(int i = 0; i < colors.size(); i++)
+            colors.set(i, color);
+        return this;
+    }
+
+    /**
+     * Build the controller data including the leading data size
+     * @return              controller data as sent by the server
+     */
+    public byte[] build() {
+        int size = 4 + 4;
+        size += stringSize(name) + stringSize(description) + stringSize(version) + stringSize(serial) + stringSize(location);
+        size += 2 + 4 + totalLength(modes);
+        size += 2 + totalLength(zones);
+        size += 2;
+        for(String ledName : ledNames)
+            size += stringSize(ledName) + 4;
+        size += 2 + colors.size() * 4;
+
+        ByteBuffer buffer = allocate(size);
+        buffer.putInt(size);
+        buffer.putInt(type.ordinal());
+        putString(buffer, name);
+        putString(buffer, description);
+        putString(buffer, version);
+        putString(buffer, serial);
+        putString(buffer, location);
+        buffer.putShort((short) modes.size());
+        buffer.putInt(activeMode);
+        modes.forEach(buffer::put);
+        buffer.putShort((short) zones.size());
+        zones.forEach(buffer::put);
+        buffer.putShort((short) ledNames.size());
+        for(int i = 0; i < ledNames.size(); i++) {
+            putString(buffer, ledNames.get(i));
+            putColor(buffer, colors.get(i));
+        }
+        buffer.putShort((short) colors.size());
+        for(int color : colors)
+            putColor(buffer, color);
+        return buffer.array();
+    }
+
+    //-------------------------------------------
+    // Presets
+    //-------------------------------------------
+
+    /** key labels of a full-size (ANSI) keyboard, row by row */
+    private static final String[][] KEYBOARD_ROWS = {
+            {"Escape", "F1", "F2", "F3", "F4", "F5", "F6", "F7", "F8", "F9", "F10", "F11", "F12",
+                    "Print Screen", "Scroll Lock", "Pause/Break"},
+            {"`", "1", "2", "3", "4", "5", "6", "7", "8", "9", "0", "-", "=", "Backspace",
+                    "Insert", "Home", "Page Up", "Num Lock", "Number Pad /", "Number Pad *", "Number Pad -"},
+            {"Tab", "Q", "W", "E", "R", "T", "Y", "U", "I", "O", "P", "[", "]", "\\",
+                    "Delete", "End", "Page Down", "Number Pad 7", "Number Pad 8", "Number Pad 9", "Number Pad +"},
+            {"Caps Lock", "A", "S", "D", "F", "G", "H", "J", "K", "L", ";", "'", "Enter",
+                    "Number Pad 4", "Number Pad 5", "Number Pad 6"},
+            {"Left Shift", "Z", "X", "C", "V", "B", "N", "M", ",", ".", "/", "Right Shift",
+                    "Up Arrow", "Number Pad 1", "Number Pad 2", "Number Pad 3", "Number Pad Enter"},
+            {"Left Control", "Left Windows", "Left Alt", "Space", "Right Alt", "Right Fn", "Menu", "Right Control",
+                    "Left Arrow", "Down Arrow", "Right Arrow", "Number Pad 0", "Number Pad ."}
+    };
+    private static final int KEYBOARD_WIDTH = 22;
+
+    /**
+     * Full-size keyboard with 104 keys in a matrix zone and a set of hardware modes
+     * @param name          device name
+     * @return              builder of the keyboard
+     */
+    public static ControllerDataBuilder keyboard(String name) {
+        ControllerDataBuilder builder = new ControllerDataBuilder(name, DeviceType.Keyboard)
+                .description("Benchmark Keyboard Device")
+                .version("1.20")
+                .serial("KB-000000")
+                .location("HID: /dev/hidraw3");
+        addDefaultModes(builder);
+
+        int[] matrix = new int[KEYBOARD_ROWS.length * KEYBOARD_WIDTH];
+        Arrays.fill(matrix, NO_LED);
+        int ledIndex = 0;
+        for(int row = 0; row < KEYBOARD_ROWS.length; row++) {
+            for(int col = 0; col < KEYBOARD_ROWS[row].length; col++) {
+                matrix[row * KEYBOARD_WIDTH + col] = ledIndex++;
+                builder.led("Key: " + KEYBOARD_ROWS[row][col], 0);
+            }
+        }
+        return builder.matrixZone("Keyboard", matrix, KEYBOARD_ROWS.length, KEYBOARD_WIDTH);
+    }
+
+    /**
+     * Device with multiple matrix zones, e.g. a case with fan and panel matrices
+     * @param name          device name
+     * @param zoneCount     number of matrix zones
+     * @param height        height of each matrix
+     * @param width         width of each matrix
+     * @return              builder of the device
+     */
+    public static ControllerDataBuilder matrixDevice(String name, int zoneCount, int height, int width) {
+        ControllerDataBuilder builder = new ControllerDataBuilder(name, DeviceType.Ledstrip)
+                .description("Benchmark Matrix Device")
+                .version("2.0")
+                .serial("MX-000000")
+                .location("USB: 1-2");
+        addDefaultModes(builder);
+        int ledIndex = 0;
+        for(int z = 0; z < zoneCount; z++) {
+            int[] matrix = new int[height * width];
+            for(int i = 0; i < matrix.length; i++) {
+                matrix[i] = ledIndex++;
+                builder.led("Matrix " + z + " LED " + i, 0);
+            }
+            builder.matrixZone("Matrix " + z, matrix, height, width);
+        }
+        return builder;
+    }
+
+    /**
+     * Addressable led strip with a single linear zone
+     * @param name          device name
+     * @param ledCount      number of leds
+     * @return              builder of the strip
+     */
+    public static ControllerDataBuilder ledStrip(String name, int ledCount) {
+        ControllerDataBuilder builder = new ControllerDataBuilder(name, DeviceType.Ledstrip)
+                .description("Benchmark LED Strip")
+                .version("1.0")
+                .serial("LS-000000")
+                .location("COM3");
+        addDefaultModes(builder);
+        return builder.zone("LED Strip", ZONE_TYPE_LINEAR, ledCount, "LED ");
+    }
+
+    private static void addDefaultModes(ControllerDataBuilder builder) {
+        builder.mode("Direct", 0)
+                .mode("Static", 1, 0xFF0000)
+                .mode("Breathing", 2, 0xFF0000, 0x0000FF)
+                .mode("Spectrum Cycle", 3)
+                .mode("Rainbow Wave", 4)
+                .mode("Reactive", 5, 0xFFFFFF);
+    }
+
+    //-------------------------------------------
+    // Encoding helpers
+    //-------------------------------------------
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int stringSize(String text) {
+        return 2 + text.length() + 1;
+    }
+
+    private static void putString(ByteBuffer buffer, String text) {
+        buffer.putShort((short) (text.length() + 1));
+        buffer.put(text.getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) 0);
+    }
+
+    private static void putColor(ByteBuffer buffer, int color) {
+        buffer.put((byte) (color >> 16)).put((byte) (color >> 8)).put((byte) color).put((byte) 0);
+    }
+
+    private static void putZoneFields(ByteBuffer buffer, String name, int type, int ledCount) {
+        putString(buffer, name);
+        buffer.putInt(type);
+        buffer.putInt(ledCount);    // leds min
+        buffer.putInt(ledCount);    // leds max
+        buffer.putInt(ledCount);
+    }
+
+    private static int totalLength(List<byte[]> parts) {
+        int length = 0;
+        for(byte[] part : parts)
+            length += part.length;
+        return length;
+    }
+}
@@ -0,0 +1,42 @@
+package de.lars.openrgbmock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the latency from submitting a frame to receiving it in the {@link MockServer}.
+ * <p>A load generator running in the same process calls {@link #stamp()} for every frame
+ * and sets the first led of each device to the returned color. The server looks up the
+ * send time of the received color with {@link #latency(int, long)}. The sequence is
+ * 24 bits wide and send times are kept for the last 65536 frames.</p>
+ */
+public class FrameStamps {
+
+    private static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLongArray sendTimes = new AtomicLongArray(CAPACITY);
+
+    /**
+     * Start a new frame and remember the current time
+     * @return          color packed as {@code 0xRRGGBB} to set on the first led
+     */
+    public int stamp() {
+        int seq = sequence.incrementAndGet() & 0xFFFFFF;
+        sendTimes.set(seq & MASK, System.nanoTime());
+        return seq;
+    }
+
+    /**
+     * Get the latency of a received frame
+     * @param color         received color of the first led
+     * @param receiveNanos  {@link System#nanoTime()} when the frame was received
+     * @return              latency in nanoseconds or -1 if the color is not a known stamp
+     */
+    public long latency(int color, long receiveNanos) {
+        if(color == 0) return -1;
+        long sendTime = sendTimes.get(color & MASK);
+        return sendTime == 0 ? -1 : receiveNanos - sendTime;
+    }
+}
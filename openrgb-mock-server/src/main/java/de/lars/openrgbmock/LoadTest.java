@@ -0,0 +1,169 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.AssignmentPolicy;
+import de.lars.openrgbwrapper.ConnectionPool;
+import de.lars.openrgbwrapper.DeviceTopology;
+import de.lars.openrgbwrapper.DeviceView;
+import de.lars.openrgbwrapper.FrameSender;
+import de.lars.openrgbwrapper.OpenRGB;
+import de.lars.openrgbwrapper.management.OpenRGBMonitor;
+import de.lars.openrgbwrapper.network.ChannelClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test that drives a {@link MockServer} through the wrapper over a local socket.
+ * <p>Frames for all controllers are submitted to the {@link FrameSender} at a fixed rate.
+ * Every led changes in every frame, so each frame is sent as {@code UPDATELEDS}. The first
+ * led carries a {@link FrameStamps} sequence to measure the latency from submit to receive.</p>
+ * <p>Usage: {@code LoadTest [controllers] [leds] [fps] [seconds] [minimum fps ratio]
+ * [connections] [slow controller delay in us]}, defaults to 50 controllers with 300 leds
+ * at 144 fps for 10 seconds over one connection. The exit code is 1 if the server received
+ * less than the minimum ratio (default 0.95) of the target rate.</p>
+ * <p>With a slow controller delay, the first controller is a keyboard that blocks its
+ * connection for the given time on every update, like a slow USB device. With more than
+ * one connection it gets a connection of its own, so it does not limit the frame rate of
+ * the other controllers.</p>
+ */
+public class LoadTest {
+
+    private final int controllerCount;
+    private final int ledCount;
+    private final int fps;
+    private int connections = 1;
+    private long slowControllerDelay = 0;
+
+    private final MockServer server = new MockServer();
+    private final FrameStamps stamps = new FrameStamps();
+    private OpenRGB openRGB;
+
+    public LoadTest(int controllerCount, int ledCount, int fps) {
+        this.controllerCount = controllerCount;
+        this.ledCount = ledCount;
+        this.fps = fps;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int controllers = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int leds = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int fps = args.length > 2 ? Integer.parseInt(args[2]) : 144;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        double minRatio = args.length > 4 ? Double.parseDouble(args[4]) : 0.95;
+
+        LoadTest test = new LoadTest(controllers, leds, fps);
+        if(args.length > 5)
+            test.setConnections(Integer.parseInt(args[5]));
+        if(args.length > 6)
+            test.setSlowControllerDelay(Long.parseLong(args[6]));
+        double ratio = test.run(seconds);
+        System.exit(ratio >= minRatio ? 0 : 1);
+    }
+
+    /**
+     * Set the number of connections used to send the frames
+     * @param connections   number of connections (default: 1)
+     */
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Set the time every update of the first controller blocks its connection
+     * @param slowControllerDelay   delay in microseconds (default: 0)
+     */
+    public void setSlowControllerDelay(long slowControllerDelay) {
+        this.slowControllerDelay = slowControllerDelay;
+    }
+
+    /**
+     * Run the load test
+     * @param seconds       duration of the measurement
+     * @return              ratio of received to target {@code UPDATELEDS} rate
+     * @throws IOException  if the server could not be started or the client could not connect
+     */
+    public double run(int seconds) throws IOException, InterruptedException {
+        List<VirtualController> controllers = new ArrayList<>();
+        for(int i = 0; i < controllerCount; i++) {
+            if(i == 0 && slowControllerDelay > 0) {
+                VirtualController keyboard = new VirtualController(ControllerDataBuilder.keyboard("Slow Keyboard"));
+                keyboard.setUpdateDelay(slowControllerDelay);
+                controllers.add(keyboard);
+            } else {
+                controllers.add(new VirtualController(ControllerDataBuilder.ledStrip("Strip " + i, ledCount)));
+            }
+        }
+        server.setControllers(controllers);
+        server.setFrameStamps(stamps);
+        server.start(0);
+
+        openRGB = new OpenRGB(new ChannelClient("127.0.0.1", server.getPort()), "OpenRGB Load Test");
+        if(connections > 1) {
+            ConnectionPool pool = new ConnectionPool(openRGB, connections, () -> new ChannelClient("127.0.0.1", server.getPort()));
+            pool.setPolicy(AssignmentPolicy.ISOLATE_PERIPHERALS);
+            openRGB.setConnectionPool(pool);
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            if(!openRGB.connect())
+                throw new IOException("Could not connect to the mock server.");
+            DeviceTopology topology = openRGB.getTopologyCache().await();
+            if(topology == null || topology.getDeviceCount() != controllerCount)
+                throw new IOException("Could not load the controllers from the mock server.");
+
+            DeviceView[] devices = topology.getDevices();
+            int maxLedCount = 0;
+            for(DeviceView device : devices)
+                maxLedCount = Math.max(maxLedCount, device.getLedCount());
+            int[] colors = new int[maxLedCount];
+            FrameSender[] senders = new FrameSender[devices.length];
+            for(int i = 0; i < devices.length; i++)
+                senders[i] = openRGB.getFrameSender(devices[i].getDeviceId());
+            server.getStats().reset();
+
+            long period = TimeUnit.SECONDS.toNanos(1) / fps;
+            executor.scheduleAtFixedRate(() -> {
+                int stamp = stamps.stamp();
+                // change every led, so the sender always sends complete frames
+                for(int i = 0; i < colors.length; i++)
+                    colors[i] = (stamp * 31 + i) & 0xFFFFFF;
+                colors[0] = stamp;
+                for(int i = 0; i < devices.length; i++)
+                    senders[i].submit(devices[i], colors, 0);
+            }, 0, period, TimeUnit.NANOSECONDS);
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+            return report(new OpenRGBMonitor(openRGB), seconds);
+        } finally {
+            executor.shutdownNow();
+            openRGB.disconnect();
+            server.stop();
+        }
+    }
+
+    private double report(OpenRGBMonitor client, int seconds) {
+        MockServerStats stats = server.getStats();
+        double targetRate = (double) controllerCount * fps;
+        double rate = stats.getUpdateLedsRate();
+        double ratio = rate / targetRate;
+
+        System.out.printf("Load test: %d controllers x %d leds at %d fps for %d s over %d connections%n",
+                controllerCount, ledCount, fps, seconds, client.getConnectionCount());
+        System.out.printf("Client:    submitted=%d sent=%d dropped=%d full=%d zone=%d single=%d%n",
+                client.getFramesSubmitted(), client.getFramesSent(), client.getFramesDropped(),
+                client.getFullUpdates(), client.getZoneUpdates(), client.getSingleLedUpdates());
+        System.out.printf("Server:    UPDATELEDS=%d (%.0f/s, target %.0f/s, %.1f%%) leds=%.0f/s %.2f MB/s invalid=%d%n",
+                stats.getUpdateLedsPackets(), rate, targetRate, ratio * 100,
+                stats.getUpdateSeconds() > 0 ? stats.getUpdatedLeds() / stats.getUpdateSeconds() : 0,
+                stats.getUpdateSeconds() > 0 ? stats.getBytes() / stats.getUpdateSeconds() / 1e6 : 0,
+                stats.getInvalidPackets());
+        System.out.println("Latency:   " + stats.getUpdateLatency());
+        return ratio;
+    }
+}
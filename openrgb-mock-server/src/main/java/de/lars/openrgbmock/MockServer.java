@@ -0,0 +1,268 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mock OpenRGB SDK server with configurable virtual controllers.
+ * <p>The server answers controller count, controller data and protocol version requests
+ * and applies received led updates to its {@link VirtualController}s. Every received
+ * packet is counted in the {@link MockServerStats}. Each client connection is handled
+ * by its own thread. Sessions can also be opened in process with
+ * {@link #openSession(MockSession.PacketWriter)} to run without a socket.</p>
+ */
+public class MockServer {
+
+    /** default port of the OpenRGB SDK server */
+    public static final int DEFAULT_PORT = 6742;
+    /** packets with more data are treated as malformed and close the connection */
+    public static final int MAX_DATA_LENGTH = 16 * 1024 * 1024;
+
+    /** immutable list of the controllers, replaced on every change */
+    private volatile List<VirtualController> controllers = Collections.emptyList();
+    private final Set<MockSession> sessions = ConcurrentHashMap.newKeySet();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final MockServerStats stats = new MockServerStats();
+    private volatile int protocolVersion = 1;
+    private volatile FrameStamps frameStamps;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private int connectionCount = 0;
+
+    /**
+     * Start listening on the loopback address
+     * @param port          port to listen on, 0 to use any free port
+     * @throws IOException  if the port could not be bound
+     */
+    public synchronized void start(int port) throws IOException {
+        start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Start listening on an address
+     * @param address       address to listen on
+     * @throws IOException  if the address could not be bound
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if(serverSocket != null)
+            throw new IllegalStateException("Server is already running.");
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(address);
+        serverSocket = socket;
+        acceptThread = new Thread(() -> acceptLoop(socket), "OpenRGB Mock Server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Stop listening and close all client connections
+     */
+    public synchronized void stop() {
+        if(serverSocket == null) return;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error while closing the mock server: " + e.getMessage());
+        }
+        serverSocket = null;
+        for(Socket socket : sockets)
+            closeQuietly(socket);
+        try {
+            acceptThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        acceptThread = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return serverSocket != null;
+    }
+
+    /**
+     * Get the port the server is listening on
+     * @return          local port or -1 if the server is not running
+     */
+    public synchronized int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Open a session that is not bound to a socket. Received packets must be passed to
+     * {@link MockSession#handle(Packet, byte[], int, long)}.
+     * @param writer        destination of replies and notifications
+     * @return              new session
+     */
+    public MockSession openSession(MockSession.PacketWriter writer) {
+        MockSession session = new MockSession(this, writer);
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * Close a session, it will not receive notifications anymore
+     * @param session       session to close
+     */
+    public void closeSession(MockSession session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * Add a controller and notify connected clients
+     * @param controller    controller to add, its device id is the index in the list
+     */
+    public void addController(VirtualController controller) {
+        synchronized (this) {
+            List<VirtualController> list = new ArrayList<>(controllers);
+            list.add(controller);
+            controllers = Collections.unmodifiableList(list);
+        }
+        notifyDeviceListUpdated();
+    }
+
+    /**
+     * Replace all controllers and notify connected clients
+     * @param controllers   new controllers
+     */
+    public void setControllers(List<VirtualController> controllers) {
+        synchronized (this) {
+            this.controllers = Collections.unmodifiableList(new ArrayList<>(controllers));
+        }
+        notifyDeviceListUpdated();
+    }
+
+    /**
+     * Get a controller by device id
+     * @param deviceId      device id (starting at 0)
+     * @return              the controller or null if the id is invalid
+     */
+    public VirtualController getController(int deviceId) {
+        List<VirtualController> list = controllers;
+        if(deviceId < 0 || deviceId >= list.size())
+            return null;
+        return list.get(deviceId);
+    }
+
+    public int getControllerCount() {
+        return controllers.size();
+    }
+
+    public List<VirtualController> getControllers() {
+        return controllers;
+    }
+
+    /**
+     * Set the protocol version of the server. Version 0 emulates servers that
+     * do not answer {@code REQUEST_PROTOCOL_VERSION} and send no notifications.
+     * @param protocolVersion   server protocol version
+     */
+    public void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Enable latency measurement of {@code UPDATELEDS} packets
+     * @param frameStamps   stamps used by the load generator or null to disable
+     */
+    public void setFrameStamps(FrameStamps frameStamps) {
+        this.frameStamps = frameStamps;
+    }
+
+    public FrameStamps getFrameStamps() {
+        return frameStamps;
+    }
+
+    public MockServerStats getStats() {
+        return stats;
+    }
+
+    private void notifyDeviceListUpdated() {
+        for(MockSession session : sessions) {
+            try {
+                session.sendDeviceListUpdated();
+            } catch (IOException e) {
+                System.err.println("Could not notify client: " + e.getMessage());
+            }
+        }
+    }
+
+    private void acceptLoop(ServerSocket serverSocket) {
+        while(!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                Thread thread = new Thread(() -> connectionLoop(socket), "OpenRGB Mock Connection " + (++connectionCount));
+                thread.setDaemon(true);
+                thread.start();
+            } catch (SocketException e) {
+                // server socket was closed
+            } catch (IOException e) {
+                System.err.println("Error while accepting a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void connectionLoop(Socket socket) {
+        MockSession session = null;
+        try {
+            OutputStream out = socket.getOutputStream();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            session = openSession(packet -> {
+                synchronized (out) {
+                    out.write(packet);
+                    out.flush();
+                }
+            });
+            byte[] header = new byte[Packet.HEADER_SIZE];
+            while(true) {
+                in.readFully(header);
+                long receiveNanos = System.nanoTime();
+                Packet packet = Packet.decodeHeader(header);
+                if(packet.dataLength < 0 || packet.dataLength > MAX_DATA_LENGTH)
+                    throw new IllegalArgumentException("Invalid data length " + packet.dataLength + ".");
+                byte[] data = new byte[packet.dataLength];
+                in.readFully(data);
+                session.handle(packet, data, 0, receiveNanos);
+            }
+        } catch (EOFException | SocketException e) {
+            // client disconnected or server stopped
+        } catch (IOException | IllegalArgumentException e) {
+            stats.recordInvalid();
+            System.err.println("Closing mock connection: " + e.getMessage());
+        } finally {
+            if(session != null)
+                closeSession(session);
+            sockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+import de.lars.openrgbwrapper.utils.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the packets received by a {@link MockServer}.
+ */
+public class MockServerStats {
+
+    private final LongAdder packets = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder updateLedsPackets = new LongAdder();
+    private final LongAdder updateZonePackets = new LongAdder();
+    private final LongAdder singleLedPackets = new LongAdder();
+    private final LongAdder updatedLeds = new LongAdder();
+    private final LongAdder invalidPackets = new LongAdder();
+    private final AtomicLong firstUpdateNanos = new AtomicLong();
+    private volatile long lastUpdateNanos;
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+
+    void recordPacket(int dataLength) {
+        packets.increment();
+        bytes.add(Packet.HEADER_SIZE + dataLength);
+    }
+
+    void recordInvalid() {
+        invalidPackets.increment();
+    }
+
+    void recordUpdate(PacketIdentifier type, int leds, long receiveNanos) {
+        switch (type) {
+            case RGBCONTROLLER_UPDATELEDS:
+                updateLedsPackets.increment();
+                break;
+            case RGBCONTROLLER_UPDATEZONELEDS:
+                updateZonePackets.increment();
+                break;
+            default:
+                singleLedPackets.increment();
+                break;
+        }
+        updatedLeds.add(leds);
+        firstUpdateNanos.compareAndSet(0, receiveNanos);
+        lastUpdateNanos = receiveNanos;
+    }
+
+    public long getPackets() {
+        return packets.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getUpdateLedsPackets() {
+        return updateLedsPackets.sum();
+    }
+
+    public long getUpdateZonePackets() {
+        return updateZonePackets.sum();
+    }
+
+    public long getSingleLedPackets() {
+        return singleLedPackets.sum();
+    }
+
+    /**
+     * Get the number of leds set by all update packets
+     * @return          number of updated leds
+     */
+    public long getUpdatedLeds() {
+        return updatedLeds.sum();
+    }
+
+    /**
+     * Get the number of packets that were malformed or targeted an invalid device, zone or led
+     * @return          number of invalid packets
+     */
+    public long getInvalidPackets() {
+        return invalidPackets.sum();
+    }
+
+    /**
+     * Get the time between the first and the last received update
+     * @return          duration in seconds or 0 if less than two updates were received
+     */
+    public double getUpdateSeconds() {
+        long first = firstUpdateNanos.get();
+        return first == 0 ? 0 : (lastUpdateNanos - first) / 1e9;
+    }
+
+    /**
+     * Get the rate of received {@code UPDATELEDS} packets
+     * @return          packets per second
+     */
+    public double getUpdateLedsRate() {
+        double seconds = getUpdateSeconds();
+        return seconds > 0 ? getUpdateLedsPackets() / seconds : 0;
+    }
+
+    /**
+     * Get the latency of stamped {@code UPDATELEDS} packets, see {@link FrameStamps}
+     * @return          latency histogram
+     */
+    public LatencyHistogram getUpdateLatency() {
+        return updateLatency;
+    }
+
+    /**
+     * Reset all counters
+     */
+    public void reset() {
+        packets.reset();
+        bytes.reset();
+        updateLedsPackets.reset();
+        updateZonePackets.reset();
+        singleLedPackets.reset();
+        updatedLeds.reset();
+        invalidPackets.reset();
+        firstUpdateNanos.set(0);
+        lastUpdateNanos = 0;
+        updateLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "MockServerStats{" +
+                "packets=" + getPackets() +
+                ", bytes=" + getBytes() +
+                ", updateLeds=" + getUpdateLedsPackets() +
+                ", updateZone=" + getUpdateZonePackets() +
+                ", singleLed=" + getSingleLedPackets() +
+                ", invalid=" + getInvalidPackets() +
+                '}';
+    }
+}
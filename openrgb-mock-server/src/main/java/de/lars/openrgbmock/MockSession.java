@@ -0,0 +1,176 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocol state of one client connected to a {@link MockServer}. Received packets are
+ * passed to {@link #handle(Packet, byte[], int, long)} and replies are written to the
+ * {@link PacketWriter} of the session, so a session can run over a socket or in process.
+ */
+public class MockSession {
+
+    /**
+     * Destination of the packets sent by the server
+     */
+    @FunctionalInterface
+    public interface PacketWriter {
+        /**
+         * Write a complete packet including the header
+         * @param packet        packet bytes
+         * @throws IOException  if the packet could not be written
+         */
+        void write(byte[] packet) throws IOException;
+    }
+
+    private final MockServer server;
+    private final PacketWriter writer;
+    private volatile String clientName;
+    private volatile int protocolVersion = 0;
+
+    MockSession(MockServer server, PacketWriter writer) {
+        this.server = server;
+        this.writer = writer;
+    }
+
+    /**
+     * Handle a received packet
+     * @param header            decoded packet header
+     * @param data              array containing the packet data
+     * @param offset            index of the packet data in the array
+     * @param receiveNanos      {@link System#nanoTime()} when the packet was received
+     * @throws IOException      if a reply could not be written
+     */
+    public void handle(Packet header, byte[] data, int offset, long receiveNanos) throws IOException {
+        MockServerStats stats = server.getStats();
+        stats.recordPacket(header.dataLength);
+        if(header.identifier == null) {
+            stats.recordInvalid();
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int length = header.dataLength;
+
+        switch (header.identifier) {
+            case REQUEST_CONTROLLER_COUNT:
+                reply(header.identifier, 0, intData(server.getControllerCount()));
+                break;
+
+            case REQUEST_CONTROLLER_DATA: {
+                VirtualController controller = server.getController(header.deviceId);
+                if(controller != null)
+                    reply(header.identifier, header.deviceId, controller.getData());
+                else
+                    stats.recordInvalid();
+                break;
+            }
+
+            case REQUEST_PROTOCOL_VERSION:
+                // servers before protocol version 1 do not know this request
+                if(server.getProtocolVersion() > 0) {
+                    int clientVersion = length >= 4 ? buffer.getInt(offset) : 0;
+                    protocolVersion = Math.min(clientVersion, server.getProtocolVersion());
+                    reply(header.identifier, 0, intData(server.getProtocolVersion()));
+                }
+                break;
+
+            case SET_CLIENT_NAME:
+                // strip the null terminator
+                int nameLength = length > 0 && data[offset + length - 1] == 0 ? length - 1 : length;
+                clientName = new String(data, offset, nameLength, StandardCharsets.US_ASCII);
+                break;
+
+            case RGBCONTROLLER_UPDATELEDS: {
+                VirtualController controller = server.getController(header.deviceId);
+                int count = length >= 6 ? buffer.getShort(offset + 4) & 0xFFFF : -1;
+                if(controller == null || length < 6 + count * 4 || !controller.setColors(data, offset + 6, 0, count)) {
+                    stats.recordInvalid();
+                    break;
+                }
+                stats.recordUpdate(header.identifier, count, receiveNanos);
+                FrameStamps stamps = server.getFrameStamps();
+                if(stamps != null && count > 0)
+                    stats.getUpdateLatency().record(stamps.latency(controller.getColor(0), receiveNanos));
+                controller.awaitUpdate();
+                break;
+            }
+
+            case RGBCONTROLLER_UPDATEZONELEDS: {
+                VirtualController controller = server.getController(header.deviceId);
+                int zoneId = length >= 10 ? buffer.getInt(offset + 4) : -1;
+                if(controller == null || zoneId < 0 || zoneId >= controller.getZoneCount()) {
+                    stats.recordInvalid();
+                    break;
+                }
+                int count = buffer.getShort(offset + 8) & 0xFFFF;
+                if(count > controller.getZoneLedCount(zoneId) || length < 10 + count * 4
+                        || !controller.setColors(data, offset + 10, controller.getZoneOffset(zoneId), count)) {
+                    stats.recordInvalid();
+                    break;
+                }
+                stats.recordUpdate(header.identifier, count, receiveNanos);
+                controller.awaitUpdate();
+                break;
+            }
+
+            case RGBCONTROLLER_UPDATESINGLELED: {
+                VirtualController controller = server.getController(header.deviceId);
+                int ledId = length >= 8 ? buffer.getInt(offset) : -1;
+                if(controller == null || !controller.setColors(data, offset + 4, ledId, 1)) {
+                    stats.recordInvalid();
+                    break;
+                }
+                stats.recordUpdate(header.identifier, 1, receiveNanos);
+                controller.awaitUpdate();
+                break;
+            }
+
+            default:
+                // modes and zone resizing are accepted but not emulated
+                break;
+        }
+    }
+
+    /**
+     * Notify the client that the controller list changed. Only sent to
+     * clients with a protocol version of at least 1.
+     * @throws IOException      if the packet could not be written
+     */
+    void sendDeviceListUpdated() throws IOException {
+        if(protocolVersion >= 1)
+            reply(PacketIdentifier.DEVICE_LIST_UPDATED, 0, new byte[0]);
+    }
+
+    /**
+     * Get the name sent by the client
+     * @return          client name or null if not set yet
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * Get the protocol version negotiated with the client
+     * @return          protocol version, 0 if the client did not request a version
+     */
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    private void reply(PacketIdentifier identifier, int deviceId, byte[] data) throws IOException {
+        byte[] packet = new byte[Packet.HEADER_SIZE + data.length];
+        ByteBuffer buffer = ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN);
+        Packet.writeHeader(buffer, 0, identifier, deviceId, data.length);
+        System.arraycopy(data, 0, packet, Packet.HEADER_SIZE, data.length);
+        writer.write(packet);
+    }
+
+    private static byte[] intData(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+}
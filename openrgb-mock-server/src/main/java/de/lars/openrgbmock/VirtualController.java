@@ -0,0 +1,157 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.DeviceView;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Controller emulated by the {@link MockServer}. Holds the controller data sent to
+ * clients and the current colors of the leds, which are updated by received
+ * {@code UPDATELEDS}, {@code UPDATEZONELEDS} and {@code UPDATESINGLELED} packets.
+ * <p>Colors are written by the connection threads of the server without
+ * synchronization. Reading them from another thread is only approximate.</p>
+ */
+public class VirtualController {
+
+    private final byte[] data;
+    private final String name;
+    private final int[] zoneOffsets;
+    private final int[] zoneLedCounts;
+    private final int[] colors;
+    /** time the connection thread is blocked by an update, emulates slow hardware */
+    private volatile long updateDelayNanos = 0;
+
+    /**
+     * Create a virtual controller from controller data
+     * @param data      controller data as built by {@link ControllerDataBuilder#build()}
+     */
+    public VirtualController(byte[] data) {
+        this.data = data;
+        // only the layout is needed, the data is sent as it is
+        DeviceView view = DeviceView.wrap(0, data);
+        name = view.getName();
+        zoneOffsets = new int[view.getZoneCount()];
+        zoneLedCounts = new int[view.getZoneCount()];
+        int offset = 0;
+        for(int i = 0; i < zoneOffsets.length; i++) {
+            zoneOffsets[i] = offset;
+            zoneLedCounts[i] = view.getZoneLedCount(i);
+            offset += zoneLedCounts[i];
+        }
+        colors = new int[view.getLedCount()];
+        for(int i = 0; i < Math.min(colors.length, view.getColorCount()); i++)
+            colors[i] = view.getColor(i);
+    }
+
+    /**
+     * Create a virtual controller from a builder
+     * @param builder   controller data builder
+     */
+    public VirtualController(ControllerDataBuilder builder) {
+        this(builder.build());
+    }
+
+    /**
+     * Get the controller data as sent in {@code REQUEST_CONTROLLER_DATA} replies
+     * @return          controller data (must not be modified)
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLedCount() {
+        return colors.length;
+    }
+
+    public int getZoneCount() {
+        return zoneLedCounts.length;
+    }
+
+    /**
+     * Get the index of the first led of a zone
+     * @param zoneId    zone index
+     * @return          led index
+     */
+    public int getZoneOffset(int zoneId) {
+        return zoneOffsets[zoneId];
+    }
+
+    public int getZoneLedCount(int zoneId) {
+        return zoneLedCounts[zoneId];
+    }
+
+    /**
+     * Get the current color of a led
+     * @param index     led index
+     * @return          color packed as {@code 0xRRGGBB}
+     */
+    public int getColor(int index) {
+        return colors[index];
+    }
+
+    /**
+     * Get a copy of the current colors
+     * @return          colors packed as {@code 0xRRGGBB}
+     */
+    public int[] getColors() {
+        return colors.clone();
+    }
+
+    /**
+     * Set the time the connection thread is blocked by every update of this controller.
+     * Emulates slow hardware like USB keyboards, which delays all following packets
+     * of the same connection as the OpenRGB server does.
+     * @param updateDelayMicros     delay in microseconds, 0 to disable
+     */
+    public void setUpdateDelay(long updateDelayMicros) {
+        this.updateDelayNanos = updateDelayMicros * 1000;
+    }
+
+    /**
+     * Get the time the connection thread is blocked by every update
+     * @return          delay in microseconds
+     */
+    public long getUpdateDelay() {
+        return updateDelayNanos / 1000;
+    }
+
+    /**
+     * Block the calling connection thread for the update delay
+     */
+    void awaitUpdate() {
+        long delay = updateDelayNanos;
+        if(delay > 0)
+            LockSupport.parkNanos(delay);
+    }
+
+    /**
+     * Set colors from wire format (red, green, blue, 0)
+     * @param data      received data
+     * @param offset    index of the first color in the data
+     * @param ledIndex  index of the first led to set
+     * @param count     number of colors
+     * @return          false if the range does not fit the leds
+     */
+    boolean setColors(byte[] data, int offset, int ledIndex, int count) {
+        if(ledIndex < 0 || count < 0 || ledIndex + count > colors.length)
+            return false;
+        for(int i = 0; i < count; i++) {
+            int o = offset + i * 4;
+            colors[ledIndex + i] = (data[o] & 0xFF) << 16 | (data[o + 1] & 0xFF) << 8 | data[o + 2] & 0xFF;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualController{" +
+                "name='" + name + '\'' +
+                ", zones=" + zoneLedCounts.length +
+                ", leds=" + colors.length +
+                '}';
+    }
+}
@@ -0,0 +1,156 @@
+package de.lars.openrgbmock;
+
+import de.lars.openrgbwrapper.DeviceTopology;
+import de.lars.openrgbwrapper.DeviceView;
+import de.lars.openrgbwrapper.OpenRGB;
+import de.lars.openrgbwrapper.models.Color;
+import de.lars.openrgbwrapper.types.DeviceType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Client of the wrapper against a {@link MockServer} on a free loopback port
+ */
+public class MockServerClientTest {
+
+    /** time to wait for packets to arrive at the server */
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private MockServer server;
+    private OpenRGB openRGB;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockServer();
+        List<VirtualController> controllers = new ArrayList<>();
+        controllers.add(new VirtualController(ControllerDataBuilder.ledStrip("Strip", 10)));
+        controllers.add(new VirtualController(new ControllerDataBuilder("Zones", DeviceType.Ledstrip)
+                .zone("Zone 0", ControllerDataBuilder.ZONE_TYPE_LINEAR, 4, "A ")
+                .zone("Zone 1", ControllerDataBuilder.ZONE_TYPE_LINEAR, 6, "B ")));
+        server.setControllers(controllers);
+        server.start(0);
+        openRGB = new OpenRGB("127.0.0.1", server.getPort(), "Test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        openRGB.disconnect();
+        server.stop();
+    }
+
+    @Test
+    public void connectNegotiatesProtocolVersion() throws Exception {
+        assertTrue(openRGB.connect());
+        assertEquals(OpenRGB.CLIENT_PROTOCOL_VERSION, awaitProtocolVersion());
+    }
+
+    @Test
+    public void connectFallsBackToVersionZero() throws Exception {
+        // the server does not answer the version request
+        server.setProtocolVersion(0);
+        assertTrue(openRGB.connect());
+        assertEquals(0, awaitProtocolVersion());
+    }
+
+    @Test
+    public void getAllControllerViews() throws Exception {
+        openRGB.connect();
+        DeviceView[] views = openRGB.getAllControllerViewsAsync().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(2, views.length);
+        assertEquals("Strip", views[0].getName());
+        assertEquals(10, views[0].getLedCount());
+        assertEquals("Zones", views[1].getName());
+        assertEquals(2, views[1].getZoneCount());
+        assertEquals(6, views[1].getZoneLedCount(1));
+    }
+
+    @Test
+    public void updateLeds() throws Exception {
+        openRGB.connect();
+        int[] expected = new int[10];
+        Color[] colors = new Color[10];
+        for(int i = 0; i < colors.length; i++) {
+            colors[i] = new Color(i, 0x80, 0xFF - i);
+            expected[i] = colors[i].toPacked();
+        }
+        openRGB.updateLeds(0, colors);
+        awaitColors(server.getController(0), expected);
+    }
+
+    @Test
+    public void updateZone() throws Exception {
+        openRGB.connect();
+        Color[] colors = new Color[6];
+        Arrays.fill(colors, new Color(0x12, 0x34, 0x56));
+        openRGB.updateZone(1, 1, colors);
+        // the leds of the first zone are unchanged
+        int[] expected = new int[10];
+        Arrays.fill(expected, 4, 10, 0x123456);
+        awaitColors(server.getController(1), expected);
+    }
+
+    @Test
+    public void updateSingleLed() throws Exception {
+        openRGB.connect();
+        openRGB.updateSingleLed(0, 7, 0xABCDEF);
+        int[] expected = new int[10];
+        expected[7] = 0xABCDEF;
+        awaitColors(server.getController(0), expected);
+    }
+
+    @Test
+    public void deviceListUpdatedRefreshesTopology() throws Exception {
+        openRGB.connect();
+        DeviceTopology initial = openRGB.getTopologyCache().await();
+        assertNotNull(initial);
+        assertEquals(2, initial.getDeviceCount());
+        BlockingQueue<DeviceTopology> updates = new LinkedBlockingQueue<>();
+        openRGB.getTopologyCache().addListener(updates::add);
+
+        List<VirtualController> controllers = new ArrayList<>(server.getControllers());
+        controllers.add(new VirtualController(ControllerDataBuilder.ledStrip("Added", 3)));
+        server.setControllers(controllers);
+
+        // the refresh started after the protocol negotiation may still publish the old devices
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        DeviceTopology updated;
+        do {
+            updated = updates.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            assertNotNull("Topology was not refreshed", updated);
+        } while(updated.getDeviceCount() != 3);
+        assertTrue(updated.getVersion() > initial.getVersion());
+        assertEquals("Added", updated.getDevice(2).getName());
+        assertEquals(3, openRGB.getTopologyCache().get().getDeviceCount());
+    }
+
+    private int awaitProtocolVersion() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while(openRGB.getProtocolVersion() < 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        return openRGB.getProtocolVersion();
+    }
+
+    /**
+     * Wait until the controller shows the expected colors
+     */
+    private static void awaitColors(VirtualController controller, int[] expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while(!Arrays.equals(expected, controller.getColors()) && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertArrayEquals(expected, controller.getColors());
+    }
+}
@@ -4,110 +4,173 @@ import de.lars.openrgbplugin.utils.ClientConnectEvent;
 import de.lars.openrgbwrapper.OpenRGB;
 
 import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reconnects an OpenRGB client in the background. The first attempt is made immediately,
+ * the following attempts are delayed with exponential backoff up to the interval. A random
+ * jitter keeps multiple clients from reconnecting at the same time.
+ * <p>All attempts run on a thread of the instance, so starting the reconnect never blocks
+ * the calling (render or UI) thread. After connecting, the client fetches the topology with
+ * pipelined requests, so the outputs can continue as soon as the server is back.</p>
+ */
 public class AutoConnect {
 
-    /** try to connect interval */
-    private int interval;
-    /** check timer */
-    private final Timer timer;
+    /** default delay after the first failed attempt in milliseconds */
+    public static final int DEFAULT_INITIAL_DELAY = 100;
+
+    /** maximum delay between two attempts */
+    private volatile int interval;
+    /** delay after the first failed attempt */
+    private volatile int initialDelay = DEFAULT_INITIAL_DELAY;
+    /** executor running the connect attempts */
+    private final ScheduledExecutorService executor;
     /** client instance */
     private final OpenRGB client;
     /** active state */
-    private boolean isActive;
-    /** timer task instance (could be null) */
-    private ConnectTask connectTask;
+    private volatile boolean isActive;
+    /** incremented on every start and stop, attempts of older runs are discarded */
+    private int generation;
+    /** failed attempts of the current run */
+    private int attempts;
+    /** next scheduled attempt (could be null) */
+    private ScheduledFuture<?> connectTask;
 
+    /**
+     * Create a new auto connect instance
+     * @param interval  maximum delay between two attempts in milliseconds
+     * @param client    client to connect
+     */
     public AutoConnect(int interval, OpenRGB client) {
         this.interval = interval;
         this.client = client;
-        this.timer = new Timer("OpenRGB Plugin AutoConnect");
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "OpenRGB Plugin AutoConnect");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
-     * Returns whether the timer is currently active and trying to connect to the
-     * server in the specified interval.
-     * @return      whether the timer is active or not
+     * Returns whether the client is currently trying to reconnect
+     * @return      whether auto connect is active or not
      */
     public boolean isActive() {
         return isActive;
     }
 
     /**
-     * Sets the interval in milliseconds. Has no effect if the timer is already running.
-     * @param interval  timer interval in milliseconds
+     * Sets the maximum delay between two attempts in milliseconds.
+     * Applies to the next scheduled attempt.
+     * @param interval  maximum delay in milliseconds
      */
     public void setInterval(int interval) {
         this.interval = interval;
     }
 
     /**
-     * Gets the currently specified timer interval.
-     * @return          timer interval in milliseconds
+     * Gets the maximum delay between two attempts.
+     * @return          maximum delay in milliseconds
      */
     public int getInterval() {
         return interval;
     }
 
     /**
-     * Start the timer with the specified interval. Has no effect if timer
-     * is already running.
+     * Sets the delay after the first failed attempt, it is doubled after every failed attempt.
+     * @param initialDelay  delay in milliseconds (default: {@link #DEFAULT_INITIAL_DELAY})
      */
-    public void start() {
-        if(!isActive) {
-            isActive = true;
-            runNewTask();
-        }
+    public void setInitialDelay(int initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    public int getInitialDelay() {
+        return initialDelay;
     }
 
     /**
-     * Stop currently running timer.
+     * Start reconnecting with an immediate first attempt. Has no effect if
+     * auto connect is already active.
      */
-    public void stop() {
+    public synchronized void start() {
+        if(isActive || executor.isShutdown()) return;
+        isActive = true;
+        attempts = 0;
+        schedule(++generation, 0);
+    }
+
+    /**
+     * Stop reconnecting. An attempt that is already running is finished.
+     */
+    public synchronized void stop() {
+        isActive = false;
+        generation++;
         if(connectTask != null) {
-            connectTask.cancel();
-            isActive = false;
+            connectTask.cancel(false);
+            connectTask = null;
         }
     }
 
     /**
-     * Schedule a new timer task with the specified interval.
+     * Stop reconnecting and terminate the thread. The instance cannot be started again.
+     */
+    public synchronized void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Schedule the next attempt. Must be called while holding the lock.
      */
-    protected void runNewTask() {
-        if(connectTask != null)
-            connectTask.cancel();
-        connectTask = new ConnectTask();
-        timer.schedule(connectTask, getInterval());
+    private void schedule(int run, long delay) {
+        connectTask = executor.schedule(() -> attempt(run), delay, TimeUnit.MILLISECONDS);
     }
 
-    private class ConnectTask extends TimerTask {
-
-        @Override
-        public void run() {
-            if(client.isConnected()) {
-                // client is already connected
-                stop();
-                return;
-            }
-            // try to connect
-            try {
-                boolean connected = client.connect();
-                if(connected) {
-                    OpenRgbPlugin.print(String.format("AutoConnect: Could connect to %s:%d",
-                            client.getClient().getHostname(), client.getClient().getPort()));
-                    // stop timer
-                    stop();
-                    // call connect event
-                    OpenRgbPlugin.getInstance().getInterface().getEventHandler().call(new ClientConnectEvent(ClientConnectEvent.Type.CONNECT));
-                    return;
-                }
-            } catch (IOException e) {
-                // show no error message
-            }
-            // run timer again
-            runNewTask();
+    /**
+     * Get the delay before the next attempt using exponential backoff with jitter.
+     * Must be called while holding the lock.
+     * @return          delay in milliseconds
+     */
+    private long nextDelay() {
+        long max = Math.max(interval, 1);
+        long delay = Math.min((long) initialDelay << Math.min(attempts, 20), max);
+        attempts++;
+        // use a random delay between half and the full backoff
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void attempt(int run) {
+        synchronized (this) {
+            if(run != generation) return;
+        }
+        if(client.isConnected()) {
+            // client is already connected
+            stop();
+            return;
+        }
+        // try to connect
+        boolean connected = false;
+        try {
+            connected = client.connect();
+        } catch (IOException e) {
+            // show no error message
+        }
+        if(connected) {
+            OpenRgbPlugin.print(String.format("AutoConnect: Could connect to %s:%d",
+                    client.getClient().getHostname(), client.getClient().getPort()));
+            stop();
+            // call connect event
+            OpenRgbPlugin.getInstance().getInterface().getEventHandler().call(new ClientConnectEvent(ClientConnectEvent.Type.CONNECT));
+            return;
+        }
+        // try again later
+        synchronized (this) {
+            if(run == generation)
+                schedule(run, nextDelay());
         }
     }
 
@@ -0,0 +1,239 @@
+package de.lars.openrgbplugin;
+
+import de.lars.openrgbwrapper.DeviceTopology;
+import de.lars.openrgbwrapper.DeviceView;
+import de.lars.openrgbwrapper.FrameSender;
+import de.lars.openrgbwrapper.TopologyCache;
+import de.lars.openrgbwrapper.utils.ColorCalibration;
+import de.lars.remotelightcore.utils.color.Color;
+
+import java.util.List;
+
+/**
+ * Precompiled mapping of the pixels of a virtual output to the OpenRGB devices of a
+ * device group. The plan is created once per topology, so sending a frame only needs a
+ * single pass over the pixels without any lookups or checks.
+ * <p>The devices of a group can be spread over several servers. Each device slice is
+ * handed to the frame sender of its server, which sends it on its own thread, so the
+ * servers receive the frame in parallel.</p>
+ * <p>If the group has {@link LedMapping mapping rules} or uses a {@link MatrixLayout},
+ * the source pixel of each led is looked up in a flat index. Groups without rules use
+ * the pixels in their order and skip the index.</p>
+ * <p>The {@link ColorCalibration} of each device is passed on to its frame sender and
+ * applied when the colors are encoded.</p>
+ */
+public class FramePlan {
+
+    /** topology caches of the servers used by the group */
+    private final TopologyCache[] caches;
+    /** topology of each server at compile time, null if the server was not connected */
+    private final DeviceTopology[] topologies;
+    private final DeviceView[] devices;
+    /** frame sender of the server connection of each device */
+    private final FrameSender[] senders;
+    /** calibration of each device, null if the colors are sent unchanged */
+    private final ColorCalibration[] calibrations;
+    /** index of the first led of each device in the packed colors */
+    private final int[] offsets;
+    private final int pixelCount;
+    /** packed colors of the leds of the whole group, reused for every frame */
+    private final int[] packed;
+    /** source pixel of each led, -1 if the led is off, null if the pixels are used in order */
+    private final int[] sources;
+    /** number of pixels averaged for each led, null if no led averages */
+    private final int[] spans;
+
+    private FramePlan(TopologyCache[] caches, DeviceTopology[] topologies, DeviceView[] devices, FrameSender[] senders,
+                      ColorCalibration[] calibrations, int pixelCount, int[] sources, int[] spans) {
+        this.caches = caches;
+        this.topologies = topologies;
+        this.devices = devices;
+        this.senders = senders;
+        this.calibrations = calibrations;
+        offsets = new int[devices.length];
+        int leds = 0;
+        for(int i = 0; i < devices.length; i++) {
+            offsets[i] = leds;
+            leds += devices[i].getLedCount();
+        }
+        this.pixelCount = pixelCount;
+        packed = new int[leds];
+        this.sources = sources;
+        this.spans = spans;
+    }
+
+    /**
+     * Create a plan for the devices of a group
+     * @param servers       servers used by the group
+     * @param topologies    current topology of each server, null if the server is not connected
+     * @param devices       devices in the order of the pixels
+     * @param deviceServers server of each device
+     * @param mappings      led mapping of each device
+     * @param calibrations  calibration of each device, null entries send the colors unchanged
+     * @return              compiled frame plan
+     */
+    public static FramePlan compile(List<OpenRgbServer> servers, DeviceTopology[] topologies,
+                                    List<DeviceView> devices, List<OpenRgbServer> deviceServers,
+                                    List<LedMapping> mappings, List<ColorCalibration> calibrations) {
+        int leds = 0;
+        int pixels = 0;
+        boolean identity = true;
+        boolean averaging = false;
+        for(LedMapping mapping : mappings) {
+            leds += mapping.getLedCount();
+            pixels += mapping.getPixelCount();
+            identity &= mapping.isIdentity();
+            averaging |= mapping.hasSpans();
+        }
+        if(identity)
+            return create(servers, topologies, devices, deviceServers, calibrations, pixels, null, null);
+
+        // merge the mappings into a single index of absolute pixel indices
+        int[] sources = new int[leds];
+        int[] spans = averaging ? new int[leds] : null;
+        int ledOffset = 0;
+        int pixelOffset = 0;
+        for(LedMapping mapping : mappings) {
+            for(int led = 0; led < mapping.getLedCount(); led++) {
+                int source = mapping.getSource(led);
+                sources[ledOffset + led] = source < 0 ? -1 : pixelOffset + source;
+                if(spans != null)
+                    spans[ledOffset + led] = mapping.getSpan(led);
+            }
+            ledOffset += mapping.getLedCount();
+            pixelOffset += mapping.getPixelCount();
+        }
+        return create(servers, topologies, devices, deviceServers, calibrations, pixels, sources, spans);
+    }
+
+    /**
+     * Create a plan that maps a pixel grid onto the matrix zones of the devices
+     * @param servers       servers used by the group
+     * @param topologies    current topology of each server, null if the server is not connected
+     * @param devices       devices in the order of the pixels
+     * @param deviceServers server of each device
+     * @param layout        matrix layout built for the devices
+     * @param calibrations  calibration of each device, null entries send the colors unchanged
+     * @return              compiled frame plan
+     */
+    public static FramePlan compile(List<OpenRgbServer> servers, DeviceTopology[] topologies,
+                                    List<DeviceView> devices, List<OpenRgbServer> deviceServers,
+                                    MatrixLayout layout, List<ColorCalibration> calibrations) {
+        return create(servers, topologies, devices, deviceServers, calibrations, layout.getPixelCount(), layout.sources(), null);
+    }
+
+    private static FramePlan create(List<OpenRgbServer> servers, DeviceTopology[] topologies,
+                                    List<DeviceView> devices, List<OpenRgbServer> deviceServers,
+                                    List<ColorCalibration> calibrations, int pixelCount, int[] sources, int[] spans) {
+        TopologyCache[] caches = new TopologyCache[servers.size()];
+        for(int i = 0; i < caches.length; i++)
+            caches[i] = servers.get(i).getOpenRGB().getTopologyCache();
+        FrameSender[] senders = new FrameSender[deviceServers.size()];
+        for(int i = 0; i < senders.length; i++)
+            senders[i] = deviceServers.get(i).getOpenRGB().getFrameSender(devices.get(i).getDeviceId());
+        return new FramePlan(caches, topologies.clone(), devices.toArray(new DeviceView[0]), senders,
+                calibrations.toArray(new ColorCalibration[0]), pixelCount, sources, spans);
+    }
+
+    /**
+     * Pack the pixels and hand each device slice to the frame sender of its server
+     * @param pixels        pixels of the virtual output (length must match the pixel count)
+     */
+    public void submit(Color[] pixels) {
+        for(int d = 0; d < devices.length; d++) {
+            int start = offsets[d];
+            int end = start + devices[d].getLedCount();
+            if(sources == null) {
+                for(int i = start; i < end; i++) {
+                    Color c = pixels[i];
+                    packed[i] = (c.getRed() << 16) | (c.getGreen() << 8) | c.getBlue();
+                }
+            } else {
+                for(int i = start; i < end; i++) {
+                    int source = sources[i];
+                    if(source < 0) {
+                        packed[i] = 0;
+                    } else if(spans != null && spans[i] > 1) {
+                        packed[i] = average(pixels, source, spans[i]);
+                    } else {
+                        Color c = pixels[source];
+                        packed[i] = (c.getRed() << 16) | (c.getGreen() << 8) | c.getBlue();
+                    }
+                }
+            }
+            senders[d].submit(devices[d], packed, start, calibrations[d]);
+        }
+    }
+
+    /**
+     * Get the average color of consecutive pixels
+     * @return              average packed as {@code 0xRRGGBB}
+     */
+    private static int average(Color[] pixels, int start, int count) {
+        int red = 0, green = 0, blue = 0;
+        for(int i = start; i < start + count; i++) {
+            Color c = pixels[i];
+            red += c.getRed();
+            green += c.getGreen();
+            blue += c.getBlue();
+        }
+        return ((red / count) << 16) | ((green / count) << 8) | (blue / count);
+    }
+
+    /**
+     * Check if the plan still matches the topologies of the servers and the pixel number.
+     * A server that was already disconnected at compile time keeps the plan valid, its
+     * frames are discarded by its sender until it reconnects with a new topology.
+     * @param pixels        number of pixels of the frame
+     * @return              true if frames can be sent with this plan
+     */
+    public boolean isValid(int pixels) {
+        if(pixelCount != pixels)
+            return false;
+        int connected = 0;
+        for(int i = 0; i < caches.length; i++) {
+            // the topology is cleared on disconnect, so this also covers the connection state
+            DeviceTopology current = caches[i].get();
+            if(current != topologies[i])
+                return false;
+            if(current != null)
+                connected++;
+        }
+        return connected > 0;
+    }
+
+    public int getPixelCount() {
+        return pixelCount;
+    }
+
+    public int getDeviceCount() {
+        return devices.length;
+    }
+
+    /**
+     * Get a device of the plan
+     * @param index         index in the plan (not the device id)
+     * @return              device view
+     */
+    public DeviceView getDevice(int index) {
+        return devices[index];
+    }
+
+    /**
+     * Get the frame sender of the server of a device
+     * @param index         index in the plan (not the device id)
+     * @return              frame sender the device slice is submitted to
+     */
+    public FrameSender getSender(int index) {
+        return senders[index];
+    }
+
+    /**
+     * Get the calibration of a device
+     * @param index         index in the plan (not the device id)
+     * @return              calibration applied when encoding, null if the colors are sent unchanged
+     */
+    public ColorCalibration getCalibration(int index) {
+        return calibrations[index];
+    }
+}
@@ -0,0 +1,169 @@
+package de.lars.openrgbplugin;
+
+import de.lars.openrgbplugin.utils.DeviceRef;
+import de.lars.openrgbplugin.utils.MappingRule;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiled mapping of the pixels of a device group onto the leds of one device.
+ * <p>The rules of the device are applied to the sequence of leds that is driven by the
+ * pixels, which starts with all leds in their order. Masked leds are removed from the
+ * sequence, reverse and offset reorder it. Duplicate and average set the ratio of leds
+ * to pixels, only the last of these rules is used. The result is a flat index of the
+ * pixel each led shows, so the frame path needs no rule lookups.</p>
+ */
+public class LedMapping {
+
+    private final int ledCount;
+    private final int pixelCount;
+    /** source pixel of each led relative to the first pixel of the device, -1 if turned off, null if identity */
+    private final int[] sources;
+    /** number of pixels averaged for each led, null if no led averages */
+    private final int[] spans;
+
+    private LedMapping(int ledCount, int pixelCount, int[] sources, int[] spans) {
+        this.ledCount = ledCount;
+        this.pixelCount = pixelCount;
+        this.sources = sources;
+        this.spans = spans;
+    }
+
+    /**
+     * Create the mapping where pixel i drives led i
+     * @param ledCount      number of leds of the device
+     * @return              identity mapping
+     */
+    public static LedMapping identity(int ledCount) {
+        return new LedMapping(ledCount, ledCount, null, null);
+    }
+
+    /**
+     * Compile the rules of a device
+     * @param rules         rules of the group, rules of other devices are ignored
+     * @param device        device to compile the mapping for
+     * @param ledCount      number of leds of the device
+     * @return              compiled mapping
+     */
+    public static LedMapping compile(List<MappingRule> rules, DeviceRef device, int ledCount) {
+        // sequence of the leds driven by the pixels
+        int[] order = new int[ledCount];
+        for(int i = 0; i < ledCount; i++)
+            order[i] = i;
+        int length = ledCount;
+        int ledsPerPixel = 1;
+        int pixelsPerLed = 1;
+        boolean changed = false;
+
+        for(MappingRule rule : rules) {
+            if(!rule.getDevice().equals(device))
+                continue;
+            changed = true;
+            switch (rule.getType()) {
+                case MASK: {
+                    long end = rule.getCount() == 0 ? ledCount : (long) rule.getValue() + rule.getCount();
+                    int kept = 0;
+                    for(int p = 0; p < length; p++) {
+                        if(order[p] < rule.getValue() || order[p] >= end)
+                            order[kept++] = order[p];
+                    }
+                    length = kept;
+                    break;
+                }
+                case REVERSE: {
+                    int start = Math.min(rule.getValue(), length);
+                    int end = rule.getCount() == 0 ? length : (int) Math.min((long) start + rule.getCount(), length);
+                    for(int a = start, b = end - 1; a < b; a++, b--) {
+                        int led = order[a];
+                        order[a] = order[b];
+                        order[b] = led;
+                    }
+                    break;
+                }
+                case OFFSET: {
+                    if(length == 0) break;
+                    int shift = Math.floorMod(rule.getValue(), length);
+                    int[] rotated = new int[length];
+                    for(int p = 0; p < length; p++)
+                        rotated[p] = order[(p + shift) % length];
+                    System.arraycopy(rotated, 0, order, 0, length);
+                    break;
+                }
+                case DUPLICATE:
+                    ledsPerPixel = rule.getValue();
+                    pixelsPerLed = 1;
+                    break;
+                case AVERAGE:
+                    pixelsPerLed = rule.getValue();
+                    ledsPerPixel = 1;
+                    break;
+            }
+        }
+        if(!changed)
+            return identity(ledCount);
+
+        int[] sources = new int[ledCount];
+        Arrays.fill(sources, -1);
+        int[] spans = pixelsPerLed > 1 ? new int[ledCount] : null;
+        for(int p = 0; p < length; p++) {
+            int led = order[p];
+            if(spans != null) {
+                sources[led] = p * pixelsPerLed;
+                spans[led] = pixelsPerLed;
+            } else {
+                sources[led] = p / ledsPerPixel;
+            }
+        }
+        int pixelCount = spans != null ? length * pixelsPerLed : (length + ledsPerPixel - 1) / ledsPerPixel;
+        return new LedMapping(ledCount, pixelCount, sources, spans);
+    }
+
+    public int getLedCount() {
+        return ledCount;
+    }
+
+    /**
+     * Get the number of pixels of the group used by the device
+     * @return              pixel count of the device
+     */
+    public int getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * Check if pixel i drives led i for all leds
+     * @return              true if the mapping has no effect
+     */
+    public boolean isIdentity() {
+        return sources == null;
+    }
+
+    /**
+     * Get the source pixel of a led
+     * @param led           led index
+     * @return              pixel index relative to the first pixel of the device or -1 if the led is off
+     */
+    public int getSource(int led) {
+        return sources != null ? sources[led] : led;
+    }
+
+    /**
+     * Get the number of pixels a led shows the average of
+     * @param led           led index
+     * @return              number of pixels starting at the source pixel, 0 if the led is off
+     */
+    public int getSpan(int led) {
+        if(spans != null)
+            return spans[led];
+        return getSource(led) < 0 ? 0 : 1;
+    }
+
+    /**
+     * Check if any led shows the average of several pixels
+     * @return              true if the spans are needed
+     */
+    public boolean hasSpans() {
+        return spans != null;
+    }
+}
@@ -0,0 +1,120 @@
+package de.lars.openrgbplugin;
+
+import de.lars.openrgbwrapper.DeviceView;
+import de.lars.openrgbwrapper.models.MatrixMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps a two dimensional pixel grid onto the matrix zones of the devices of a group.
+ * <p>The pixels of the virtual output are used as a grid in row-major order. The matrix
+ * zones of all devices are placed side by side from left to right, so the grid is as
+ * wide as all matrices together and as high as the highest one. Cells of a matrix map
+ * without led ({@link MatrixMap#NO_LED}) are skipped. Zones without matrix map are
+ * driven by the pixels after the grid in their order, leds of a matrix zone that are
+ * not part of its map stay off.</p>
+ * <p>The layout is built once per topology into a flat index of the source pixel of
+ * each led, so a frame is a single gather pass over the leds.</p>
+ */
+public class MatrixLayout {
+
+    private final int width;
+    private final int height;
+    private final int pixelCount;
+    /** source pixel of each led of all devices, -1 if the led is off */
+    private final int[] sources;
+
+    private MatrixLayout(int width, int height, int pixelCount, int[] sources) {
+        this.width = width;
+        this.height = height;
+        this.pixelCount = pixelCount;
+        this.sources = sources;
+    }
+
+    /**
+     * Build the layout for the devices of a group
+     * @param devices       devices in the order of the group
+     * @return              matrix layout
+     */
+    public static MatrixLayout build(List<DeviceView> devices) {
+        // the grid is as wide as all matrices and as high as the highest one
+        int width = 0;
+        int height = 0;
+        int ledCount = 0;
+        for(DeviceView device : devices) {
+            for(int z = 0; z < device.getZoneCount(); z++) {
+                width += device.getMatrixWidth(z);
+                height = Math.max(height, device.getMatrixHeight(z));
+            }
+            ledCount += device.getLedCount();
+        }
+
+        int[] sources = new int[ledCount];
+        Arrays.fill(sources, -1);
+        int gridSize = width * height;
+        // pixels after the grid drive the leds of zones without matrix map
+        int linear = gridSize;
+        int column = 0;
+        int ledOffset = 0;
+        for(DeviceView device : devices) {
+            int zoneStart = 0;
+            for(int z = 0; z < device.getZoneCount(); z++) {
+                int zoneLeds = Math.max(0, Math.min(device.getZoneLedCount(z), device.getLedCount() - zoneStart));
+                int[] table = device.getMatrixLookupTable(z);
+                if(table != null) {
+                    int matrixWidth = device.getMatrixWidth(z);
+                    for(int cell = 0; cell < table.length; cell++) {
+                        int led = table[cell];
+                        if(led == MatrixMap.NO_LED || led < 0 || led >= zoneLeds)
+                            continue;
+                        int row = cell / matrixWidth;
+                        sources[ledOffset + zoneStart + led] = row * width + column + cell % matrixWidth;
+                    }
+                    column += matrixWidth;
+                } else {
+                    for(int led = 0; led < zoneLeds; led++)
+                        sources[ledOffset + zoneStart + led] = linear++;
+                }
+                zoneStart += zoneLeds;
+            }
+            // leds that are not part of any zone
+            for(int led = zoneStart; led < device.getLedCount(); led++)
+                sources[ledOffset + led] = linear++;
+            ledOffset += device.getLedCount();
+        }
+        return new MatrixLayout(width, height, linear, sources);
+    }
+
+    /**
+     * Get the number of columns of the pixel grid
+     * @return              grid width, 0 if the devices have no matrix zone
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the number of rows of the pixel grid
+     * @return              grid height, 0 if the devices have no matrix zone
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the number of pixels of the grid and the zones without matrix map
+     * @return              pixel count of the group
+     */
+    public int getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * Get the source pixel of each led. The array is shared and must not be modified.
+     * @return              pixel index for each led of all devices, -1 if the led is off
+     */
+    int[] sources() {
+        return sources;
+    }
+}
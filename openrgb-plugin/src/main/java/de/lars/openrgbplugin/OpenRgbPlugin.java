@@ -1,8 +1,9 @@
 package de.lars.openrgbplugin;
 
-import de.lars.openrgbplugin.utils.ClientConnectEvent;
+import de.lars.openrgbplugin.utils.DeviceRef;
 import de.lars.openrgbplugin.utils.StorageUtil;
 import de.lars.openrgbplugin.utils.ValueHolder;
+import de.lars.openrgbwrapper.BandwidthBudget;
 import de.lars.openrgbwrapper.OpenRGB;
 import de.lars.remotelightclient.ui.panels.tools.ToolsPanel;
 import de.lars.remotelightcore.devices.DeviceManager;
@@ -14,13 +15,15 @@ import de.lars.remotelightcore.settings.SettingsManager;
 import de.lars.remotelightcore.settings.types.SettingObject;
 import de.lars.remotelightplugins.Plugin;
 
-import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class OpenRgbPlugin extends Plugin {
+public class OpenRgbPlugin extends Plugin implements OutputHost {
 
     //-----------------------------------
     // SETTING KEYS
@@ -28,40 +31,53 @@ public class OpenRgbPlugin extends Plugin {
     public static final String PREFIX = "[OpenRGB] ";
     /** setting key prefix */
     public static final String SETTING_PRE = "openrgb.";
-    /** setting key ip */
+    /** setting key ip of the first server */
     public static final String SETTING_IP = SETTING_PRE + "openrgb_ip";
-    /** setting key port */
+    /** setting key port of the first server */
     public static final String SETTING_PORT = SETTING_PRE + "openrgb_port";
     /** setting auto connect */
     public static final String SETTING_AUTOCONNECT = SETTING_PRE + "auto_connect";
-    /** setting auto connect interval */
+    /** setting maximum auto connect interval */
     public static final String SETTING_AUTOCONNECT_INTERVAL = SETTING_AUTOCONNECT + "_interval";
+    /** setting number of connections per server */
+    public static final String SETTING_CONNECTIONS = SETTING_PRE + "connections";
+    /** setting maximum kilobytes per second sent to each server */
+    public static final String SETTING_MAX_KBPS = SETTING_PRE + "max_kbps";
+    /** setting maximum packets per second sent to each server */
+    public static final String SETTING_MAX_PACKET_RATE = SETTING_PRE + "max_packet_rate";
 
     //-----------------------------------
-    // HANDLERS, CLIENT & AUTO_CONNECT
+    // HANDLERS & SERVERS
     //-----------------------------------
     /** a set of output handlers for each device group */
     private Set<OutputHandler> setHandler;
-    /** OpenRGB client instance used to communicate with OpenRGB */
-    private OpenRGB openRGB;
-    /** auto connect timer */
-    private AutoConnect autoConnectTimer;
+    /** connections to the OpenRGB servers, the first server is always present */
+    private final List<OpenRgbServer> servers = new CopyOnWriteArrayList<>();
 
     //-----------------------------------
     // SETTINGS VALUES
     //-----------------------------------
-    /** OpenRGB server ip */
+    /** OpenRGB server ip of the first server */
     private String openRgbIP;
-    /** OpenRGB server port */
+    /** OpenRGB server port of the first server */
     private int openRgbPort;
     /** auto connect enable state */
     private boolean autoConnect;
-    /** auto connect interval in SECONDS */
+    /** maximum auto connect interval in SECONDS */
     private int autoConnectInterval;
+    /** number of connections used to send frames to each server */
+    private int connectionCount;
+    /** maximum kilobytes per second sent to each server, 0 if not limited */
+    private int maxKilobytesPerSecond;
+    /** maximum packets per second sent to each server, 0 if not limited */
+    private int maxPacketsPerSecond;
 
     //------------ INSTANCE ------------
     private static OpenRgbPlugin instance;
 
+    public OpenRgbPlugin() {
+    }
+
     public static OpenRgbPlugin getInstance() {
         return instance;
     }
@@ -72,20 +88,13 @@ public class OpenRgbPlugin extends Plugin {
         setHandler = new HashSet<>();
         // load settings
         loadSettings();
-        // initialize OpenRGB client
-        openRGB = new OpenRGB(openRgbIP, openRgbPort, "RemoteLight OpenRGB-Plugin");
-        // change default timeout to 3s
-        openRGB.getClient().setConnectionTimeout(3000);
+        // initialize OpenRGB clients, the first server uses the ip and port settings
+        initServer(openRgbIP, openRgbPort);
+        for(InetSocketAddress address : StorageUtil.loadServers(getInterface().getSettingsManager()))
+            initServer(address.getHostString(), address.getPort());
         // load output groups
         loadOutputGroups();
 
-        // initialize auto connect timer
-        autoConnectTimer = new AutoConnect(autoConnectInterval*1000, openRGB);
-        // start timer (if feature is enabled)
-        if(autoConnect) {
-            autoConnectTimer.start();
-        }
-
         // create entry panel
         OpenRgbEntryPanel entry = new OpenRgbEntryPanel();
         // register entry
@@ -97,6 +106,11 @@ public class OpenRgbPlugin extends Plugin {
     @Override
     public void onDisable() {
         storeSettings();
+        // remove MBeans, the plugin may be loaded again
+        for(OpenRgbServer server : servers)
+            server.getMonitor().unregister();
+        for(OutputHandler handler : setHandler)
+            handler.getMonitor().unregister();
     }
 
     @Override
@@ -115,7 +129,12 @@ public class OpenRgbPlugin extends Plugin {
         this.openRgbPort = (int) sm.addSetting(new SettingObject(SETTING_PORT, "OpenRGB Server Port", 6742), false).getValue();
         // load auto connect
         this.autoConnect = (boolean) sm.addSetting(new SettingObject(SETTING_AUTOCONNECT, "AutoConnect Feature", false), false).getValue();
-        this.autoConnectInterval = (int) sm.addSetting(new SettingObject(SETTING_AUTOCONNECT_INTERVAL, "AutoConnect interval", 30), false).getValue();
+        this.autoConnectInterval = (int) sm.addSetting(new SettingObject(SETTING_AUTOCONNECT_INTERVAL, "AutoConnect interval", 5), false).getValue();
+        // load connections per server
+        this.connectionCount = (int) sm.addSetting(new SettingObject(SETTING_CONNECTIONS, "Connections per server", 1), false).getValue();
+        // load bandwidth budget
+        this.maxKilobytesPerSecond = (int) sm.addSetting(new SettingObject(SETTING_MAX_KBPS, "Max. KB/s per server", 0), false).getValue();
+        this.maxPacketsPerSecond = (int) sm.addSetting(new SettingObject(SETTING_MAX_PACKET_RATE, "Max. packets/s per server", 0), false).getValue();
     }
 
     protected void loadOutputGroups() {
@@ -153,6 +172,16 @@ public class OpenRgbPlugin extends Plugin {
         // save auto connect
         sm.getSettingObject(SETTING_AUTOCONNECT).setValue(autoConnect);
         sm.getSettingObject(SETTING_AUTOCONNECT_INTERVAL).setValue(autoConnectInterval);
+        // save connections per server
+        sm.getSettingObject(SETTING_CONNECTIONS).setValue(connectionCount);
+        // save bandwidth budget
+        sm.getSettingObject(SETTING_MAX_KBPS).setValue(maxKilobytesPerSecond);
+        sm.getSettingObject(SETTING_MAX_PACKET_RATE).setValue(maxPacketsPerSecond);
+        // save additional servers
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for(int i = 1; i < servers.size(); i++)
+            addresses.add(InetSocketAddress.createUnresolved(servers.get(i).getHostname(), servers.get(i).getPort()));
+        StorageUtil.storeServers(sm, addresses);
 
         Set<ValueHolder> setValues = new HashSet<>();
 
@@ -161,7 +190,12 @@ public class OpenRgbPlugin extends Plugin {
             ValueHolder holder = new ValueHolder(
                     handler.getName(),
                     handler.getVirtualOutput().getId(),
-                    handler.getDevices());
+                    handler.getDevices(),
+                    handler.getMapping(),
+                    handler.isMatrixMode(),
+                    handler.getCalibration(),
+                    handler.getFrameRateLimits(),
+                    handler.getWeight());
             // add value holder to set
             setValues.add(holder);
         }
@@ -182,67 +216,123 @@ public class OpenRgbPlugin extends Plugin {
     public void setOpenRgbConnection(String openRgbIP, int openRgbPort) {
         this.openRgbIP = openRgbIP;
         this.openRgbPort = openRgbPort;
-        if(!openRGB.getClient().setConnectionOptions(openRgbIP, openRgbPort)) {
+        if(!servers.get(0).setConnection(openRgbIP, openRgbPort)) {
             getInterface().getNotificationManager().addNotification(
                     new Notification(NotificationType.ERROR, "OpenRGB Plugin", "Cannot set server IP and Port while client is connected. Deactivate client and try again."));
         }
     }
 
     /**
-     * Get the OpenRGB client
+     * Get the OpenRGB client of the first server
      * @return      OpenRGB client instance
      */
     public OpenRGB getOpenRGB() {
-        return openRGB;
+        return servers.get(0).getOpenRGB();
     }
 
     /**
-     * Try to connect to the OpenRGB SDK server. Will do nothing when already connected.
-     * @return      true if successfully connected,
-     *              false if connection failed
+     * Get all configured servers. The index of a server in the list is used
+     * by the {@link DeviceRef}s of the device groups.
+     * @return      unmodifiable list of the servers
      */
-    public boolean connectOpenRGB() {
-        if(openRGB.isConnected())
-            return true;
-        try {
-            OpenRgbPlugin.print(String.format("Connecting to OpenRGB server: %s:%d",
-                    openRGB.getClient().getHostname(),
-                    openRGB.getClient().getPort()));
-            return openRGB.connect();
-        } catch (IOException e) {
-            String ip = openRGB.getClient().getHostname();
-            int port = openRGB.getClient().getPort();
-            // print some error messages
-            OpenRgbPlugin.print(String.format("Error while connecting to OpenRGB server %s:%d. Error: %s", ip, port, e.getMessage()));
-            OpenRgbPlugin.getInstance().getInterface().getNotificationManager().addNotification(
-                    new Notification(NotificationType.ERROR, "OpenRGB Plugin",
-                            String.format("Could not connect to %s:%d. Please check OpenRGB plugin configuration and try again", ip, port)));
+    @Override
+    public List<OpenRgbServer> getServers() {
+        return Collections.unmodifiableList(servers);
+    }
+
+    /**
+     * Get a server by its index
+     * @param index     index of the server
+     * @return          the server or null if the index is invalid
+     */
+    @Override
+    public OpenRgbServer getServer(int index) {
+        if(index < 0 || index >= servers.size())
+            return null;
+        return servers.get(index);
+    }
+
+    /**
+     * Add a new OpenRGB server
+     * @param hostname  server hostname
+     * @param port      server port
+     * @return          the new server or null if the server already exists
+     */
+    public OpenRgbServer addServer(String hostname, int port) {
+        for(OpenRgbServer server : servers) {
+            if(compareConnectionInfo(server.getHostname(), server.getPort(), hostname, port))
+                return null;
+        }
+        return initServer(hostname, port);
+    }
+
+    /**
+     * Create a server connection, register its management interface and
+     * start the auto connect timer if the feature is enabled
+     */
+    private OpenRgbServer initServer(String hostname, int port) {
+        OpenRgbServer server = new OpenRgbServer(hostname, port, autoConnectInterval * 1000);
+        server.setConnectionCount(connectionCount);
+        server.getOpenRGB().setBandwidthBudget(createBandwidthBudget());
+        // expose connection statistics through JMX
+        server.getMonitor().register(server.toString());
+        servers.add(server);
+        if(autoConnect)
+            server.getAutoConnect().start();
+        return server;
+    }
+
+    /**
+     * Remove a server and all devices of the server from the device groups.
+     * The first server cannot be removed.
+     * @param index     index of the server
+     * @return          true if the server was removed
+     */
+    public boolean removeServer(int index) {
+        if(index <= 0 || index >= servers.size())
             return false;
-        } finally {
-            // call connect event
-            getInterface().getEventHandler().call(new ClientConnectEvent(ClientConnectEvent.Type.CONNECT));
+        OpenRgbServer server = servers.remove(index);
+        server.dispose();
+        // remove references to the server and shift the indices of the following servers
+        for(OutputHandler handler : setHandler) {
+            List<DeviceRef> devices = new ArrayList<>();
+            for(DeviceRef device : handler.getDevices()) {
+                if(device.getServer() < index)
+                    devices.add(device);
+                else if(device.getServer() > index)
+                    devices.add(new DeviceRef(device.getServer() - 1, device.getDevice()));
+            }
+            handler.setDevices(devices);
         }
+        return true;
+    }
+
+    /**
+     * Try to connect to all OpenRGB SDK servers. Will do nothing for servers
+     * that are already connected.
+     * @return      true if all servers are connected,
+     *              false if a connection failed
+     */
+    public boolean connectOpenRGB() {
+        boolean connected = true;
+        for(OpenRgbServer server : servers)
+            connected &= server.connect();
+        return connected;
     }
 
     /**
-     * Disconnect OpenRGB client and set {@code enabled} to false.
+     * Disconnect all OpenRGB clients.
      */
     public void disconnectOpenRGB() {
-        try {
-            openRGB.disconnect();
-        } catch (IOException e) {
-            OpenRgbPlugin.print("Error while disconnecting OpenRGB client: " + e.getMessage());
-        } finally {
-            // call disconnect event
-            getInterface().getEventHandler().call(new ClientConnectEvent(ClientConnectEvent.Type.DISCONNECT));
-        }
+        for(OpenRgbServer server : servers)
+            server.disconnect();
     }
 
     /**
-     * Disconnect and re-connect OpenRGB client.
+     * Disconnect and re-connect all OpenRGB clients.
      */
     public void reconnectOpenRGB() {
-        OpenRgbPlugin.print("Reconnecting OpenRGB client...");
+        OpenRgbPlugin.print("Reconnecting OpenRGB clients...");
         disconnectOpenRGB();
         connectOpenRGB();
     }
@@ -269,6 +359,7 @@ public class OpenRgbPlugin extends Plugin {
      */
     public void removeHandler(OutputHandler handler) {
         handler.detachFromOutput();
+        handler.getMonitor().unregister();
         setHandler.remove(handler);
     }
 
@@ -280,10 +371,17 @@ public class OpenRgbPlugin extends Plugin {
      */
     public OutputHandler createHandler(ValueHolder holder, VirtualOutput output) {
         // create output handler
-        OutputHandler handler = new OutputHandler(output, holder.getDevices());
+        OutputHandler handler = new OutputHandler(this, output, holder.getDevices());
         handler.setName(holder.getName());
+        handler.setMapping(holder.getMapping());
+        handler.setMatrixMode(holder.isMatrix());
+        handler.setCalibration(holder.getCalibration());
+        handler.setFrameRateLimits(holder.getFrameRateLimits());
+        handler.setWeight(holder.getWeight());
         // attach handler to output
         handler.attachToOutput();
+        // expose handler statistics through JMX
+        handler.getMonitor().register();
         return handler;
     }
 
@@ -342,41 +440,116 @@ public class OpenRgbPlugin extends Plugin {
      * Enable or disable auto connect feature and start/stop timer.
      * @param enable        whether auto connect should enabled or disabled
      */
+    @Override
     public void setAutoConnectEnabled(boolean enable) {
         autoConnect = enable;
-        // stop/start timer (has no effect if already started/stopped)
-        if(!enable)
-            autoConnectTimer.stop();
-        else
-            autoConnectTimer.start();
+        // stop/start timers (has no effect if already started/stopped)
+        for(OpenRgbServer server : servers) {
+            if(!enable)
+                server.getAutoConnect().stop();
+            else
+                server.getAutoConnect().start();
+        }
     }
 
     /**
      * Check if auto connect feature is enabled or disabled
      * @return              true if enabled, false otherwise
      */
+    @Override
     public boolean isAutoConnectEnabled() {
         return autoConnect;
     }
 
+    @Override
+    public void addNotification(Notification notification) {
+        getInterface().getNotificationManager().addNotification(notification);
+    }
+
     /**
-     * Set auto connect timer interval in SECONDS
+     * Set the maximum delay between two auto connect attempts in SECONDS.
+     * The first attempt is made immediately, the delay grows up to this interval.
      * @param autoConnectInterval   interval in seconds
      */
     public void setAutoConnectInterval(int autoConnectInterval) {
         this.autoConnectInterval = autoConnectInterval;
         // connect interval to milliseconds first
-        autoConnectTimer.setInterval(autoConnectInterval * 1000);
+        for(OpenRgbServer server : servers)
+            server.getAutoConnect().setInterval(autoConnectInterval * 1000);
     }
 
     /**
-     * Get current auto connect interval in seconds
+     * Get the maximum auto connect interval in seconds
      * @return              interval in seconds
      */
     public int getAutoConnectInterval() {
         return autoConnectInterval;
     }
 
+    /**
+     * Set the number of connections used to send frames to each server.
+     * Can only be changed while all clients are disconnected.
+     * @param connectionCount       number of connections (at least 1)
+     */
+    public void setConnectionCount(int connectionCount) {
+        if(connectionCount < 1) return;
+        for(OpenRgbServer server : servers) {
+            if(server.isConnected()) {
+                getInterface().getNotificationManager().addNotification(
+                        new Notification(NotificationType.ERROR, "OpenRGB Plugin", "Cannot change the number of connections while a client is connected. Deactivate all clients and try again."));
+                return;
+            }
+        }
+        this.connectionCount = connectionCount;
+        for(OpenRgbServer server : servers)
+            server.setConnectionCount(connectionCount);
+    }
+
+    /**
+     * Get the number of connections used to send frames to each server
+     * @return              number of connections
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Set the bandwidth budget of each server. While a budget is exhausted, the device
+     * groups share it by their weight.
+     * @param maxKilobytesPerSecond     maximum kilobytes per second, 0 for no limit
+     * @param maxPacketsPerSecond       maximum packets per second, 0 for no limit
+     */
+    public void setBandwidthBudget(int maxKilobytesPerSecond, int maxPacketsPerSecond) {
+        if(maxKilobytesPerSecond < 0 || maxPacketsPerSecond < 0) return;
+        this.maxKilobytesPerSecond = maxKilobytesPerSecond;
+        this.maxPacketsPerSecond = maxPacketsPerSecond;
+        // every server gets its own budget
+        for(OpenRgbServer server : servers)
+            server.getOpenRGB().setBandwidthBudget(createBandwidthBudget());
+    }
+
+    /**
+     * Get the maximum kilobytes per second sent to each server
+     * @return              kilobytes per second, 0 if not limited
+     */
+    public int getMaxKilobytesPerSecond() {
+        return maxKilobytesPerSecond;
+    }
+
+    /**
+     * Get the maximum packets per second sent to each server
+     * @return              packets per second, 0 if not limited
+     */
+    public int getMaxPacketsPerSecond() {
+        return maxPacketsPerSecond;
+    }
+
+    private BandwidthBudget createBandwidthBudget() {
+        if(maxKilobytesPerSecond == 0 && maxPacketsPerSecond == 0)
+            return null;
+        return new BandwidthBudget(maxKilobytesPerSecond * 1024L, maxPacketsPerSecond);
+    }
+
     /**
      * Compare ip address and port
      * @param ip1           ip #1
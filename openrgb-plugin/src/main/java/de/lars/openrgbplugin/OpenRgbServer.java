@@ -0,0 +1,176 @@
+package de.lars.openrgbplugin;
+
+import de.lars.openrgbplugin.utils.ClientConnectEvent;
+import de.lars.openrgbwrapper.AssignmentPolicy;
+import de.lars.openrgbwrapper.ConnectionPool;
+import de.lars.openrgbwrapper.OpenRGB;
+import de.lars.openrgbwrapper.management.OpenRGBMonitor;
+import de.lars.openrgbwrapper.network.ChannelClient;
+import de.lars.remotelightcore.notification.Notification;
+import de.lars.remotelightcore.notification.NotificationType;
+
+import java.io.IOException;
+
+/**
+ * Connection to one OpenRGB SDK server. Every server has its own client, frame sender
+ * thread and auto connect timer, so a slow or unreachable server does not delay the
+ * frames of the other servers.
+ */
+public class OpenRgbServer {
+
+    /** OpenRGB client instance used to communicate with the server */
+    private final OpenRGB openRGB;
+    /** management interface of the connection */
+    private final OpenRGBMonitor monitor;
+    /** auto connect timer */
+    private final AutoConnect autoConnect;
+
+    /**
+     * Create a new server connection
+     * @param hostname              server hostname
+     * @param port                  server port
+     * @param autoConnectInterval   maximum auto connect interval in milliseconds
+     */
+    public OpenRgbServer(String hostname, int port, int autoConnectInterval) {
+        this(new OpenRGB(new ChannelClient(hostname, port), "RemoteLight OpenRGB-Plugin"), autoConnectInterval);
+        // change default timeout to 3s
+        openRGB.getClient().setConnectionTimeout(3000);
+    }
+
+    /**
+     * Create a server connection that uses an existing client
+     * @param openRGB               OpenRGB client instance
+     * @param autoConnectInterval   maximum auto connect interval in milliseconds
+     */
+    public OpenRgbServer(OpenRGB openRGB, int autoConnectInterval) {
+        this.openRGB = openRGB;
+        this.monitor = new OpenRGBMonitor(openRGB);
+        this.autoConnect = new AutoConnect(autoConnectInterval, openRGB);
+        // start reconnecting as soon as the connection is lost
+        openRGB.addConnectionLostListener(() -> {
+            OpenRgbPlugin plugin = OpenRgbPlugin.getInstance();
+            if(plugin != null && plugin.isAutoConnectEnabled())
+                autoConnect.start();
+        });
+    }
+
+    /**
+     * Get the OpenRGB client
+     * @return      OpenRGB client instance
+     */
+    public OpenRGB getOpenRGB() {
+        return openRGB;
+    }
+
+    public String getHostname() {
+        return openRGB.getClient().getHostname();
+    }
+
+    public int getPort() {
+        return openRGB.getClient().getPort();
+    }
+
+    public boolean isConnected() {
+        return openRGB.isConnected();
+    }
+
+    public AutoConnect getAutoConnect() {
+        return autoConnect;
+    }
+
+    public OpenRGBMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Set the server address
+     * @param hostname  server hostname
+     * @param port      server port
+     * @return          false if the client is connected and the address could not be changed
+     */
+    public boolean setConnection(String hostname, int port) {
+        return openRGB.getClient().setConnectionOptions(hostname, port);
+    }
+
+    /**
+     * Set the number of connections used to send frames to the server. Peripherals
+     * like keyboards get a connection of their own and the other devices are distributed
+     * over the remaining connections, so slow devices do not delay the others.
+     * @param count     number of connections, 1 to use a single connection
+     * @return          false if the client is connected and the count could not be changed
+     */
+    public boolean setConnectionCount(int count) {
+        if(count == getConnectionCount())
+            return true;
+        ConnectionPool pool = null;
+        if(count > 1) {
+            pool = new ConnectionPool(openRGB, count, () -> new ChannelClient(getHostname(), getPort()));
+            pool.setPolicy(AssignmentPolicy.ISOLATE_PERIPHERALS);
+        }
+        return openRGB.setConnectionPool(pool);
+    }
+
+    /**
+     * Get the number of connections used to send frames to the server
+     * @return          number of connections
+     */
+    public int getConnectionCount() {
+        ConnectionPool pool = openRGB.getConnectionPool();
+        return pool != null ? pool.getSize() : 1;
+    }
+
+    /**
+     * Try to connect to the OpenRGB SDK server. Will do nothing when already connected.
+     * @return      true if successfully connected,
+     *              false if connection failed
+     */
+    public boolean connect() {
+        if(openRGB.isConnected())
+            return true;
+        try {
+            OpenRgbPlugin.print(String.format("Connecting to OpenRGB server: %s:%d", getHostname(), getPort()));
+            return openRGB.connect();
+        } catch (IOException e) {
+            String ip = getHostname();
+            int port = getPort();
+            // print some error messages
+            OpenRgbPlugin.print(String.format("Error while connecting to OpenRGB server %s:%d. Error: %s", ip, port, e.getMessage()));
+            OpenRgbPlugin.getInstance().getInterface().getNotificationManager().addNotification(
+                    new Notification(NotificationType.ERROR, "OpenRGB Plugin",
+                            String.format("Could not connect to %s:%d. Please check OpenRGB plugin configuration and try again", ip, port)));
+            return false;
+        } finally {
+            // call connect event
+            OpenRgbPlugin.getInstance().getInterface().getEventHandler().call(new ClientConnectEvent(ClientConnectEvent.Type.CONNECT));
+        }
+    }
+
+    /**
+     * Disconnect the OpenRGB client
+     */
+    public void disconnect() {
+        try {
+            openRGB.disconnect();
+        } catch (IOException e) {
+            OpenRgbPlugin.print("Error while disconnecting OpenRGB client: " + e.getMessage());
+        } finally {
+            // call disconnect event
+            OpenRgbPlugin.getInstance().getInterface().getEventHandler().call(new ClientConnectEvent(ClientConnectEvent.Type.DISCONNECT));
+        }
+    }
+
+    /**
+     * Stop the auto connect timer, disconnect and unregister the management interface
+     */
+    public void dispose() {
+        autoConnect.shutdown();
+        if(openRGB.isConnected())
+            disconnect();
+        monitor.unregister();
+    }
+
+    @Override
+    public String toString() {
+        return getHostname() + ":" + getPort();
+    }
+}
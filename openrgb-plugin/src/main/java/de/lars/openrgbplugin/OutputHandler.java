@@ -1,7 +1,15 @@
 package de.lars.openrgbplugin;
 
-import de.lars.openrgbwrapper.Device;
-import de.lars.openrgbwrapper.models.Color;
+import de.lars.openrgbplugin.management.OutputHandlerMonitor;
+import de.lars.openrgbplugin.utils.DeviceCalibration;
+import de.lars.openrgbplugin.utils.DeviceRef;
+import de.lars.openrgbplugin.utils.FrameRateLimit;
+import de.lars.openrgbplugin.utils.MappingRule;
+import de.lars.openrgbwrapper.BandwidthBudget;
+import de.lars.openrgbwrapper.DeviceTopology;
+import de.lars.openrgbwrapper.DeviceView;
+import de.lars.openrgbwrapper.FrameSender;
+import de.lars.openrgbwrapper.utils.ColorCalibration;
 import de.lars.remotelightcore.devices.ConnectionState;
 import de.lars.remotelightcore.devices.virtual.PixelStreamReceiver;
 import de.lars.remotelightcore.devices.virtual.VirtualOutput;
@@ -11,31 +19,68 @@ import de.lars.remotelightcore.notification.NotificationType;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver {
 
-    private final OpenRgbPlugin plugin;
+    private final OutputHost host;
     private String name;
     private VirtualOutput virtualOutput;
-    private List<Integer> devices;
-    private final List<Device> cachedDeviceControllers;
+    private List<DeviceRef> devices;
+    private final List<DeviceView> cachedDeviceControllers;
+    /** server of each cached device */
+    private final List<OpenRgbServer> cachedDeviceServers;
+    /** compiled led mapping of each cached device */
+    private final List<LedMapping> cachedMappings;
+    /** calibration of each cached device, null if the colors are sent unchanged */
+    private final List<ColorCalibration> cachedCalibrations;
+    /** maximum frame rate of each cached device, 0 if not limited */
+    private final List<Integer> cachedMaxFps;
+    /** rules that map the pixels onto the leds of the devices */
+    private List<MappingRule> mapping = new ArrayList<>();
+    /** map the pixels as grid onto the matrix zones instead of using the mapping rules */
+    private boolean matrixMode = false;
+    /** gamma, white balance and brightness of the devices */
+    private List<DeviceCalibration> calibration = new ArrayList<>();
+    /** maximum frame rates of the devices, other devices use the default of their type */
+    private List<FrameRateLimit> frameRateLimits = new ArrayList<>();
+    /** flow all devices of the group are scheduled in, its weight is the share of the
+     * bandwidth budget of the servers relative to other groups */
+    private final BandwidthBudget.Flow flow = new BandwidthBudget.Flow();
+    /** matrix layout of the cached devices, null if matrix mode is disabled */
+    private MatrixLayout cachedMatrix;
     /** enable or disable pixel output */
     private boolean enabled = false;
     /** true if client lost connection and awaiting to reconnect */
     private boolean awaitingReconnect = false;
+    /** servers the cached devices were taken from */
+    private List<OpenRgbServer> cachedServers = Collections.emptyList();
+    /** topology of each cached server, used to detect topology changes */
+    private DeviceTopology[] cachedTopologies = new DeviceTopology[0];
+    /** compiled plan for the current topology, null if it must be rebuilt */
+    private volatile FramePlan framePlan;
+    /** output statistics, exposed through the management interface */
+    private final OutputStats stats = new OutputStats();
+    /** management interface of this handler */
+    private final OutputHandlerMonitor monitor = new OutputHandlerMonitor(this);
 
     /**
      * Create a new OutputHandler that forwards received data from a virtual output to
-     * the OpenRGB SDK server.
+     * the OpenRGB SDK servers.
+     * @param host          plugin providing the servers and notifications
      * @param output        virtual output to listen to
      * @param devices       list of OpenRGB devices that should be controlled
      */
-    public OutputHandler(VirtualOutput output, List<Integer> devices) {
-        this.plugin = OpenRgbPlugin.getInstance();
+    public OutputHandler(OutputHost host, VirtualOutput output, List<DeviceRef> devices) {
+        this.host = host;
         this.virtualOutput = output;
         this.devices = devices;
         cachedDeviceControllers = new ArrayList<>();
+        cachedDeviceServers = new ArrayList<>();
+        cachedMappings = new ArrayList<>();
+        cachedCalibrations = new ArrayList<>();
+        cachedMaxFps = new ArrayList<>();
     }
 
     /**
@@ -60,60 +105,125 @@ public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver
     }
 
     /**
-     * Get the amount of OpenRGB devices/controllers
-     * @return      the number of devices
+     * Get the amount of OpenRGB devices/controllers of a server
+     * @param server    index of the server
+     * @return          the number of devices or 0 if the server does not exist
      */
-    public int getOpenRGBDeviceCount() {
-        return plugin.getOpenRGB().getControllerCount();
+    public int getOpenRGBDeviceCount(int server) {
+        OpenRgbServer openRgbServer = host.getServer(server);
+        if(openRgbServer == null)
+            return 0;
+        DeviceTopology topology = openRgbServer.getOpenRGB().getTopologyCache().get();
+        return topology != null ? topology.getDeviceCount() : openRgbServer.getOpenRGB().getControllerCount();
     }
 
     /**
-     * Updates local cached OpenRGB devices/controller data (only if client is connected)
+     * Get the servers of the devices in this group
+     * @return      servers in the order of their first device, invalid server indices are ignored
+     */
+    private List<OpenRgbServer> getGroupServers() {
+        List<OpenRgbServer> servers = new ArrayList<>();
+        for(DeviceRef device : devices) {
+            OpenRgbServer server = host.getServer(device.getServer());
+            if(server != null && !servers.contains(server))
+                servers.add(server);
+        }
+        return servers;
+    }
+
+    /**
+     * Updates local cached OpenRGB devices/controller data from the shared topologies
+     * of the connections (only if at least one client is connected)
      */
     public void updateOpenRgbDevices() {
-        if(plugin.getOpenRGB().getClient().isConnected()) {
-            // get controller count
-            int controllerCount = getOpenRGBDeviceCount();
-            if(controllerCount == -1)
-                return; // error while reading from server
-            // clear cached list
-            cachedDeviceControllers.clear();
-            // loop through all device ids
-            for (int deviceId : devices) {
-                // check if device is valid
-                if (deviceId < controllerCount) {
-                    // add to cache list
-                    cachedDeviceControllers.add(plugin.getOpenRGB().getControllerData(deviceId));
-                } else if(!enabled) { // prevent spamming the error message; show only on activation
-                    // print error message and ignore device id
-                    OpenRgbPlugin.print(String.format("(%s) Found invalid device ID: %d There are only %d OpenRGB devices (max device ID: %d). Removing device from list.",
-                            getName(), deviceId, controllerCount, controllerCount - 1));
-                    OpenRgbPlugin.getInstance().getInterface().getNotificationManager().addNotification(
-                            new Notification(NotificationType.WARN, "OpenRGB Plugin (" + getName() + ")",
-                                    String.format("Invalid device ID: %d. Max device ID is %d. Ignoring device.", deviceId, controllerCount - 1)));
-                }
+        List<OpenRgbServer> servers = getGroupServers();
+        DeviceTopology[] topologies = new DeviceTopology[servers.size()];
+        boolean connected = false;
+        for(int i = 0; i < topologies.length; i++) {
+            if(servers.get(i).isConnected()) {
+                // get shared topology, waits only if it was not loaded yet
+                topologies[i] = servers.get(i).getOpenRGB().getTopologyCache().await();
+                if(topologies[i] == null)
+                    return; // error while reading from server
+                connected = true;
             }
         }
+        if(connected)
+            applyTopologies(servers, topologies);
+    }
+
+    /**
+     * Replace the cached devices with the devices of the topologies
+     * @param servers       servers used by the group
+     * @param topologies    topology of each server, null if the devices of the server are unknown
+     */
+    private void applyTopologies(List<OpenRgbServer> servers, DeviceTopology[] topologies) {
+        // clear cached lists
+        cachedDeviceControllers.clear();
+        cachedDeviceServers.clear();
+        cachedMappings.clear();
+        cachedCalibrations.clear();
+        cachedMaxFps.clear();
+        // loop through all devices
+        for (DeviceRef device : devices) {
+            OpenRgbServer server = host.getServer(device.getServer());
+            int index = servers.indexOf(server);
+            if(index == -1) {
+                if(!enabled) // prevent spamming the error message; show only on activation
+                    OpenRgbPlugin.print(String.format("(%s) Found invalid server index %d for %s. There are only %d servers.",
+                            getName(), device.getServer(), device, host.getServers().size()));
+                continue;
+            }
+            DeviceTopology topology = topologies[index];
+            if(topology == null)
+                continue; // devices of a server that was never connected are unknown
+            int controllerCount = topology.getDeviceCount();
+            // check if device is valid
+            if (device.getDevice() < controllerCount) {
+                // add to cache lists
+                DeviceView view = topology.getDevice(device.getDevice());
+                cachedDeviceControllers.add(view);
+                cachedDeviceServers.add(server);
+                cachedMappings.add(LedMapping.compile(mapping, device, view.getLedCount()));
+                cachedCalibrations.add(getCalibration(device));
+                cachedMaxFps.add(getMaxFps(device, view));
+            } else if(!enabled) { // prevent spamming the error message; show only on activation
+                // print error message and ignore device id
+                OpenRgbPlugin.print(String.format("(%s) Found invalid device ID: %d There are only %d OpenRGB devices on %s (max device ID: %d). Removing device from list.",
+                        getName(), device.getDevice(), controllerCount, server, controllerCount - 1));
+                host.addNotification(
+                        new Notification(NotificationType.WARN, "OpenRGB Plugin (" + getName() + ")",
+                                String.format("Invalid device ID: %d. Max device ID on %s is %d. Ignoring device.", device.getDevice(), server, controllerCount - 1)));
+            }
+        }
+        cachedMatrix = matrixMode ? MatrixLayout.build(cachedDeviceControllers) : null;
+        cachedServers = servers;
+        cachedTopologies = topologies;
+        framePlan = null;
     }
 
     /**
      * Get the OpenRGB devices/controller data
      * @return      list of devices or empty list if client is not connected
      */
-    public List<Device> getOpenRgbDevices() {
+    public List<DeviceView> getOpenRgbDevices() {
         if(cachedDeviceControllers.isEmpty())
             updateOpenRgbDevices();
         return cachedDeviceControllers;
     }
 
     /**
-     * Get the total pixel number of all devices in the list
+     * Get the total pixel number of all devices in the list after applying the mapping rules
+     * or the matrix layout
      * @return      total amount of pixels
      */
     public int getTotalPixelNumber() {
+        MatrixLayout matrix = cachedMatrix;
+        if(matrix != null)
+            return matrix.getPixelCount();
         int sum = 0;
-        for(Device device : cachedDeviceControllers)
-            sum += device.leds.length;
+        for(LedMapping mapping : cachedMappings)
+            sum += mapping.getPixelCount();
         return sum;
     }
 
@@ -127,7 +237,8 @@ public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver
         int pix = getTotalPixelNumber();
         if(virtualOutput.getPixels() != pix) {
             virtualOutput.setPixels(pix);
-            OpenRgbPlugin.print("Updated pixel number for '" + virtualOutput.getId() + "'. New pixel number: " + pix);
+            OpenRgbPlugin.print("Updated pixel number for '" + virtualOutput.getId() + "'. New pixel number: " + pix
+                    + (cachedMatrix != null ? String.format(" (%dx%d matrix)", cachedMatrix.getWidth(), cachedMatrix.getHeight()) : ""));
         }
     }
 
@@ -141,73 +252,123 @@ public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver
 
     @Override
     public void receivedPixelData(de.lars.remotelightcore.utils.color.Color[] colors) {
+        FramePlan plan = framePlan;
+        // the plan checks the topologies, which also covers the connection states
+        if(plan == null || !plan.isValid(colors.length)) {
+            plan = updateFramePlan(colors.length);
+            if(plan == null) {
+                // skip this received data
+                stats.recordSkipped();
+                return;
+            }
+        }
+        // pack colors and hand data for each device to the sender thread of its server
+        long start = System.nanoTime();
+        plan.submit(colors);
+        stats.recordSubmit(System.nanoTime() - start);
+    }
+
+    /**
+     * Check connections, devices and pixel number and compile a new frame plan.
+     * Only called if a topology or the pixel number changed.
+     * @param pixels        pixel number of the received data
+     * @return              new frame plan or null if no data should be sent
+     */
+    private FramePlan updateFramePlan(int pixels) {
+        framePlan = null;
+        List<OpenRgbServer> servers = getGroupServers();
+        boolean anyConnected = false;
+        for(OpenRgbServer server : servers)
+            anyConnected |= server.isConnected();
         // check if client was reconnected
-        if(awaitingReconnect && plugin.getOpenRGB().isConnected()) {
+        if(awaitingReconnect && anyConnected) {
             enabled = true;
             awaitingReconnect = false;
+            stats.recordReconnect();
         }
         // check if output is enabled
-        if(!enabled) return;
-        // check if client is still connected
-        if(!plugin.getOpenRGB().isConnected()) {
-            OpenRgbPlugin.getInstance().getInterface().getNotificationManager().addNotification(
+        if(!enabled) return null;
+        // check if any client is still connected
+        if(!anyConnected) {
+            host.addNotification(
                 new Notification(NotificationType.ERROR, "OpenRGB Plugin (" + name + ")", "Lost connection to OpenRGB SDK server."));
             enabled = false;
             awaitingReconnect = true;
 
             // trigger auto connect timer
-            if(plugin.isAutoConnectEnabled()) {
-                plugin.setAutoConnectEnabled(true);
+            if(host.isAutoConnectEnabled()) {
+                host.setAutoConnectEnabled(true);
             }
-            return;
+            return null;
+        }
+        // get current topologies, disconnected servers keep their last known devices
+        DeviceTopology[] topologies = new DeviceTopology[servers.size()];
+        DeviceTopology[] layout = new DeviceTopology[servers.size()];
+        for(int i = 0; i < topologies.length; i++) {
+            OpenRgbServer server = servers.get(i);
+            if(server.isConnected()) {
+                topologies[i] = server.getOpenRGB().getTopologyCache().await();
+                if(topologies[i] == null)
+                    return null; // error while reading from server
+                layout[i] = topologies[i];
+            } else {
+                int cached = cachedServers.indexOf(server);
+                layout[i] = cached != -1 ? cachedTopologies[cached] : null;
+                // frames of this server are discarded until it is connected again
+                if(host.isAutoConnectEnabled())
+                    server.getAutoConnect().start();
+            }
+        }
+        // check if the shared topologies changed
+        if(!servers.equals(cachedServers) || !Arrays.equals(layout, cachedTopologies)) {
+            applyTopologies(servers, layout);
+            updateOutputPixel();
         }
         // check if there are still output devices
-        if(getOpenRgbDevices().isEmpty()) {
-            OpenRgbPlugin.getInstance().getInterface().getNotificationManager().addNotification(
+        if(cachedDeviceControllers.isEmpty()) {
+            host.addNotification(
                     new Notification(NotificationType.ERROR, "OpenRGB Plugin (" + name + ")", "Device group is empty. Please check plugin configuration and re-enable the output."));
             enabled = false;
-            return;
+            return null;
         }
         // check if pixel array length is valid
-        if(getTotalPixelNumber() != colors.length) {
+        if(getTotalPixelNumber() != pixels) {
             // virtual output pixel is not equal to OpenRGB led count
-            // update cached controller data
-            updateOpenRgbDevices();
             // update virtual output pixel number
             updateOutputPixel();
-            return; // skip this received data
+            return null;
         }
-        // send data for each device to OpenRGB
-        int index = 0;
-        for(Device device : getOpenRgbDevices()) {
-            // split led data in to peaces for each device
-            Color[] subArr = Arrays.copyOfRange(convertColors(colors), index, index + device.leds.length);
-            // increment index
-            index += device.leds.length;
-            plugin.getOpenRGB().updateLeds(device.deviceId, subArr);
+        MatrixLayout matrix = cachedMatrix;
+        FramePlan plan;
+        if(matrix != null)
+            plan = FramePlan.compile(servers, topologies, cachedDeviceControllers, cachedDeviceServers, matrix, cachedCalibrations);
+        else
+            plan = FramePlan.compile(servers, topologies, cachedDeviceControllers, cachedDeviceServers, cachedMappings, cachedCalibrations);
+        // the senders decimate the frames of devices above their maximum frame rate
+        // and schedule all devices of the group as one flow
+        for(int i = 0; i < plan.getDeviceCount(); i++) {
+            plan.getSender(i).setMaxFps(plan.getDevice(i).getDeviceId(), cachedMaxFps.get(i));
+            plan.getSender(i).setFlow(plan.getDevice(i).getDeviceId(), flow);
         }
-    }
-
-    /**
-     * Convert {@link de.lars.remotelightcore.utils.color.Color} Array to {@link de.lars.openrgbwrapper.models.Color} Array.
-     * @param awtColors     AWT Color array
-     * @return              OpenRGB color model
-     */
-    protected Color[] convertColors(de.lars.remotelightcore.utils.color.Color[] awtColors) {
-        return Arrays.stream(awtColors).map(c -> new Color(c.getRed(), c.getGreen(), c.getBlue())).toArray(Color[]::new);
+        framePlan = plan;
+        stats.recordPlanCompile();
+        return framePlan;
     }
 
     @Override
     public void onActivate(VirtualOutput virtualOutput) {
-        // connect orgb client
-        if(!plugin.connectOpenRGB()) {
+        // connect orgb clients of the group
+        boolean anyConnected = false;
+        for(OpenRgbServer server : getGroupServers())
+            anyConnected |= server.connect();
+        if(!anyConnected) {
             awaitingReconnect = true;
             return;
         }
         // check for valid device id and update cached devices
         updateOpenRgbDevices();
         if(cachedDeviceControllers.isEmpty()) {
-            OpenRgbPlugin.getInstance().getInterface().getNotificationManager().addNotification(
+            host.addNotification(
                     new Notification(NotificationType.ERROR, "OpenRGB Plugin (" + name + ")",
                             "Empty device group. Please check OpenRGB plugin configuration and re-activate the output."));
             // disable pixel output
@@ -221,6 +382,7 @@ public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver
     @Override
     public void onDeactivate(VirtualOutput virtualOutput) {
         enabled = false;
+        framePlan = null;
     }
 
     public String getName() {
@@ -240,15 +402,15 @@ public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver
         attachToOutput();
     }
 
-    public List<Integer> getDevices() {
+    public List<DeviceRef> getDevices() {
         return devices;
     }
 
     /**
-     * Set the list of device ids and update cached devices and pixel number
-     * @param devices       new list of device ids
+     * Set the list of devices and update cached devices and pixel number
+     * @param devices       new list of devices
      */
-    public void setDevices(List<Integer> devices) {
+    public void setDevices(List<DeviceRef> devices) {
         if(this.devices == devices)
             return;
         this.devices = devices;
@@ -257,19 +419,179 @@ public class OutputHandler implements VirtualOutputListener, PixelStreamReceiver
     }
 
     /**
-     * Add a single device id and update cached devices and pixel number
+     * Add a single device of the first server and update cached devices and pixel number
      * @param deviceId      device id to add
      */
     public void addDeviceId(int deviceId) {
-        if(this.devices.contains(deviceId))
+        addDevice(DeviceRef.of(deviceId));
+    }
+
+    /**
+     * Add a single device and update cached devices and pixel number
+     * @param device        device to add
+     */
+    public void addDevice(DeviceRef device) {
+        if(this.devices.contains(device))
             return;
-        this.devices.add(deviceId);
+        this.devices.add(device);
         updateOpenRgbDevices();
         updateOutputPixel();
     }
 
+    public List<MappingRule> getMapping() {
+        return mapping;
+    }
+
+    /**
+     * Set the rules that map the pixels onto the leds of the devices and update
+     * cached devices and pixel number
+     * @param mapping       new list of rules, empty to use the pixels in device order
+     */
+    public void setMapping(List<MappingRule> mapping) {
+        if(this.mapping == mapping)
+            return;
+        this.mapping = mapping != null ? mapping : new ArrayList<>();
+        if(cachedDeviceControllers.isEmpty())
+            return; // compiled when the devices are loaded
+        // compile the mappings for the cached devices, no need to wait for the servers
+        applyTopologies(cachedServers, cachedTopologies);
+        updateOutputPixel();
+    }
+
+    public List<DeviceCalibration> getCalibration() {
+        return calibration;
+    }
+
+    /**
+     * Set the gamma, white balance and brightness of the devices. The pixel number is not
+     * affected, the frame plan is rebuilt with the new lookup tables.
+     * @param calibration   calibration of each device, devices without entry are sent unchanged
+     */
+    public void setCalibration(List<DeviceCalibration> calibration) {
+        if(this.calibration == calibration)
+            return;
+        this.calibration = calibration != null ? calibration : new ArrayList<>();
+        if(cachedDeviceControllers.isEmpty())
+            return; // compiled when the devices are loaded
+        applyTopologies(cachedServers, cachedTopologies);
+    }
+
+    /**
+     * Get the lookup tables of a device
+     * @param device        device reference
+     * @return              tables of the last calibration of the device, null if the colors are sent unchanged
+     */
+    private ColorCalibration getCalibration(DeviceRef device) {
+        ColorCalibration tables = null;
+        for(DeviceCalibration entry : calibration) {
+            if(entry.getDevice().equals(device))
+                tables = entry.getCalibration();
+        }
+        return tables;
+    }
+
+    public List<FrameRateLimit> getFrameRateLimits() {
+        return frameRateLimits;
+    }
+
+    /**
+     * Set the maximum frame rates of the devices. The pixel number is not affected,
+     * the limits are applied to the frame senders when the frame plan is rebuilt.
+     * @param frameRateLimits   limit of each device, devices without entry use the default of their type
+     */
+    public void setFrameRateLimits(List<FrameRateLimit> frameRateLimits) {
+        if(this.frameRateLimits == frameRateLimits)
+            return;
+        this.frameRateLimits = frameRateLimits != null ? frameRateLimits : new ArrayList<>();
+        if(cachedDeviceControllers.isEmpty())
+            return; // applied when the devices are loaded
+        applyTopologies(cachedServers, cachedTopologies);
+    }
+
+    /**
+     * Get the maximum frame rate of a device
+     * @param device        device reference
+     * @param view          controller data of the device, used to detect the default
+     * @return              last configured limit of the device or the default of its type, 0 if not limited
+     */
+    private int getMaxFps(DeviceRef device, DeviceView view) {
+        int maxFps = FrameSender.getDefaultMaxFps(view.getType());
+        for(FrameRateLimit limit : frameRateLimits) {
+            if(limit.getDevice().equals(device))
+                maxFps = limit.getMaxFps();
+        }
+        return maxFps;
+    }
+
+    public int getWeight() {
+        return flow.getWeight();
+    }
+
+    /**
+     * Set the share of the bandwidth budget of the servers. While a budget is exhausted,
+     * a group with twice the weight gets twice the bytes of the other groups, regardless
+     * of the number of devices in each group.
+     * @param weight        weight of the group, at least 1
+     */
+    public void setWeight(int weight) {
+        // the devices keep the flow, so the weight applies immediately
+        flow.setWeight(weight);
+    }
+
+    public boolean isMatrixMode() {
+        return matrixMode;
+    }
+
+    /**
+     * Enable or disable the matrix mode and update cached devices and pixel number.
+     * In matrix mode the pixels are a grid that is mapped onto the matrix zones of the
+     * devices and the mapping rules are not used.
+     * @param matrixMode    true to use the matrix layout of the devices
+     */
+    public void setMatrixMode(boolean matrixMode) {
+        if(this.matrixMode == matrixMode)
+            return;
+        this.matrixMode = matrixMode;
+        if(cachedDeviceControllers.isEmpty())
+            return; // built when the devices are loaded
+        applyTopologies(cachedServers, cachedTopologies);
+        updateOutputPixel();
+    }
+
+    /**
+     * Get the matrix layout of the current devices
+     * @return              matrix layout or null if matrix mode is disabled or the devices are unknown
+     */
+    public MatrixLayout getMatrixLayout() {
+        return cachedMatrix;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
 
+    /**
+     * Get the output statistics of this handler
+     * @return      statistics of the handler
+     */
+    public OutputStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Get the management interface of this handler
+     * @return      monitor of the handler
+     */
+    public OutputHandlerMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Get the frame plan used for the received data
+     * @return      current plan or null if it was not compiled yet
+     */
+    public FramePlan getFramePlan() {
+        return framePlan;
+    }
+
 }
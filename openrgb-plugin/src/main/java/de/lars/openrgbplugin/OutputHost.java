@@ -0,0 +1,44 @@
+package de.lars.openrgbplugin;
+
+import de.lars.openrgbplugin.utils.DeviceRef;
+import de.lars.remotelightcore.notification.Notification;
+
+import java.util.List;
+
+/**
+ * Servers and services an {@link OutputHandler} uses, provided by the {@link OpenRgbPlugin}
+ */
+public interface OutputHost {
+
+    /**
+     * Get all configured servers. The index of a server in the list is used
+     * by the {@link DeviceRef}s of the device groups.
+     * @return      unmodifiable list of the servers
+     */
+    List<OpenRgbServer> getServers();
+
+    /**
+     * Get a server by its index
+     * @param index     index of the server
+     * @return          the server or null if the index is invalid
+     */
+    OpenRgbServer getServer(int index);
+
+    /**
+     * Check if auto connect feature is enabled or disabled
+     * @return              true if enabled, false otherwise
+     */
+    boolean isAutoConnectEnabled();
+
+    /**
+     * Enable or disable auto connect feature and start/stop timer.
+     * @param enable        whether auto connect should enabled or disabled
+     */
+    void setAutoConnectEnabled(boolean enable);
+
+    /**
+     * Show a notification to the user
+     * @param notification  notification to show
+     */
+    void addNotification(Notification notification);
+}
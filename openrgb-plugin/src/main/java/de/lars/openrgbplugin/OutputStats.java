@@ -0,0 +1,100 @@
+package de.lars.openrgbplugin;
+
+import de.lars.openrgbwrapper.utils.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of one {@link OutputHandler}. Counters are striped, so recording
+ * on the render thread costs a few nanoseconds.
+ */
+public class OutputStats {
+
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder framesSubmitted = new LongAdder();
+    private final LongAdder framesSkipped = new LongAdder();
+    private final LongAdder planCompiles = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    /** time to pack a frame and hand it to the frame sender */
+    private final LatencyHistogram submitTime = new LatencyHistogram();
+
+    void recordSubmit(long nanos) {
+        framesReceived.increment();
+        framesSubmitted.increment();
+        submitTime.record(nanos);
+    }
+
+    void recordSkipped() {
+        framesReceived.increment();
+        framesSkipped.increment();
+    }
+
+    void recordPlanCompile() {
+        planCompiles.increment();
+    }
+
+    void recordReconnect() {
+        reconnects.increment();
+    }
+
+    /**
+     * Get the number of frames received from the virtual output
+     * @return          total received frames
+     */
+    public long getFramesReceived() {
+        return framesReceived.sum();
+    }
+
+    /**
+     * Get the number of frames handed to the frame sender
+     * @return          total submitted frames
+     */
+    public long getFramesSubmitted() {
+        return framesSubmitted.sum();
+    }
+
+    /**
+     * Get the number of frames that were not sent, e.g. because the output was
+     * disabled, disconnected or the pixel number did not match
+     * @return          total skipped frames
+     */
+    public long getFramesSkipped() {
+        return framesSkipped.sum();
+    }
+
+    /**
+     * Get the number of compiled frame plans, one per topology or pixel number change
+     * @return          total compiled plans
+     */
+    public long getPlanCompiles() {
+        return planCompiles.sum();
+    }
+
+    /**
+     * Get the number of times the output was enabled again after the connection was lost
+     * @return          total reconnects
+     */
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * Get the time needed to pack a frame and submit it to the sender
+     * @return          histogram in nanoseconds
+     */
+    public LatencyHistogram getSubmitTime() {
+        return submitTime;
+    }
+
+    /**
+     * Reset all counters and histograms
+     */
+    public void reset() {
+        framesReceived.reset();
+        framesSubmitted.reset();
+        framesSkipped.reset();
+        planCompiles.reset();
+        reconnects.reset();
+        submitTime.reset();
+    }
+}
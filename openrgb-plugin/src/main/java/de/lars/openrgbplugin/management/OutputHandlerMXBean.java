@@ -0,0 +1,33 @@
+package de.lars.openrgbplugin.management;
+
+/**
+ * Management interface of an {@link de.lars.openrgbplugin.OutputHandler} (device group).
+ * Times are reported in microseconds.
+ */
+public interface OutputHandlerMXBean {
+
+    String getName();
+    String getOutputId();
+    boolean isEnabled();
+    int getDeviceCount();
+    int getPixelCount();
+
+    long getFramesReceived();
+    long getFramesSubmitted();
+    long getFramesSkipped();
+    long getFramesDropped();
+    long getFramesDecimated();
+    long getFramesCoalesced();
+    double getFramesPerSecond();
+    long getPlanCompiles();
+    long getReconnects();
+
+    double getSubmitTimeP50();
+    double getSubmitTimeP99();
+    double getSubmitTimeMax();
+
+    /**
+     * Reset the statistics of the handler
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,182 @@
+package de.lars.openrgbplugin.management;
+
+import de.lars.openrgbplugin.FramePlan;
+import de.lars.openrgbplugin.OpenRgbPlugin;
+import de.lars.openrgbplugin.OutputHandler;
+import de.lars.openrgbplugin.OutputStats;
+import de.lars.openrgbwrapper.management.RateMeter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes the statistics of an {@link OutputHandler} as MXBean. Values are only
+ * read when requested by a JMX client.
+ */
+public class OutputHandlerMonitor implements OutputHandlerMXBean {
+
+    /** domain of the object names registered by the plugin */
+    public static final String DOMAIN = "de.lars.openrgbplugin";
+
+    private final OutputHandler handler;
+    private final RateMeter frameRate = new RateMeter();
+    private ObjectName objectName;
+
+    /**
+     * Create a new monitor for an output handler
+     * @param handler       handler to monitor
+     */
+    public OutputHandlerMonitor(OutputHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Register the monitor at the platform MBean server as
+     * {@code de.lars.openrgbplugin:type=OutputHandler,output=<virtual output id>}
+     * @return              true if the monitor was registered
+     */
+    public synchronized boolean register() {
+        if(objectName != null) return false;
+        String outputId = getOutputId();
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=OutputHandler,output=" + ObjectName.quote(outputId));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            return true;
+        } catch (JMException e) {
+            OpenRgbPlugin.print("Could not register MBean of output '" + outputId + "': " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Unregister the monitor from the platform MBean server. Has no effect if it is not registered.
+     */
+    public synchronized void unregister() {
+        if(objectName == null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if(server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            OpenRgbPlugin.print("Could not unregister MBean '" + objectName + "': " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    @Override
+    public String getName() {
+        return handler.getName();
+    }
+
+    @Override
+    public String getOutputId() {
+        return handler.getVirtualOutput().getId();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return handler.isEnabled();
+    }
+
+    @Override
+    public int getDeviceCount() {
+        FramePlan plan = handler.getFramePlan();
+        return plan != null ? plan.getDeviceCount() : 0;
+    }
+
+    @Override
+    public int getPixelCount() {
+        FramePlan plan = handler.getFramePlan();
+        return plan != null ? plan.getPixelCount() : 0;
+    }
+
+    @Override
+    public long getFramesReceived() {
+        return stats().getFramesReceived();
+    }
+
+    @Override
+    public long getFramesSubmitted() {
+        return stats().getFramesSubmitted();
+    }
+
+    @Override
+    public long getFramesSkipped() {
+        return stats().getFramesSkipped();
+    }
+
+    @Override
+    public long getFramesDropped() {
+        // the senders count dropped frames per device, sum the devices of the group
+        FramePlan plan = handler.getFramePlan();
+        if(plan == null) return 0;
+        long dropped = 0;
+        for(int i = 0; i < plan.getDeviceCount(); i++)
+            dropped += plan.getSender(i).getDroppedFrames(plan.getDevice(i).getDeviceId());
+        return dropped;
+    }
+
+    @Override
+    public long getFramesDecimated() {
+        // frames replaced while a device was held back by its maximum frame rate
+        FramePlan plan = handler.getFramePlan();
+        if(plan == null) return 0;
+        long decimated = 0;
+        for(int i = 0; i < plan.getDeviceCount(); i++)
+            decimated += plan.getSender(i).getDecimatedFrames(plan.getDevice(i).getDeviceId());
+        return decimated;
+    }
+
+    @Override
+    public long getFramesCoalesced() {
+        // frames replaced while waiting for the bandwidth budget of the server
+        FramePlan plan = handler.getFramePlan();
+        if(plan == null) return 0;
+        long coalesced = 0;
+        for(int i = 0; i < plan.getDeviceCount(); i++)
+            coalesced += plan.getSender(i).getCoalescedFrames(plan.getDevice(i).getDeviceId());
+        return coalesced;
+    }
+
+    @Override
+    public double getFramesPerSecond() {
+        return frameRate.rate(stats().getFramesSubmitted());
+    }
+
+    @Override
+    public long getPlanCompiles() {
+        return stats().getPlanCompiles();
+    }
+
+    @Override
+    public long getReconnects() {
+        return stats().getReconnects();
+    }
+
+    @Override
+    public double getSubmitTimeP50() {
+        return stats().getSubmitTime().getPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getSubmitTimeP99() {
+        return stats().getSubmitTime().getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getSubmitTimeMax() {
+        return stats().getSubmitTime().getMax() / 1000.0;
+    }
+
+    @Override
+    public void resetStatistics() {
+        stats().reset();
+    }
+
+    private OutputStats stats() {
+        return handler.getStats();
+    }
+}
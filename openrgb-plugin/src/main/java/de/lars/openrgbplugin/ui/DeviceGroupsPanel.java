@@ -1,6 +1,8 @@
 package de.lars.openrgbplugin.ui;
 
 import de.lars.openrgbplugin.OpenRgbPlugin;
+import de.lars.openrgbplugin.OpenRgbServer;
+import de.lars.openrgbplugin.MatrixLayout;
 import de.lars.openrgbplugin.OutputHandler;
 import de.lars.openrgbplugin.utils.ClientConnectEvent;
 import de.lars.openrgbplugin.utils.UserInterfaceUtil;
@@ -9,6 +11,8 @@ import de.lars.remotelightclient.ui.components.ListElement;
 import de.lars.remotelightclient.ui.panels.tools.ToolsPanel;
 import de.lars.remotelightclient.ui.panels.tools.ToolsPanelNavItem;
 import de.lars.remotelightclient.utils.ui.MenuIconFont;
+import de.lars.remotelightcore.notification.Notification;
+import de.lars.remotelightcore.notification.NotificationType;
 import de.lars.remotelightplugincompat.StyleCompat;
 import de.lars.remotelightplugincompat.UiUtilsCompat;
 
@@ -105,7 +109,7 @@ public class DeviceGroupsPanel extends JPanel {
         checkAutoConnect.setSelected(instance.isAutoConnectEnabled());
         checkAutoConnect.addActionListener(e -> instance.setAutoConnectEnabled(checkAutoConnect.isSelected()));
 
-        JLabel lblInterval = new JLabel("Interval (sec):");
+        JLabel lblInterval = new JLabel("Max. interval (sec):");
         lblInterval.setForeground(StyleCompat.textColor());
 
         NumberFormatter intervalFormatter = UserInterfaceUtil.getIntFieldFormatter();
@@ -115,10 +119,92 @@ public class DeviceGroupsPanel extends JPanel {
         fieldInterval.setValue(instance.getAutoConnectInterval());
         panelSettings.add(UserInterfaceUtil.createSettingBgr(panelSettings.getBackground(), checkAutoConnect, lblInterval, fieldInterval));
 
+        JLabel lblConnections = new JLabel("Connections per server:");
+        lblConnections.setForeground(StyleCompat.textColor());
+
+        NumberFormatter connectionsFormatter = UserInterfaceUtil.getIntFieldFormatter();
+        connectionsFormatter.setMinimum(1);
+        connectionsFormatter.setMaximum(16);
+        JFormattedTextField fieldConnections = new JFormattedTextField(connectionsFormatter);
+        fieldConnections.setColumns(5);
+        fieldConnections.setValue(instance.getConnectionCount());
+        fieldConnections.setToolTipText("Devices are distributed over the connections, so slow devices do not limit the frame rate of the others.");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(panelSettings.getBackground(), lblConnections, fieldConnections));
+
+        JLabel lblBandwidth = new JLabel("Max. KB/s per server:");
+        lblBandwidth.setForeground(StyleCompat.textColor());
+        JLabel lblPacketRate = new JLabel("Max. packets/s:");
+        lblPacketRate.setForeground(StyleCompat.textColor());
+
+        NumberFormatter bandwidthFormatter = UserInterfaceUtil.getIntFieldFormatter();
+        bandwidthFormatter.setMinimum(0);
+        JFormattedTextField fieldBandwidth = new JFormattedTextField(bandwidthFormatter);
+        fieldBandwidth.setColumns(7);
+        fieldBandwidth.setValue(instance.getMaxKilobytesPerSecond());
+        NumberFormatter packetRateFormatter = UserInterfaceUtil.getIntFieldFormatter();
+        packetRateFormatter.setMinimum(0);
+        JFormattedTextField fieldPacketRate = new JFormattedTextField(packetRateFormatter);
+        fieldPacketRate.setColumns(7);
+        fieldPacketRate.setValue(instance.getMaxPacketsPerSecond());
+        fieldBandwidth.setToolTipText("<html>Bandwidth limit shared by all device groups of a server (0: no limit).<br>"
+                + "The groups get a share according to their priority weight.</html>");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(panelSettings.getBackground(), lblBandwidth, fieldBandwidth, lblPacketRate, fieldPacketRate));
+
+        // additional servers, devices of a group can be spread over all servers
+        for(int i = 1; i < instance.getServers().size(); i++) {
+            final int serverIndex = i;
+            final OpenRgbServer server = instance.getServer(i);
+
+            JLabel lblServer = new JLabel(String.format("Server #%d: %s (%s)", i, server,
+                    server.isConnected() ? "connected" : "not connected"));
+            lblServer.setForeground(StyleCompat.textColor());
+
+            JButton btnToggleServer = new JButton(server.isConnected() ? "Disconnect" : "Connect");
+            UiUtilsCompat.configureButton(btnToggleServer);
+            btnToggleServer.addActionListener(e -> {
+                if(server.isConnected())
+                    server.disconnect();
+                else
+                    server.connect();
+            });
+
+            JButton btnRemoveServer = new JButton("Remove");
+            UiUtilsCompat.configureButton(btnRemoveServer);
+            btnRemoveServer.addActionListener(e -> {
+                instance.removeServer(serverIndex);
+                setupSettingsPanel();
+                updateDeviceEntryPanels();
+            });
+            panelSettings.add(UserInterfaceUtil.createSettingBgr(panelSettings.getBackground(), lblServer, btnToggleServer, btnRemoveServer));
+        }
+
+        JLabel lblAddServer = new JLabel("Additional server:");
+        lblAddServer.setForeground(StyleCompat.textColor());
+        JTextField fieldAddIp = new JTextField();
+        fieldAddIp.setColumns(15);
+        JFormattedTextField fieldAddPort = new JFormattedTextField(UserInterfaceUtil.getIntFieldFormatter());
+        fieldAddPort.setColumns(5);
+        fieldAddPort.setValue(instance.getOpenRgbPort());
+
+        JButton btnAddServer = new JButton("Add server");
+        UiUtilsCompat.configureButton(btnAddServer);
+        btnAddServer.addActionListener(e -> {
+            String ip = fieldAddIp.getText().trim();
+            if(ip.isEmpty() || fieldAddPort.getValue() == null) return;
+            if(instance.addServer(ip, (Integer) fieldAddPort.getValue()) == null) {
+                instance.getInterface().getNotificationManager().addNotification(
+                        new Notification(NotificationType.ERROR, "OpenRGB Plugin", "The server is already in the list."));
+                return;
+            }
+            setupSettingsPanel();
+        });
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(panelSettings.getBackground(), lblAddServer, fieldAddIp, fieldAddPort, btnAddServer));
+
         if(isConnected) {
             // disable if OpenRGB client is connected
             fieldServerIp.setEnabled(false);
             fieldServerPort.setEnabled(false);
+            fieldConnections.setEnabled(false);
 
             // set info label text
             lblConnectionState.setText(String.format("Connected to %s:%d",
@@ -146,6 +232,9 @@ public class DeviceGroupsPanel extends JPanel {
         });
         fieldServerPort.addPropertyChangeListener("value", e -> instance.setOpenRgbConnection(fieldServerIp.getText(), (Integer) fieldServerPort.getValue()));
         fieldInterval.addPropertyChangeListener("value", e -> instance.setAutoConnectInterval((Integer) fieldInterval.getValue()));
+        fieldConnections.addPropertyChangeListener("value", e -> instance.setConnectionCount((Integer) fieldConnections.getValue()));
+        fieldBandwidth.addPropertyChangeListener("value", e -> instance.setBandwidthBudget((Integer) fieldBandwidth.getValue(), (Integer) fieldPacketRate.getValue()));
+        fieldPacketRate.addPropertyChangeListener("value", e -> instance.setBandwidthBudget((Integer) fieldBandwidth.getValue(), (Integer) fieldPacketRate.getValue()));
 
         panelSettings.updateUI();
     }
@@ -172,9 +261,11 @@ public class DeviceGroupsPanel extends JPanel {
             el.add(Box.createHorizontalStrut(10));
 
             if(activeDevice) {
-                JLabel lblConnection = new JLabel(String.format("Enabled and attached to %s (%d LEDs)",
+                MatrixLayout matrix = handler.getMatrixLayout();
+                JLabel lblConnection = new JLabel(String.format("Enabled and attached to %s (%d LEDs%s)",
                         handler.getVirtualOutput().getId(),
-                        handler.getTotalPixelNumber()));
+                        handler.getTotalPixelNumber(),
+                        matrix != null ? String.format(", %dx%d matrix", matrix.getWidth(), matrix.getHeight()) : ""));
                 lblConnection.setForeground(StyleCompat.textColorDarker());
                 el.add(lblConnection);
             }
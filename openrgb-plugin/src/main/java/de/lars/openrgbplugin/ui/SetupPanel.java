@@ -1,9 +1,16 @@
 package de.lars.openrgbplugin.ui;
 
 import de.lars.openrgbplugin.OpenRgbPlugin;
+import de.lars.openrgbplugin.OpenRgbServer;
 import de.lars.openrgbplugin.OutputHandler;
+import de.lars.openrgbplugin.utils.DeviceCalibration;
+import de.lars.openrgbplugin.utils.DeviceRef;
+import de.lars.openrgbplugin.utils.FrameRateLimit;
+import de.lars.openrgbplugin.utils.MappingRule;
 import de.lars.openrgbplugin.utils.UserInterfaceUtil;
 import de.lars.openrgbplugin.utils.ValueHolder;
+import de.lars.openrgbwrapper.DeviceTopology;
+import de.lars.openrgbwrapper.DeviceView;
 import de.lars.remotelightclient.ui.components.ListElement;
 import de.lars.remotelightclient.ui.panels.tools.ToolsNavListener;
 import de.lars.remotelightclient.ui.panels.tools.ToolsPanel;
@@ -15,6 +22,7 @@ import de.lars.remotelightplugincompat.StyleCompat;
 import de.lars.remotelightplugincompat.UiUtilsCompat;
 
 import javax.swing.*;
+import javax.swing.text.NumberFormatter;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,7 +32,7 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
     private final OpenRgbPlugin instance;
     private final ToolsPanel context;
     private final OutputHandler handler;
-    private final List<Integer> listDevices;
+    private final List<DeviceRef> listDevices;
     private final DeviceGroupsPanel devicesPanel;
     private final JPanel panelSettings;
     private JPanel panelDeviceList;
@@ -85,6 +93,18 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
         }
         panelSettings.add(UserInterfaceUtil.createSettingBgr(lblVirtOutput, comboVirtOutputs));
 
+        JLabel lblServer = new JLabel("OpenRGB Server:");
+        lblServer.setForeground(StyleCompat.textColor());
+
+        JComboBox<String> comboServers = new JComboBox<>();
+        for(OpenRgbServer server : instance.getServers())
+            comboServers.addItem(server.toString());
+        comboServers.setSelectedIndex(0);
+        if(instance.getServers().size() > 1) {
+            // only show server selection if there are multiple servers
+            panelSettings.add(UserInterfaceUtil.createSettingBgr(lblServer, comboServers));
+        }
+
         JLabel lblDeviceId = new JLabel("OpenRGB Device ID (index):");
         lblDeviceId.setForeground(StyleCompat.textColor());
 
@@ -94,21 +114,23 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
         UiUtilsCompat.configureButton(btnAddDeviceId);
         btnAddDeviceId.addActionListener(e -> {
             if(fieldDeviceId.getValue() == null) return;
-            int value = (int) fieldDeviceId.getValue();
-            if(value < 0 || listDevices.contains(value)) {
+            DeviceRef device = new DeviceRef(comboServers.getSelectedIndex(), (int) fieldDeviceId.getValue());
+            if(device.getDevice() < 0 || listDevices.contains(device)) {
                 instance.getInterface().getNotificationManager().addNotification(
                         new Notification(NotificationType.ERROR, "OpenRGB Plugin", "Invalid ID or list contains already ID."));
                 return;
             }
-            listDevices.add(value);
+            listDevices.add(device);
             fieldDeviceId.setText("");
             updateDeviceListPanel();
         });
         panelSettings.add(UserInterfaceUtil.createSettingBgr(lblDeviceId, fieldDeviceId, btnAddDeviceId));
 
-        if(instance.getOpenRGB().isConnected()) {
+        if(isAnyServerConnected()) {
             // show info label, remove all and add all button
-            int deviceCount = instance.getOpenRGB().getControllerCount();
+            int deviceCount = 0;
+            for(OpenRgbServer server : instance.getServers())
+                deviceCount += getDeviceCount(server);
 
             JLabel lblCountInfo = new JLabel("There are " + deviceCount + " devices available.");
             lblCountInfo.setForeground(StyleCompat.textColor());
@@ -116,9 +138,13 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
             JButton btnAddAll = new JButton("Add all");
             UiUtilsCompat.configureButton(btnAddAll);
             btnAddAll.addActionListener(e -> {
-                for(int i = 0; i < deviceCount; i++) {
-                    if(!listDevices.contains(i))
-                        listDevices.add(i);
+                // add all devices of the selected server
+                int serverIndex = comboServers.getSelectedIndex();
+                int count = getDeviceCount(instance.getServer(serverIndex));
+                for(int i = 0; i < count; i++) {
+                    DeviceRef device = new DeviceRef(serverIndex, i);
+                    if(!listDevices.contains(device))
+                        listDevices.add(device);
                 }
                 updateDeviceListPanel();
             });
@@ -139,6 +165,49 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
             panelSettings.add(UserInterfaceUtil.createSettingBgr(lblHint));
         }
 
+        JLabel lblMapping = new JLabel("LED mapping:");
+        lblMapping.setForeground(StyleCompat.textColor());
+
+        JTextField fieldMapping = new JTextField(20);
+        fieldMapping.setToolTipText("<html>Rules separated by ';' as &lt;device&gt; &lt;rule&gt; [arguments], e.g. '2 reverse; 1:0 mask 0 4'<br>"
+                + "reverse [start] [count], offset &lt;leds&gt;, mask &lt;start&gt; [count], duplicate &lt;leds per pixel&gt;, average &lt;pixels per led&gt;</html>");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(lblMapping, fieldMapping));
+
+        JLabel lblCalibration = new JLabel("Calibration:");
+        lblCalibration.setForeground(StyleCompat.textColor());
+
+        JTextField fieldCalibration = new JTextField(20);
+        fieldCalibration.setToolTipText("<html>Settings separated by ';' as &lt;device&gt; [gamma &lt;value&gt;] [white &lt;r&gt; &lt;g&gt; &lt;b&gt;] [brightness &lt;percent&gt;],<br>"
+                + "e.g. '2 gamma 2.2; 1:0 white 255 200 180 brightness 80'</html>");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(lblCalibration, fieldCalibration));
+
+        JLabel lblMaxFps = new JLabel("Max. FPS:");
+        lblMaxFps.setForeground(StyleCompat.textColor());
+
+        JTextField fieldMaxFps = new JTextField(20);
+        fieldMaxFps.setToolTipText("<html>Limits separated by ';' as &lt;device&gt; &lt;fps&gt;, e.g. '2 20; 1:0 0' (0: no limit)<br>"
+                + "Devices without limit use the default of their type: keyboards and mice 30 FPS, RAM 20 FPS.</html>");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(lblMaxFps, fieldMaxFps));
+
+        JLabel lblWeight = new JLabel("Priority weight:");
+        lblWeight.setForeground(StyleCompat.textColor());
+
+        NumberFormatter weightFormatter = UserInterfaceUtil.getIntFieldFormatter();
+        weightFormatter.setMinimum(1);
+        JFormattedTextField fieldWeight = new JFormattedTextField(weightFormatter);
+        fieldWeight.setColumns(5);
+        fieldWeight.setValue(1);
+        fieldWeight.setToolTipText("<html>Share of the bandwidth limit of the server, only used if a limit is set.<br>"
+                + "A group with weight 3 gets three times the bandwidth of a group with weight 1.</html>");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(lblWeight, fieldWeight));
+
+        JCheckBox checkMatrix = new JCheckBox("Matrix mode");
+        checkMatrix.setBackground(StyleCompat.panelBackground());
+        checkMatrix.setForeground(StyleCompat.textColor());
+        checkMatrix.setToolTipText("<html>Use the pixels as grid for the matrix zones of the devices, placed side by side.<br>"
+                + "Zones without matrix follow after the grid. The LED mapping is not used in matrix mode.</html>");
+        panelSettings.add(UserInterfaceUtil.createSettingBgr(checkMatrix));
+
         panelDeviceList = new JPanel();
         panelDeviceList.setBackground(StyleCompat.panelDarkBackground());
         panelDeviceList.setLayout(new BoxLayout(panelDeviceList, BoxLayout.Y_AXIS));
@@ -150,6 +219,11 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
         if(handler != null) {
             // set stored values
             fieldName.setText(handler.getName());
+            fieldMapping.setText(MappingRule.formatList(handler.getMapping()));
+            checkMatrix.setSelected(handler.isMatrixMode());
+            fieldCalibration.setText(DeviceCalibration.formatList(handler.getCalibration()));
+            fieldMaxFps.setText(FrameRateLimit.formatList(handler.getFrameRateLimits()));
+            fieldWeight.setValue(handler.getWeight());
         }
 
         JButton btnAdd = new JButton(handler == null ? "Add OpenRGB Device" : "Save OpenRGB Device");
@@ -159,11 +233,40 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
         btnAdd.setMinimumSize(new Dimension(100, 50));
 
         btnAdd.addActionListener(e -> {
+            List<MappingRule> mapping;
+            try {
+                mapping = MappingRule.parseList(fieldMapping.getText());
+            } catch (IllegalArgumentException ex) {
+                instance.getInterface().getNotificationManager().addNotification(
+                        new Notification(NotificationType.ERROR, "OpenRGB Plugin", "Invalid LED mapping: " + ex.getMessage()));
+                return;
+            }
+            List<DeviceCalibration> calibration;
+            try {
+                calibration = DeviceCalibration.parseList(fieldCalibration.getText());
+            } catch (IllegalArgumentException ex) {
+                instance.getInterface().getNotificationManager().addNotification(
+                        new Notification(NotificationType.ERROR, "OpenRGB Plugin", "Invalid calibration: " + ex.getMessage()));
+                return;
+            }
+            List<FrameRateLimit> frameRateLimits;
+            try {
+                frameRateLimits = FrameRateLimit.parseList(fieldMaxFps.getText());
+            } catch (IllegalArgumentException ex) {
+                instance.getInterface().getNotificationManager().addNotification(
+                        new Notification(NotificationType.ERROR, "OpenRGB Plugin", "Invalid frame rate limit: " + ex.getMessage()));
+                return;
+            }
             // create value holder
             ValueHolder holder = new ValueHolder(
                     fieldName.getText(),
                     (String) comboVirtOutputs.getSelectedItem(),
-                    listDevices);
+                    listDevices,
+                    mapping,
+                    checkMatrix.isSelected(),
+                    calibration,
+                    frameRateLimits,
+                    (Integer) fieldWeight.getValue());
 
             if(validateInput(holder.getName(), holder.getOutputId())) {
                 // get output
@@ -177,6 +280,11 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
                 if(handler != null) { // set values to output handler
                     handler.setName(holder.getName());
                     handler.setDevices(listDevices);
+                    handler.setMapping(mapping);
+                    handler.setMatrixMode(holder.isMatrix());
+                    handler.setCalibration(calibration);
+                    handler.setFrameRateLimits(frameRateLimits);
+                    handler.setWeight(holder.getWeight());
                     handler.setVirtualOutput(output);
                 } else { // create new output handler
                     // create new handler
@@ -219,22 +327,55 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
         return valid;
     }
 
+    /**
+     * Check if at least one server is connected
+     */
+    private boolean isAnyServerConnected() {
+        for(OpenRgbServer server : instance.getServers()) {
+            if(server.isConnected())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of devices of a server from its topology
+     * @return          device count or -1 if the server is not connected
+     */
+    private static int getDeviceCount(OpenRgbServer server) {
+        DeviceTopology topology = getTopology(server);
+        return topology != null ? topology.getDeviceCount() : -1;
+    }
+
+    private static DeviceTopology getTopology(OpenRgbServer server) {
+        if(server == null || !server.isConnected())
+            return null;
+        return server.getOpenRGB().getTopologyCache().await();
+    }
+
     private void updateDeviceListPanel() {
         panelDeviceList.removeAll();
-        boolean isConnected = instance.getOpenRGB().isConnected();
-        int controllerCount = isConnected ? instance.getOpenRGB().getControllerCount() : -1;
 
         for(int i = 0; i < listDevices.size(); i++) {
-            final int deviceId = listDevices.get(i);
+            final DeviceRef deviceRef = listDevices.get(i);
+            final int deviceId = deviceRef.getDevice();
+            OpenRgbServer server = instance.getServer(deviceRef.getServer());
+            DeviceTopology topology = getTopology(server);
             ListElement el = new ListElement(40);
             panelDeviceList.add(el);
             panelDeviceList.add(Box.createVerticalStrut(5));
 
-            JLabel lblDeviceId = new JLabel("Device #" + deviceId);
+            JLabel lblDeviceId = new JLabel(deviceRef.toString());
             lblDeviceId.setForeground(StyleCompat.textColor());
             el.add(lblDeviceId);
 
-            if(isConnected) {
+            if(server == null) {
+                el.add(Box.createHorizontalStrut(5));
+                JLabel lblError = new JLabel("Invalid server. The server was removed.");
+                lblError.setForeground(StyleCompat.error());
+                el.add(lblError);
+            } else if(topology != null) {
+                int controllerCount = topology.getDeviceCount();
                 el.add(Box.createHorizontalStrut(5));
                 // show extra information
                 if(deviceId >= controllerCount) {
@@ -243,9 +384,9 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
                     lblError.setForeground(StyleCompat.error());
                     el.add(lblError);
                 } else {
-                    de.lars.openrgbwrapper.Device device = instance.getOpenRGB().getControllerData(deviceId);
+                    DeviceView device = topology.getDevice(deviceId);
                     String text = String.format("%s (%s), %d LEDs",
-                            device.name, device.type.name(), device.leds.length);
+                            device.getName(), device.getType().name(), device.getLedCount());
 
                     JLabel lblInfo = new JLabel(text);
                     lblInfo.setForeground(StyleCompat.textColorDarker());
@@ -260,11 +401,11 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
             JButton btnUp = new JButton("\u25B2");
             btnUp.setToolTipText("Move up");
             btnUp.addActionListener(e -> {
-                int index = listDevices.indexOf(deviceId);
+                int index = listDevices.indexOf(deviceRef);
                 if(index > 0) {
                     // move element up in list
                     listDevices.remove(index);
-                    listDevices.add(index - 1, deviceId);
+                    listDevices.add(index - 1, deviceRef);
                 }
                 updateDeviceListPanel();
             });
@@ -275,11 +416,11 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
             JButton btnDown = new JButton("\u25BC");
             btnDown.setToolTipText("Move down");
             btnDown.addActionListener(e -> {
-                int index = listDevices.indexOf(deviceId);
+                int index = listDevices.indexOf(deviceRef);
                 if(index < listDevices.size() - 1) {
                     // move element down in list
                     listDevices.remove(index);
-                    listDevices.add(index + 1, deviceId);
+                    listDevices.add(index + 1, deviceRef);
                 }
                 updateDeviceListPanel();
             });
@@ -300,7 +441,7 @@ public class SetupPanel extends JPanel implements ToolsNavListener {
             configurePanelButton(btnRemove);
             btnRemove.setToolTipText("Remove device from list");
             btnRemove.addActionListener(e -> {
-                listDevices.remove((Integer) deviceId);
+                listDevices.remove(deviceRef);
                 updateDeviceListPanel();
             });
             el.add(btnRemove);
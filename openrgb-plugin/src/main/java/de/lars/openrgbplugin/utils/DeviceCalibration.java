@@ -0,0 +1,186 @@
+package de.lars.openrgbplugin.utils;
+
+import de.lars.openrgbwrapper.utils.ColorCalibration;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Gamma, white balance and brightness of one device of a device group.
+ * The settings are compiled into the lookup tables of a {@link ColorCalibration},
+ * which the wrapper applies while encoding the colors of the device.
+ * <p>Text form, used in the setup panel: {@code <device> [gamma <value>] [white <red> <green> <blue>]
+ * [brightness <percent>]}, where the device is the device id on the first server or
+ * {@code <server>:<device>}, e.g. {@code 2 gamma 2.2} or {@code 1:0 white 255 200 180 brightness 80}.</p>
+ */
+public final class DeviceCalibration {
+
+    public static final double DEFAULT_GAMMA = 1.0;
+    public static final int DEFAULT_WHITE = 255;
+    public static final int DEFAULT_BRIGHTNESS = 100;
+
+    private final DeviceRef device;
+    private final double gamma;
+    private final int red;
+    private final int green;
+    private final int blue;
+    private final int brightness;
+    /** compiled lookup tables, null if the settings have no effect */
+    private final ColorCalibration calibration;
+
+    /**
+     * Create a new device calibration
+     * @param device        device the calibration applies to
+     * @param gamma         gamma exponent, 1 for a linear curve
+     * @param red           red value of white (0-255)
+     * @param green         green value of white (0-255)
+     * @param blue          blue value of white (0-255)
+     * @param brightness    brightness in percent (0-100)
+     */
+    public DeviceCalibration(DeviceRef device, double gamma, int red, int green, int blue, int brightness) {
+        if(device == null)
+            throw new IllegalArgumentException("Device cannot be null!");
+        if(!(gamma > 0) || gamma > 10)
+            throw new IllegalArgumentException("Gamma must be greater than 0 and at most 10.");
+        if(red < 0 || red > 255 || green < 0 || green > 255 || blue < 0 || blue > 255)
+            throw new IllegalArgumentException("White balance values must be between 0 and 255.");
+        if(brightness < 0 || brightness > 100)
+            throw new IllegalArgumentException("Brightness must be between 0 and 100.");
+        this.device = device;
+        this.gamma = gamma;
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.brightness = brightness;
+        ColorCalibration tables = ColorCalibration.of(gamma,
+                red / 255.0 * brightness / 100.0,
+                green / 255.0 * brightness / 100.0,
+                blue / 255.0 * brightness / 100.0);
+        calibration = tables.isIdentity() ? null : tables;
+    }
+
+    public DeviceRef getDevice() {
+        return device;
+    }
+
+    public double getGamma() {
+        return gamma;
+    }
+
+    public int getRed() {
+        return red;
+    }
+
+    public int getGreen() {
+        return green;
+    }
+
+    public int getBlue() {
+        return blue;
+    }
+
+    public int getBrightness() {
+        return brightness;
+    }
+
+    /**
+     * Get the compiled lookup tables. The same instance is returned on every call.
+     * @return          calibration or null if the settings do not change the colors
+     */
+    public ColorCalibration getCalibration() {
+        return calibration;
+    }
+
+    /**
+     * Parse a calibration from its text form
+     * @param text      calibration text, e.g. {@code 1:2 gamma 2.2 brightness 80}
+     * @return          parsed calibration
+     * @throws IllegalArgumentException if the text is no valid calibration
+     */
+    public static DeviceCalibration parse(String text) {
+        String[] tokens = text.trim().split("\\s+");
+        if(tokens.length < 2)
+            throw new IllegalArgumentException("Expected '<device> <setting> <values>' but got '" + text.trim() + "'.");
+        try {
+            DeviceRef device = DeviceRef.parse(tokens[0]);
+            double gamma = DEFAULT_GAMMA;
+            int red = DEFAULT_WHITE, green = DEFAULT_WHITE, blue = DEFAULT_WHITE;
+            int brightness = DEFAULT_BRIGHTNESS;
+            int i = 1;
+            while(i < tokens.length) {
+                String setting = tokens[i++].toLowerCase(Locale.ROOT);
+                int values = setting.equals("white") ? 3 : 1;
+                if(i + values > tokens.length)
+                    throw new IllegalArgumentException("Missing value for '" + setting + "' in '" + text.trim() + "'.");
+                switch (setting) {
+                    case "gamma":
+                        gamma = Double.parseDouble(tokens[i]);
+                        break;
+                    case "white":
+                        red = Integer.parseInt(tokens[i]);
+                        green = Integer.parseInt(tokens[i + 1]);
+                        blue = Integer.parseInt(tokens[i + 2]);
+                        break;
+                    case "brightness":
+                        brightness = Integer.parseInt(tokens[i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown calibration setting '" + setting + "'.");
+                }
+                i += values;
+            }
+            return new DeviceCalibration(device, gamma, red, green, blue, brightness);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in calibration '" + text.trim() + "'.");
+        }
+    }
+
+    /**
+     * Parse a list of calibrations separated by semicolons
+     * @param text      calibrations text, empty entries are ignored
+     * @return          parsed calibrations in the order of the text
+     * @throws IllegalArgumentException if a calibration is invalid
+     */
+    public static List<DeviceCalibration> parseList(String text) {
+        return TextLists.parseList(text, DeviceCalibration::parse);
+    }
+
+    /**
+     * Create the text form of a list of calibrations
+     * @param calibrations  calibrations to format
+     * @return              calibrations separated by semicolons
+     */
+    public static String formatList(List<DeviceCalibration> calibrations) {
+        return TextLists.formatList(calibrations);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof DeviceCalibration)) return false;
+        DeviceCalibration other = (DeviceCalibration) o;
+        return device.equals(other.device) && Double.compare(gamma, other.gamma) == 0
+                && red == other.red && green == other.green && blue == other.blue && brightness == other.brightness;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * device.hashCode() + Double.hashCode(gamma);
+        result = 31 * result + red;
+        result = 31 * result + green;
+        result = 31 * result + blue;
+        return 31 * result + brightness;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(device.toShortString());
+        if(gamma != DEFAULT_GAMMA)
+            text.append(" gamma ").append(gamma);
+        if(red != DEFAULT_WHITE || green != DEFAULT_WHITE || blue != DEFAULT_WHITE)
+            text.append(" white ").append(red).append(' ').append(green).append(' ').append(blue);
+        if(brightness != DEFAULT_BRIGHTNESS || text.indexOf(" ") == -1)
+            text.append(" brightness ").append(brightness);
+        return text.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package de.lars.openrgbplugin.utils;
+
+/**
+ * Reference to an OpenRGB device on one of the configured servers.
+ */
+public final class DeviceRef {
+
+    private final int server;
+    private final int device;
+
+    /**
+     * Create a new device reference
+     * @param server    index of the server in the server list of the plugin
+     * @param device    device id (index) on the server
+     */
+    public DeviceRef(int server, int device) {
+        this.server = server;
+        this.device = device;
+    }
+
+    /**
+     * Create a reference to a device on the first server, which is the only server
+     * of configurations created before multiple servers were supported
+     * @param device    device id (index) on the first server
+     * @return          device reference
+     */
+    public static DeviceRef of(int device) {
+        return new DeviceRef(0, device);
+    }
+
+    /**
+     * Parse a device reference from its short form
+     * @param text      device id on the first server or {@code <server>:<device>}
+     * @return          device reference
+     * @throws NumberFormatException if the server or device is no valid number
+     */
+    public static DeviceRef parse(String text) {
+        int separator = text.indexOf(':');
+        if(separator == -1)
+            return of(Integer.parseInt(text));
+        return new DeviceRef(Integer.parseInt(text.substring(0, separator)), Integer.parseInt(text.substring(separator + 1)));
+    }
+
+    /**
+     * Get the short form used in the setup panel
+     * @return          device id for the first server, {@code <server>:<device>} otherwise
+     */
+    public String toShortString() {
+        return (server == 0 ? "" : server + ":") + device;
+    }
+
+    public int getServer() {
+        return server;
+    }
+
+    public int getDevice() {
+        return device;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof DeviceRef)) return false;
+        DeviceRef other = (DeviceRef) o;
+        return server == other.server && device == other.device;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * server + device;
+    }
+
+    @Override
+    public String toString() {
+        return server == 0 ? "Device #" + device : "Server #" + server + " Device #" + device;
+    }
+}
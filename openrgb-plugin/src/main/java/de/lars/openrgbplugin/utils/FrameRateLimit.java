@@ -0,0 +1,92 @@
+package de.lars.openrgbplugin.utils;
+
+import java.util.List;
+
+/**
+ * Maximum frame rate of one device of a device group. Devices without limit use the
+ * default of their device type, see {@link de.lars.openrgbwrapper.FrameSender#getDefaultMaxFps}.
+ * <p>Text form, used in the setup panel: {@code <device> <fps>}, where the device is the
+ * device id on the first server or {@code <server>:<device>} and 0 fps disables the limit,
+ * e.g. {@code 2 20} or {@code 1:0 0}.</p>
+ */
+public final class FrameRateLimit {
+
+    private final DeviceRef device;
+    private final int maxFps;
+
+    /**
+     * Create a new frame rate limit
+     * @param device    device the limit applies to
+     * @param maxFps    maximum frames per second, 0 for no limit
+     */
+    public FrameRateLimit(DeviceRef device, int maxFps) {
+        if(device == null)
+            throw new IllegalArgumentException("Device cannot be null!");
+        if(maxFps < 0)
+            throw new IllegalArgumentException("Maximum frame rate cannot be negative.");
+        this.device = device;
+        this.maxFps = maxFps;
+    }
+
+    public DeviceRef getDevice() {
+        return device;
+    }
+
+    public int getMaxFps() {
+        return maxFps;
+    }
+
+    /**
+     * Parse a limit from its text form
+     * @param text      limit text, e.g. {@code 1:2 30}
+     * @return          parsed limit
+     * @throws IllegalArgumentException if the text is no valid limit
+     */
+    public static FrameRateLimit parse(String text) {
+        String[] tokens = text.trim().split("\\s+");
+        if(tokens.length != 2)
+            throw new IllegalArgumentException("Expected '<device> <fps>' but got '" + text.trim() + "'.");
+        try {
+            return new FrameRateLimit(DeviceRef.parse(tokens[0]), Integer.parseInt(tokens[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in frame rate limit '" + text.trim() + "'.");
+        }
+    }
+
+    /**
+     * Parse a list of limits separated by semicolons
+     * @param text      limits text, empty entries are ignored
+     * @return          parsed limits in the order of the text
+     * @throws IllegalArgumentException if a limit is invalid
+     */
+    public static List<FrameRateLimit> parseList(String text) {
+        return TextLists.parseList(text, FrameRateLimit::parse);
+    }
+
+    /**
+     * Create the text form of a list of limits
+     * @param limits    limits to format
+     * @return          limits separated by semicolons
+     */
+    public static String formatList(List<FrameRateLimit> limits) {
+        return TextLists.formatList(limits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof FrameRateLimit)) return false;
+        FrameRateLimit other = (FrameRateLimit) o;
+        return device.equals(other.device) && maxFps == other.maxFps;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * device.hashCode() + maxFps;
+    }
+
+    @Override
+    public String toString() {
+        return device.toShortString() + " " + maxFps;
+    }
+}
@@ -0,0 +1,163 @@
+package de.lars.openrgbplugin.utils;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rule that changes how the pixels of a device group are mapped onto the leds of
+ * one device. Rules of a device are applied in list order on the sequence of leds
+ * driven by the pixels, see {@link de.lars.openrgbplugin.LedMapping}.
+ * <p>Text form, used in the setup panel: {@code <device> <type> [arguments]}, where
+ * the device is the device id on the first server or {@code <server>:<device>},
+ * e.g. {@code 2 reverse}, {@code 1:0 mask 0 4} or {@code 3 duplicate 2}.</p>
+ */
+public final class MappingRule {
+
+    public enum Type {
+        /** reverse the leds at the positions value to value+count-1 (count 0: to the end) */
+        REVERSE,
+        /** rotate the leds, the first pixel drives the led at position value */
+        OFFSET,
+        /** turn off the leds value to value+count-1 (count 0: to the end), no pixel drives them */
+        MASK,
+        /** every pixel drives value consecutive leds */
+        DUPLICATE,
+        /** every led shows the average of value consecutive pixels */
+        AVERAGE
+    }
+
+    private final DeviceRef device;
+    private final Type type;
+    private final int value;
+    private final int count;
+
+    /**
+     * Create a new mapping rule
+     * @param device    device the rule applies to
+     * @param type      rule type
+     * @param value     start position, offset or factor, depending on the type
+     * @param count     number of leds for reverse and mask (0: to the end), ignored otherwise
+     */
+    public MappingRule(DeviceRef device, Type type, int value, int count) {
+        if(device == null || type == null)
+            throw new IllegalArgumentException("Device and type cannot be null!");
+        if((type == Type.DUPLICATE || type == Type.AVERAGE) && value < 1)
+            throw new IllegalArgumentException("Factor must be at least 1.");
+        if((type == Type.REVERSE || type == Type.MASK) && (value < 0 || count < 0))
+            throw new IllegalArgumentException("Start and count cannot be negative.");
+        this.device = device;
+        this.type = type;
+        this.value = value;
+        this.count = count;
+    }
+
+    public static MappingRule reverse(DeviceRef device) {
+        return new MappingRule(device, Type.REVERSE, 0, 0);
+    }
+
+    public static MappingRule offset(DeviceRef device, int offset) {
+        return new MappingRule(device, Type.OFFSET, offset, 0);
+    }
+
+    public static MappingRule mask(DeviceRef device, int start, int count) {
+        return new MappingRule(device, Type.MASK, start, count);
+    }
+
+    public static MappingRule duplicate(DeviceRef device, int factor) {
+        return new MappingRule(device, Type.DUPLICATE, factor, 0);
+    }
+
+    public static MappingRule average(DeviceRef device, int factor) {
+        return new MappingRule(device, Type.AVERAGE, factor, 0);
+    }
+
+    public DeviceRef getDevice() {
+        return device;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Parse a rule from its text form
+     * @param text      rule text, e.g. {@code 1:2 reverse}
+     * @return          parsed rule
+     * @throws IllegalArgumentException if the text is no valid rule
+     */
+    public static MappingRule parse(String text) {
+        String[] tokens = text.trim().split("\\s+");
+        if(tokens.length < 2)
+            throw new IllegalArgumentException("Expected '<device> <type> [arguments]' but got '" + text.trim() + "'.");
+        try {
+            // device id on the first server or server:device
+            DeviceRef device = DeviceRef.parse(tokens[0]);
+            Type type = Type.valueOf(tokens[1].toUpperCase(Locale.ROOT));
+            int value = tokens.length > 2 ? Integer.parseInt(tokens[2]) : 0;
+            int count = tokens.length > 3 ? Integer.parseInt(tokens[3]) : 0;
+            if(tokens.length < 3 && (type == Type.OFFSET || type == Type.DUPLICATE || type == Type.AVERAGE))
+                throw new IllegalArgumentException("Missing value for rule '" + text.trim() + "'.");
+            return new MappingRule(device, type, value, count);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in rule '" + text.trim() + "'.");
+        } catch (IllegalArgumentException e) {
+            if(e.getMessage() != null && e.getMessage().startsWith("No enum constant"))
+                throw new IllegalArgumentException("Unknown rule type '" + tokens[1] + "'.");
+            throw e;
+        }
+    }
+
+    /**
+     * Parse a list of rules separated by semicolons
+     * @param text      rules text, empty rules are ignored
+     * @return          parsed rules in the order of the text
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static List<MappingRule> parseList(String text) {
+        return TextLists.parseList(text, MappingRule::parse);
+    }
+
+    /**
+     * Create the text form of a list of rules
+     * @param rules     rules to format
+     * @return          rules separated by semicolons
+     */
+    public static String formatList(List<MappingRule> rules) {
+        return TextLists.formatList(rules);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof MappingRule)) return false;
+        MappingRule other = (MappingRule) o;
+        return device.equals(other.device) && type == other.type && value == other.value && count == other.count;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * device.hashCode() + type.hashCode()) + value) + count;
+    }
+
+    @Override
+    public String toString() {
+        String text = device.toShortString() + " " + type.name().toLowerCase(Locale.ROOT);
+        switch (type) {
+            case REVERSE:
+            case MASK:
+                if(value != 0 || count != 0 || type == Type.MASK)
+                    text += " " + value + (count != 0 ? " " + count : "");
+                return text;
+            default:
+                return text + " " + value;
+        }
+    }
+}
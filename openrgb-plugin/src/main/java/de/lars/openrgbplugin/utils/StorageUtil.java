@@ -3,13 +3,13 @@ package de.lars.openrgbplugin.utils;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import de.lars.openrgbplugin.OpenRgbPlugin;
 import de.lars.remotelightcore.settings.SettingsManager;
 import de.lars.remotelightcore.settings.types.SettingObject;
 
-import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
 import java.util.*;
 
 public class StorageUtil {
@@ -18,6 +18,25 @@ public class StorageUtil {
     public static final String KEY_NAME = "name";
     public static final String KEY_OUTPUTID = "output_id";
     public static final String KEY_ORGB_DEVICES = "openrgb_devices";
+    public static final String KEY_SERVER = "server";
+    public static final String KEY_DEVICE = "device";
+    public static final String KEY_MAPPING = "mapping";
+    public static final String KEY_TYPE = "type";
+    public static final String KEY_VALUE = "value";
+    public static final String KEY_COUNT = "count";
+    public static final String KEY_MATRIX = "matrix";
+    public static final String KEY_CALIBRATION = "calibration";
+    public static final String KEY_GAMMA = "gamma";
+    public static final String KEY_RED = "red";
+    public static final String KEY_GREEN = "green";
+    public static final String KEY_BLUE = "blue";
+    public static final String KEY_BRIGHTNESS = "brightness";
+    public static final String KEY_MAX_FPS = "max_fps";
+    public static final String KEY_FPS = "fps";
+    public static final String KEY_WEIGHT = "weight";
+    public static final String SETTING_SERVERS = OpenRgbPlugin.SETTING_PRE + "servers";
+    public static final String KEY_IP = "ip";
+    public static final String KEY_PORT = "port";
 
     /**
      * Load stored values from settings manager and parse data
@@ -45,11 +64,16 @@ public class StorageUtil {
 
             String name = jsonObj.get(KEY_NAME).getAsString();
             String outputId = jsonObj.get(KEY_OUTPUTID).getAsString();
-            Type listType = new TypeToken<List<Integer>>() {}.getType();
-            List<Integer> devices = gson.fromJson(jsonObj.get(KEY_ORGB_DEVICES), listType);
+            List<DeviceRef> devices = parseDevices(jsonObj.get(KEY_ORGB_DEVICES));
+            List<MappingRule> mapping = parseMapping(jsonObj.get(KEY_MAPPING));
+            // groups of older versions have no matrix flag
+            boolean matrix = jsonObj.has(KEY_MATRIX) && jsonObj.get(KEY_MATRIX).getAsBoolean();
+            List<DeviceCalibration> calibration = parseCalibration(jsonObj.get(KEY_CALIBRATION));
+            List<FrameRateLimit> frameRateLimits = parseFrameRateLimits(jsonObj.get(KEY_MAX_FPS));
+            int weight = jsonObj.has(KEY_WEIGHT) ? Math.max(1, jsonObj.get(KEY_WEIGHT).getAsInt()) : 1;
 
             // create ValueHolder
-            setValues.add(new ValueHolder(name, outputId, devices));
+            setValues.add(new ValueHolder(name, outputId, devices, mapping, matrix, calibration, frameRateLimits, weight));
         }
         return setValues;
     }
@@ -66,8 +90,49 @@ public class StorageUtil {
             // store data in json object
             jsonObj.addProperty(KEY_NAME, holder.getName());
             jsonObj.addProperty(KEY_OUTPUTID, holder.getOutputId());
-            Type listType = new TypeToken<List<Integer>>() {}.getType();
-            jsonObj.add(KEY_ORGB_DEVICES, gson.toJsonTree(holder.getDevices(), listType));
+            JsonArray jsonDevices = new JsonArray();
+            for(DeviceRef device : holder.getDevices()) {
+                JsonObject jsonDevice = new JsonObject();
+                jsonDevice.addProperty(KEY_SERVER, device.getServer());
+                jsonDevice.addProperty(KEY_DEVICE, device.getDevice());
+                jsonDevices.add(jsonDevice);
+            }
+            jsonObj.add(KEY_ORGB_DEVICES, jsonDevices);
+            JsonArray jsonMapping = new JsonArray();
+            for(MappingRule rule : holder.getMapping()) {
+                JsonObject jsonRule = new JsonObject();
+                jsonRule.addProperty(KEY_SERVER, rule.getDevice().getServer());
+                jsonRule.addProperty(KEY_DEVICE, rule.getDevice().getDevice());
+                jsonRule.addProperty(KEY_TYPE, rule.getType().name());
+                jsonRule.addProperty(KEY_VALUE, rule.getValue());
+                jsonRule.addProperty(KEY_COUNT, rule.getCount());
+                jsonMapping.add(jsonRule);
+            }
+            jsonObj.add(KEY_MAPPING, jsonMapping);
+            jsonObj.addProperty(KEY_MATRIX, holder.isMatrix());
+            JsonArray jsonCalibration = new JsonArray();
+            for(DeviceCalibration calibration : holder.getCalibration()) {
+                JsonObject jsonEntry = new JsonObject();
+                jsonEntry.addProperty(KEY_SERVER, calibration.getDevice().getServer());
+                jsonEntry.addProperty(KEY_DEVICE, calibration.getDevice().getDevice());
+                jsonEntry.addProperty(KEY_GAMMA, calibration.getGamma());
+                jsonEntry.addProperty(KEY_RED, calibration.getRed());
+                jsonEntry.addProperty(KEY_GREEN, calibration.getGreen());
+                jsonEntry.addProperty(KEY_BLUE, calibration.getBlue());
+                jsonEntry.addProperty(KEY_BRIGHTNESS, calibration.getBrightness());
+                jsonCalibration.add(jsonEntry);
+            }
+            jsonObj.add(KEY_CALIBRATION, jsonCalibration);
+            JsonArray jsonLimits = new JsonArray();
+            for(FrameRateLimit limit : holder.getFrameRateLimits()) {
+                JsonObject jsonLimit = new JsonObject();
+                jsonLimit.addProperty(KEY_SERVER, limit.getDevice().getServer());
+                jsonLimit.addProperty(KEY_DEVICE, limit.getDevice().getDevice());
+                jsonLimit.addProperty(KEY_FPS, limit.getMaxFps());
+                jsonLimits.add(jsonLimit);
+            }
+            jsonObj.add(KEY_MAX_FPS, jsonLimits);
+            jsonObj.addProperty(KEY_WEIGHT, holder.getWeight());
 
             // add to json root array
             jsonRoot.add(jsonObj);
@@ -80,4 +145,145 @@ public class StorageUtil {
         settingJson.setValue(jsonData);
     }
 
+    /**
+     * Parse the device list of an output group. Older versions stored plain device
+     * ids, which always refer to the first server.
+     * @param jsonDevices   json array of device ids or device objects, may be null
+     * @return              list of device references
+     */
+    private static List<DeviceRef> parseDevices(JsonElement jsonDevices) {
+        List<DeviceRef> devices = new ArrayList<>();
+        if(jsonDevices == null || !jsonDevices.isJsonArray())
+            return devices;
+        for(JsonElement element : jsonDevices.getAsJsonArray()) {
+            if(element.isJsonPrimitive()) {
+                // legacy format: device id of the first server
+                devices.add(DeviceRef.of(element.getAsInt()));
+            } else if(element.isJsonObject()) {
+                JsonObject jsonDevice = element.getAsJsonObject();
+                devices.add(new DeviceRef(jsonDevice.get(KEY_SERVER).getAsInt(), jsonDevice.get(KEY_DEVICE).getAsInt()));
+            }
+        }
+        return devices;
+    }
+
+    /**
+     * Parse the mapping rules of an output group. Groups of older versions have no rules,
+     * invalid rules are ignored.
+     * @param jsonMapping   json array of rule objects, may be null
+     * @return              list of mapping rules
+     */
+    private static List<MappingRule> parseMapping(JsonElement jsonMapping) {
+        List<MappingRule> mapping = new ArrayList<>();
+        if(jsonMapping == null || !jsonMapping.isJsonArray())
+            return mapping;
+        for(JsonElement element : jsonMapping.getAsJsonArray()) {
+            if(!element.isJsonObject())
+                continue;
+            JsonObject jsonRule = element.getAsJsonObject();
+            try {
+                mapping.add(new MappingRule(
+                        new DeviceRef(jsonRule.get(KEY_SERVER).getAsInt(), jsonRule.get(KEY_DEVICE).getAsInt()),
+                        MappingRule.Type.valueOf(jsonRule.get(KEY_TYPE).getAsString()),
+                        jsonRule.get(KEY_VALUE).getAsInt(),
+                        jsonRule.get(KEY_COUNT).getAsInt()));
+            } catch (RuntimeException e) {
+                OpenRgbPlugin.print("Ignoring invalid LED mapping rule " + jsonRule + ": " + e.getMessage());
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Parse the device calibrations of an output group. Groups of older versions have no
+     * calibration, invalid entries are ignored.
+     * @param jsonCalibration   json array of calibration objects, may be null
+     * @return                  list of device calibrations
+     */
+    private static List<DeviceCalibration> parseCalibration(JsonElement jsonCalibration) {
+        List<DeviceCalibration> calibration = new ArrayList<>();
+        if(jsonCalibration == null || !jsonCalibration.isJsonArray())
+            return calibration;
+        for(JsonElement element : jsonCalibration.getAsJsonArray()) {
+            if(!element.isJsonObject())
+                continue;
+            JsonObject jsonEntry = element.getAsJsonObject();
+            try {
+                calibration.add(new DeviceCalibration(
+                        new DeviceRef(jsonEntry.get(KEY_SERVER).getAsInt(), jsonEntry.get(KEY_DEVICE).getAsInt()),
+                        jsonEntry.get(KEY_GAMMA).getAsDouble(),
+                        jsonEntry.get(KEY_RED).getAsInt(),
+                        jsonEntry.get(KEY_GREEN).getAsInt(),
+                        jsonEntry.get(KEY_BLUE).getAsInt(),
+                        jsonEntry.get(KEY_BRIGHTNESS).getAsInt()));
+            } catch (RuntimeException e) {
+                OpenRgbPlugin.print("Ignoring invalid device calibration " + jsonEntry + ": " + e.getMessage());
+            }
+        }
+        return calibration;
+    }
+
+    /**
+     * Parse the frame rate limits of an output group. Groups of older versions have no
+     * limits, invalid entries are ignored.
+     * @param jsonLimits    json array of limit objects, may be null
+     * @return              list of frame rate limits
+     */
+    private static List<FrameRateLimit> parseFrameRateLimits(JsonElement jsonLimits) {
+        List<FrameRateLimit> limits = new ArrayList<>();
+        if(jsonLimits == null || !jsonLimits.isJsonArray())
+            return limits;
+        for(JsonElement element : jsonLimits.getAsJsonArray()) {
+            if(!element.isJsonObject())
+                continue;
+            JsonObject jsonLimit = element.getAsJsonObject();
+            try {
+                limits.add(new FrameRateLimit(
+                        new DeviceRef(jsonLimit.get(KEY_SERVER).getAsInt(), jsonLimit.get(KEY_DEVICE).getAsInt()),
+                        jsonLimit.get(KEY_FPS).getAsInt()));
+            } catch (RuntimeException e) {
+                OpenRgbPlugin.print("Ignoring invalid frame rate limit " + jsonLimit + ": " + e.getMessage());
+            }
+        }
+        return limits;
+    }
+
+    /**
+     * Load the additional servers from settings manager. The first server is
+     * stored in the ip and port settings.
+     * @param sm        settings manager to get the data from
+     * @return          addresses of the additional servers in the stored order
+     */
+    public static List<InetSocketAddress> loadServers(SettingsManager sm) {
+        List<InetSocketAddress> servers = new ArrayList<>();
+        SettingObject settingJson = sm.getSettingObject(SETTING_SERVERS);
+        if(settingJson == null || !(settingJson.getValue() instanceof String))
+            return servers; // return empty list when no data exists
+
+        Gson gson = new Gson();
+        JsonArray jsonRoot = gson.fromJson((String) settingJson.getValue(), JsonArray.class);
+        for(int i = 0; i < jsonRoot.size(); i++) {
+            JsonObject jsonObj = jsonRoot.get(i).getAsJsonObject();
+            servers.add(InetSocketAddress.createUnresolved(jsonObj.get(KEY_IP).getAsString(), jsonObj.get(KEY_PORT).getAsInt()));
+        }
+        return servers;
+    }
+
+    /**
+     * Store the additional servers in settings manager
+     * @param sm        settings manager to store the data in
+     * @param servers   addresses of the additional servers
+     */
+    public static void storeServers(SettingsManager sm, List<InetSocketAddress> servers) {
+        JsonArray jsonRoot = new JsonArray();
+        for(InetSocketAddress server : servers) {
+            JsonObject jsonObj = new JsonObject();
+            jsonObj.addProperty(KEY_IP, server.getHostString());
+            jsonObj.addProperty(KEY_PORT, server.getPort());
+            jsonRoot.add(jsonObj);
+        }
+        SettingObject settingJson = sm.addSetting(new SettingObject(SETTING_SERVERS, "OpenRGB Servers", null), false);
+        settingJson.setValue(new Gson().toJson(jsonRoot));
+    }
+
 }
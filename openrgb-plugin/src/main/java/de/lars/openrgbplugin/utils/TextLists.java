@@ -0,0 +1,49 @@
+package de.lars.openrgbplugin.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Text form of setting lists, e.g. mapping rules or calibrations, with the entries
+ * separated by semicolons
+ */
+public final class TextLists {
+
+    private TextLists() {
+    }
+
+    /**
+     * Parse a list of entries separated by semicolons
+     * @param text      list text, empty entries are ignored
+     * @param parser    function parsing a single entry
+     * @param <T>       type of the entries
+     * @return          parsed entries in the order of the text
+     * @throws IllegalArgumentException if the parser rejects an entry
+     */
+    public static <T> List<T> parseList(String text, Function<String, T> parser) {
+        List<T> items = new ArrayList<>();
+        if(text == null)
+            return items;
+        for(String item : text.split(";")) {
+            if(!item.trim().isEmpty())
+                items.add(parser.apply(item));
+        }
+        return items;
+    }
+
+    /**
+     * Create the text form of a list
+     * @param items     entries to format
+     * @return          entries separated by semicolons
+     */
+    public static String formatList(List<?> items) {
+        StringBuilder builder = new StringBuilder();
+        for(Object item : items) {
+            if(builder.length() > 0)
+                builder.append("; ");
+            builder.append(item);
+        }
+        return builder.toString();
+    }
+}
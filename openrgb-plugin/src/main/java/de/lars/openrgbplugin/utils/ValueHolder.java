@@ -7,15 +7,35 @@ public class ValueHolder {
 
     private String name;
     private String outputId;
-    private List<Integer> devices;
+    private List<DeviceRef> devices;
+    private List<MappingRule> mapping;
+    private boolean matrix;
+    private List<DeviceCalibration> calibration;
+    private List<FrameRateLimit> frameRateLimits;
+    private int weight;
 
-    public ValueHolder(String name, String outputId, List<Integer> devices) {
+    public ValueHolder(String name, String outputId, List<DeviceRef> devices, List<MappingRule> mapping, boolean matrix,
+                       List<DeviceCalibration> calibration, List<FrameRateLimit> frameRateLimits, int weight) {
         this.name = name;
         this.outputId = outputId;
         if(devices != null)
             this.devices = devices;
         else
             this.devices = new ArrayList<>();
+        if(mapping != null)
+            this.mapping = mapping;
+        else
+            this.mapping = new ArrayList<>();
+        this.matrix = matrix;
+        if(calibration != null)
+            this.calibration = calibration;
+        else
+            this.calibration = new ArrayList<>();
+        if(frameRateLimits != null)
+            this.frameRateLimits = frameRateLimits;
+        else
+            this.frameRateLimits = new ArrayList<>();
+        this.weight = weight;
     }
 
     public String getName() {
@@ -34,19 +54,59 @@ public class ValueHolder {
         this.outputId = outputId;
     }
 
-    public List<Integer> getDevices() {
+    public List<DeviceRef> getDevices() {
         return devices;
     }
 
-    public void setDevices(List<Integer> devices) {
+    public void setDevices(List<DeviceRef> devices) {
         this.devices = devices;
     }
 
-    public void addDevice(int deviceId) {
-        devices.add(deviceId);
+    public void addDevice(DeviceRef device) {
+        devices.add(device);
+    }
+
+    public void removeDevice(DeviceRef device) {
+        devices.remove(device);
+    }
+
+    public List<MappingRule> getMapping() {
+        return mapping;
+    }
+
+    public void setMapping(List<MappingRule> mapping) {
+        this.mapping = mapping;
+    }
+
+    public boolean isMatrix() {
+        return matrix;
+    }
+
+    public void setMatrix(boolean matrix) {
+        this.matrix = matrix;
+    }
+
+    public List<DeviceCalibration> getCalibration() {
+        return calibration;
+    }
+
+    public void setCalibration(List<DeviceCalibration> calibration) {
+        this.calibration = calibration;
+    }
+
+    public List<FrameRateLimit> getFrameRateLimits() {
+        return frameRateLimits;
+    }
+
+    public void setFrameRateLimits(List<FrameRateLimit> frameRateLimits) {
+        this.frameRateLimits = frameRateLimits;
+    }
+
+    public int getWeight() {
+        return weight;
     }
 
-    public void removeDevice(int deviceId) {
-        devices.remove(deviceId);
+    public void setWeight(int weight) {
+        this.weight = weight;
     }
 }
@@ -0,0 +1,105 @@
+package de.lars.openrgbwrapper;
+
+import de.lars.openrgbwrapper.network.protocol.LedFrame;
+import de.lars.openrgbwrapper.types.DeviceType;
+
+import java.util.Arrays;
+
+/**
+ * Decides which connection of a {@link ConnectionPool} sends the frames of a device.
+ */
+@FunctionalInterface
+public interface AssignmentPolicy {
+
+    /**
+     * Assign the devices of a topology to connections
+     * @param topology      current topology of the server
+     * @param connections   number of connections in the pool
+     * @return              connection index (0 to connections-1) for each device id
+     */
+    int[] assign(DeviceTopology topology, int connections);
+
+    /**
+     * Assigns the devices to the connections in the order of their device ids
+     */
+    AssignmentPolicy ROUND_ROBIN = (topology, connections) -> {
+        int[] assignment = new int[topology.getDeviceCount()];
+        for(int i = 0; i < assignment.length; i++)
+            assignment[i] = i % connections;
+        return assignment;
+    };
+
+    /**
+     * Assigns the largest devices first, each to the connection with the fewest bytes per frame
+     */
+    AssignmentPolicy BALANCED = (topology, connections) -> {
+        int count = topology.getDeviceCount();
+        // sort device ids by frame size, largest first
+        long[] order = new long[count];
+        for(int i = 0; i < count; i++)
+            order[i] = ((long) -LedFrame.ledsSize(topology.getDevice(i).getLedCount()) << 32) | i;
+        Arrays.sort(order);
+
+        int[] assignment = new int[count];
+        long[] load = new long[connections];
+        for(long entry : order) {
+            int deviceId = (int) entry;
+            int target = 0;
+            for(int c = 1; c < connections; c++) {
+                if(load[c] < load[target])
+                    target = c;
+            }
+            assignment[deviceId] = target;
+            load[target] += LedFrame.ledsSize(topology.getDevice(deviceId).getLedCount());
+        }
+        return assignment;
+    };
+
+    /**
+     * Sends all peripherals like keyboards and mice, which are usually slow USB devices,
+     * over the last connection and balances all other devices over the remaining ones
+     */
+    AssignmentPolicy ISOLATE_PERIPHERALS = (topology, connections) -> {
+        int count = topology.getDeviceCount();
+        int[] assignment = new int[count];
+        if(connections < 2)
+            return assignment;
+        // collect the other devices and balance them like a topology of their own
+        DeviceView[] others = new DeviceView[count];
+        int[] otherIds = new int[count];
+        int otherCount = 0;
+        for(int i = 0; i < count; i++) {
+            DeviceView device = topology.getDevice(i);
+            if(isPeripheral(device.getType())) {
+                assignment[i] = connections - 1;
+            } else {
+                others[otherCount] = device;
+                otherIds[otherCount++] = i;
+            }
+        }
+        DeviceTopology otherTopology = new DeviceTopology(topology.getVersion(), Arrays.copyOf(others, otherCount));
+        int[] otherAssignment = BALANCED.assign(otherTopology, connections - 1);
+        for(int i = 0; i < otherCount; i++)
+            assignment[otherIds[i]] = otherAssignment[i];
+        return assignment;
+    };
+
+    /**
+     * Check if a device type is a peripheral, see {@link #ISOLATE_PERIPHERALS}
+     * @param type          device type
+     * @return              true for keyboards, mice, mousemats and headsets
+     */
+    static boolean isPeripheral(DeviceType type) {
+        switch (type) {
+            case Keyboard:
+            case Mouse:
+            case Mousemat:
+            case Headset:
+            case HeadsetStand:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+package de.lars.openrgbwrapper;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Token bucket limiting the bytes and packets per second of led frames sent to a server.
+ * <p>The budget is shared by all connections of a server, including the pooled
+ * connections. The {@link FrameSender} of each connection takes a frame only while both
+ * buckets have tokens left and charges the frame when it is sent. A frame can take the
+ * buckets below zero, the following frames then wait until the debt is refilled, so the
+ * average rate stays within the budget. Frames that have to wait stay in the mailbox of
+ * the sender and are coalesced with newer frames of the same device.</p>
+ * <p>Frames are scheduled by start-time fair queuing over {@link Flow flows}, e.g. one flow
+ * per device group. All devices of a flow share its finish tag, and the budget keeps a single
+ * virtual clock for all connections. A frame is only taken if no other flow with an earlier
+ * start tag is waiting, so under saturation a flow with twice the weight gets twice the bytes,
+ * no matter how many devices it has or over which connections they are sent.</p>
+ */
+public class BandwidthBudget {
+
+    /** default time the buckets can save up tokens for */
+    public static final long DEFAULT_BURST_NANOS = 100_000_000L;
+    /** default weight of a flow */
+    public static final int DEFAULT_WEIGHT = 1;
+    /** time a sender waits before it asks again after a waiting flow was preferred */
+    private static final long RETRY_NANOS = 1_000_000L;
+    /** time a waiting flow is preferred after its sender wanted to ask again */
+    private static final long WAIT_MARGIN_NANOS = 5_000_000L;
+
+    private final long bytesPerSecond;
+    private final long packetsPerSecond;
+    private final double maxBytes;
+    private final double maxPackets;
+    private double bytes;
+    private double packets;
+    private long lastRefill;
+    /** virtual time of the fair scheduling, the latest start tag of a taken frame */
+    private double virtualTime;
+    /** scheduling state of the flows, flows that are no longer used are removed */
+    private final Map<Flow, FlowState> flows = new WeakHashMap<>();
+
+    /**
+     * Create a new budget that can save up tokens for {@link #DEFAULT_BURST_NANOS}
+     * @param bytesPerSecond    maximum bytes per second, 0 for no limit
+     * @param packetsPerSecond  maximum packets per second, 0 for no limit
+     */
+    public BandwidthBudget(long bytesPerSecond, long packetsPerSecond) {
+        this(bytesPerSecond, packetsPerSecond, DEFAULT_BURST_NANOS);
+    }
+
+    /**
+     * Create a new budget
+     * @param bytesPerSecond    maximum bytes per second, 0 for no limit
+     * @param packetsPerSecond  maximum packets per second, 0 for no limit
+     * @param burstNanos        time the buckets can save up tokens for while idle
+     */
+    public BandwidthBudget(long bytesPerSecond, long packetsPerSecond, long burstNanos) {
+        if(bytesPerSecond < 0 || packetsPerSecond < 0)
+            throw new IllegalArgumentException("Rates cannot be negative.");
+        if(burstNanos <= 0)
+            throw new IllegalArgumentException("Burst time must be greater than 0.");
+        this.bytesPerSecond = bytesPerSecond;
+        this.packetsPerSecond = packetsPerSecond;
+        // a burst always allows at least one packet
+        maxBytes = Math.max(1, bytesPerSecond * (burstNanos / 1e9));
+        maxPackets = Math.max(1, packetsPerSecond * (burstNanos / 1e9));
+        bytes = maxBytes;
+        packets = maxPackets;
+        lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Check if a frame can be sent now
+     * @param now           current {@link System#nanoTime()}
+     * @return              true if both buckets have tokens left
+     */
+    public synchronized boolean isAvailable(long now) {
+        refill(now);
+        return hasTokens();
+    }
+
+    private boolean hasTokens() {
+        return (bytesPerSecond == 0 || bytes > 0) && (packetsPerSecond == 0 || packets > 0);
+    }
+
+    /**
+     * Get the time until a frame can be sent
+     * @param now           current {@link System#nanoTime()}
+     * @return              nanoseconds until both buckets have tokens left, 0 if available now
+     */
+    public synchronized long nanosUntilAvailable(long now) {
+        refill(now);
+        long wait = 0;
+        if(bytesPerSecond > 0 && bytes <= 0)
+            wait = (long) Math.ceil((1 - bytes) * 1e9 / bytesPerSecond);
+        if(packetsPerSecond > 0 && packets <= 0)
+            wait = Math.max(wait, (long) Math.ceil((1 - packets) * 1e9 / packetsPerSecond));
+        return wait;
+    }
+
+    /**
+     * Get the virtual start time the next frame of a flow would get, used to order the
+     * frames of a sender
+     * @param flow          flow of the frame
+     * @return              virtual start time
+     */
+    public synchronized double getStartTag(Flow flow) {
+        return Math.max(state(flow).finishTag, virtualTime);
+    }
+
+    /**
+     * Take a frame of a flow if the buckets have tokens left and no other flow with an
+     * earlier start tag is waiting. The frame is charged with the estimated size, which is
+     * corrected by {@link #complete} after it was sent. If the frame is not taken, the flow
+     * is preferred by the other senders until {@link #nanosUntilRetry} has passed.
+     * @param flow          flow of the frame
+     * @param now           current {@link System#nanoTime()}
+     * @param estimatedBytes estimated size of the frame in bytes
+     * @return              true if the frame can be sent
+     */
+    public synchronized boolean tryTake(Flow flow, long now, int estimatedBytes) {
+        refill(now);
+        FlowState state = state(flow);
+        double startTag = Math.max(state.finishTag, virtualTime);
+        if(!hasTokens() || isOtherFlowWaiting(state, startTag, now)) {
+            // wait for the tokens, the other senders let this flow go first
+            state.waiting = true;
+            state.waitingUntil = now + nanosUntilRetry(now) + WAIT_MARGIN_NANOS;
+            return false;
+        }
+        state.waiting = false;
+        virtualTime = Math.max(virtualTime, startTag);
+        // further frames of the flow start after this one
+        state.finishTag = startTag + (double) estimatedBytes / flow.weight;
+        consume(estimatedBytes, 1);
+        return true;
+    }
+
+    private boolean isOtherFlowWaiting(FlowState state, double startTag, long now) {
+        for(FlowState other : flows.values()) {
+            if(other != state && other.waiting && other.waitingUntil - now > 0
+                    && Math.max(other.finishTag, virtualTime) < startTag)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the time until a sender should try again to take a frame that was not taken
+     * @param now           current {@link System#nanoTime()}
+     * @return              nanoseconds until the next attempt
+     */
+    public synchronized long nanosUntilRetry(long now) {
+        return Math.max(RETRY_NANOS, nanosUntilAvailable(now));
+    }
+
+    /**
+     * Replace the estimated cost of a taken frame by its actual packets
+     * @param flow          flow of the frame
+     * @param estimatedBytes size the frame was taken with
+     * @param sentBytes     bytes actually sent
+     * @param sentPackets   packets actually sent
+     */
+    public synchronized void complete(Flow flow, int estimatedBytes, int sentBytes, int sentPackets) {
+        consume(sentBytes - estimatedBytes, sentPackets - 1);
+        state(flow).finishTag += (double) (sentBytes - estimatedBytes) / flow.weight;
+    }
+
+    /**
+     * Take tokens from the buckets. Negative values return tokens, e.g. when a frame
+     * was smaller than estimated.
+     * @param bytes         number of bytes
+     * @param packets       number of packets
+     */
+    public synchronized void consume(long bytes, long packets) {
+        this.bytes = Math.min(maxBytes, this.bytes - bytes);
+        this.packets = Math.min(maxPackets, this.packets - packets);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if(elapsed <= 0) return;
+        lastRefill = now;
+        bytes = Math.min(maxBytes, bytes + bytesPerSecond * (elapsed / 1e9));
+        packets = Math.min(maxPackets, packets + packetsPerSecond * (elapsed / 1e9));
+    }
+
+    private FlowState state(Flow flow) {
+        FlowState state = flows.get(flow);
+        if(state == null) {
+            state = new FlowState();
+            flows.put(flow, state);
+        }
+        return state;
+    }
+
+    /**
+     * Get the maximum bytes per second
+     * @return              byte rate, 0 if not limited
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Get the maximum packets per second
+     * @return              packet rate, 0 if not limited
+     */
+    public long getPacketsPerSecond() {
+        return packetsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "BandwidthBudget{" +
+                "bytesPerSecond=" + bytesPerSecond +
+                ", packetsPerSecond=" + packetsPerSecond +
+                '}';
+    }
+
+    /**
+     * Frames scheduled together with one weight, e.g. all devices of a device group.
+     * A flow can be used with several budgets, e.g. by a group spanning several servers.
+     */
+    public static final class Flow {
+
+        private volatile int weight;
+
+        /**
+         * Create a new flow with the {@link #DEFAULT_WEIGHT default weight}
+         */
+        public Flow() {
+            this(DEFAULT_WEIGHT);
+        }
+
+        /**
+         * Create a new flow
+         * @param weight        weight, at least 1
+         */
+        public Flow(int weight) {
+            setWeight(weight);
+        }
+
+        /**
+         * Set the weight of the flow. Under saturation a flow gets a share of the bytes
+         * proportional to its weight.
+         * @param weight        weight, at least 1
+         */
+        public void setWeight(int weight) {
+            if(weight < 1)
+                throw new IllegalArgumentException("Weight must be at least 1.");
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Scheduling state of a flow within this budget
+     */
+    private static final class FlowState {
+        /** virtual finish time of the last taken frame */
+        double finishTag;
+        /** true if a frame of the flow was not taken */
+        boolean waiting;
+        /** {@link System#nanoTime()} until the waiting flow is preferred, a sender that
+         * stopped asking does not hold back the other flows */
+        long waitingUntil;
+    }
+}
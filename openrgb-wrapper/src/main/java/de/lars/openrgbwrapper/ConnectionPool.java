@@ -0,0 +1,158 @@
+package de.lars.openrgbwrapper;
+
+import de.lars.openrgbwrapper.network.Client;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Several connections to the same OpenRGB server used to send led frames.
+ * <p>The server handles every client connection on its own thread, so all updates
+ * sent over one connection are applied one after another, and a slow controller
+ * delays all other devices. The pool assigns each device to one of its connections
+ * using an {@link AssignmentPolicy}. Every connection has its own
+ * {@link FrameSender}, so frames of devices on different connections are written
+ * and applied concurrently.</p>
+ * <p>The first connection is the {@link OpenRGB} instance the pool belongs to, it is
+ * also used for all requests. The other connections only send led frames. They are
+ * opened and closed together with the first connection, and losing any of them
+ * closes the whole pool.</p>
+ */
+public class ConnectionPool {
+
+    private final OpenRGB primary;
+    /** all connections of the pool, the first one is the primary connection */
+    private final OpenRGB[] connections;
+    private volatile AssignmentPolicy policy = AssignmentPolicy.ROUND_ROBIN;
+    /** topology the current assignment was created for */
+    private DeviceTopology assignedTopology;
+    /** connection index by device id */
+    private int[] assignment = new int[0];
+
+    /**
+     * Create a new connection pool. Set it with {@link OpenRGB#setConnectionPool(ConnectionPool)}.
+     * @param primary       connection the pool belongs to
+     * @param size          total number of connections including the primary connection
+     * @param clientFactory creates the clients of the additional connections, hostname
+     *                      and port are taken from the primary connection when connecting
+     */
+    public ConnectionPool(OpenRGB primary, int size, Supplier<Client> clientFactory) {
+        if(primary == null)
+            throw new IllegalArgumentException("Primary connection cannot be null!");
+        if(size < 1)
+            throw new IllegalArgumentException("Pool size must be at least 1.");
+        this.primary = primary;
+        connections = new OpenRGB[size];
+        connections[0] = primary;
+        for(int i = 1; i < size; i++)
+            connections[i] = new OpenRGB(clientFactory.get(), primary.getClientName() + " #" + (i + 1), primary);
+    }
+
+    /**
+     * Open the additional connections. Devices assigned to a connection that could
+     * not be opened are sent over the primary connection.
+     */
+    void connect() {
+        Client client = primary.getClient();
+        for(int i = 1; i < connections.length; i++) {
+            OpenRGB connection = connections[i];
+            // use the same server and options as the primary connection
+            Client pooled = connection.getClient();
+            pooled.setConnectionOptions(client.getHostname(), client.getPort());
+            pooled.setConnectionTimeout(client.getConnectionTimeout());
+            pooled.setTcpNoDelay(client.isTcpNoDelay());
+            pooled.setSendBufferSize(client.getSendBufferSize());
+            try {
+                connection.connect();
+            } catch (IOException e) {
+                System.err.println("Could not open pooled connection " + (i + 1) + " to the OpenRGB SDK server: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Close the additional connections
+     * @param waitForSenders    true to wait for a running batch of the frame senders
+     */
+    void disconnect(boolean waitForSenders) {
+        for(int i = 1; i < connections.length; i++) {
+            try {
+                connections[i].disconnect(waitForSenders);
+            } catch (IOException e) {
+                System.err.println("Error while closing pooled connection " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the connection that sends the frames of a device
+     * @param deviceId      device id
+     * @return              assigned connection or the primary connection if the
+     *                      assigned connection is not open
+     */
+    public OpenRGB getConnectionForDevice(int deviceId) {
+        int[] assignment = getAssignment();
+        int index = deviceId >= 0 && deviceId < assignment.length ? assignment[deviceId] : 0;
+        OpenRGB connection = connections[index];
+        return connection.isConnected() ? connection : primary;
+    }
+
+    /**
+     * Get the assignment for the current topology, created again if the topology changed
+     */
+    private synchronized int[] getAssignment() {
+        DeviceTopology topology = primary.getTopologyCache().get();
+        if(topology != assignedTopology) {
+            assignedTopology = topology;
+            assignment = topology != null ? policy.assign(topology, connections.length) : new int[0];
+        }
+        return assignment;
+    }
+
+    /**
+     * Set the policy that assigns the devices to the connections
+     * @param policy        assignment policy (default: {@link AssignmentPolicy#ROUND_ROBIN})
+     */
+    public synchronized void setPolicy(AssignmentPolicy policy) {
+        if(policy == null)
+            throw new IllegalArgumentException("Policy cannot be null!");
+        this.policy = policy;
+        // create the assignment again on the next lookup
+        assignedTopology = null;
+    }
+
+    public AssignmentPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Get the number of connections
+     * @return              pool size including the primary connection
+     */
+    public int getSize() {
+        return connections.length;
+    }
+
+    /**
+     * Get a connection of the pool
+     * @param index         index of the connection, 0 is the primary connection
+     * @return              connection
+     */
+    public OpenRGB getConnection(int index) {
+        return connections[index];
+    }
+
+    /**
+     * Get the number of open connections
+     * @return              open connections including the primary connection
+     */
+    public int getConnectedCount() {
+        int count = 0;
+        for(OpenRGB connection : connections) {
+            if(connection.isConnected())
+                count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,138 @@
+package de.lars.openrgbwrapper;
+
+import de.lars.openrgbwrapper.utils.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Output statistics of one {@link OpenRGB} connection.
+ * <p>All counters are striped ({@link LongAdder}) or lock-free histograms, so recording
+ * from the sender thread costs a few nanoseconds and never blocks. Reading the
+ * values sums the stripes and is only meant for monitoring.</p>
+ */
+public class ConnectionStats {
+
+    private final LongAdder packetsSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    /** true after the first connect, kept when the statistics are reset */
+    private volatile boolean connectedBefore;
+    private final LongAdder connectionLosses = new LongAdder();
+    /** time from the start of a frame batch until it is handed to the socket */
+    private final LatencyHistogram encodeTime = new LatencyHistogram();
+    /** duration of the blocking socket writes */
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    void recordWrite(int packets, long bytes, long nanos) {
+        packetsSent.add(packets);
+        bytesSent.add(bytes);
+        writes.increment();
+        writeLatency.record(nanos);
+    }
+
+    void recordWriteError() {
+        writeErrors.increment();
+    }
+
+    void recordEncode(long nanos) {
+        encodeTime.record(nanos);
+    }
+
+    void recordConnect() {
+        connects.increment();
+        // every connect after the first one is a reconnect
+        if(connectedBefore)
+            reconnects.increment();
+        connectedBefore = true;
+    }
+
+    void recordConnectionLost() {
+        connectionLosses.increment();
+    }
+
+    /**
+     * Get the number of packets written to the socket
+     * @return          total packets
+     */
+    public long getPacketsSent() {
+        return packetsSent.sum();
+    }
+
+    /**
+     * Get the number of bytes written to the socket including the packet headers
+     * @return          total bytes
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * Get the number of socket writes, a batch of packets is sent with a single write
+     * @return          total writes
+     */
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getWriteErrors() {
+        return writeErrors.sum();
+    }
+
+    /**
+     * Get the number of successful connects
+     * @return          total connects
+     */
+    public long getConnects() {
+        return connects.sum();
+    }
+
+    /**
+     * Get the number of connects after the first connect
+     * @return          total reconnects
+     */
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * Get the number of connections that were closed because of an I/O error
+     * @return          total lost connections
+     */
+    public long getConnectionLosses() {
+        return connectionLosses.sum();
+    }
+
+    /**
+     * Get the time needed to compare and encode a batch of frames
+     * @return          histogram in nanoseconds
+     */
+    public LatencyHistogram getEncodeTime() {
+        return encodeTime;
+    }
+
+    /**
+     * Get the duration of the socket writes
+     * @return          histogram in nanoseconds
+     */
+    public LatencyHistogram getWriteLatency() {
+        return writeLatency;
+    }
+
+    /**
+     * Reset all counters and histograms
+     */
+    public void reset() {
+        packetsSent.reset();
+        bytesSent.reset();
+        writes.reset();
+        writeErrors.reset();
+        connects.reset();
+        reconnects.reset();
+        connectionLosses.reset();
+        encodeTime.reset();
+        writeLatency.reset();
+    }
+}
@@ -0,0 +1,60 @@
+package de.lars.openrgbwrapper;
+
+/**
+ * Immutable snapshot of all controllers of a server. The version is incremented
+ * every time the topology is fetched from the server again. Devices are kept as
+ * {@link DeviceView}s, use {@link DeviceView#toDevice()} to decode all fields.
+ */
+public class DeviceTopology {
+
+    private final long version;
+    private final DeviceView[] devices;
+
+    public DeviceTopology(long version, DeviceView[] devices) {
+        this.version = version;
+        this.devices = devices;
+    }
+
+    /**
+     * Get the version of this snapshot
+     * @return          version, higher values are newer
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the number of controllers
+     * @return          controller count
+     */
+    public int getDeviceCount() {
+        return devices.length;
+    }
+
+    /**
+     * Get the controller data for a device id
+     * @param deviceId  device id (starting at 0)
+     * @return          view of the device or null if the id is invalid
+     */
+    public DeviceView getDevice(int deviceId) {
+        if(deviceId < 0 || deviceId >= devices.length)
+            return null;
+        return devices[deviceId];
+    }
+
+    /**
+     * Get all controllers
+     * @return          copy of the device array
+     */
+    public DeviceView[] getDevices() {
+        return devices.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceTopology{" +
+                "version=" + version +
+                ", devices=" + devices.length +
+                '}';
+    }
+}
@@ -0,0 +1,330 @@
+package de.lars.openrgbwrapper;
+
+import de.lars.openrgbwrapper.models.ColorBuffer;
+import de.lars.openrgbwrapper.models.Led;
+import de.lars.openrgbwrapper.models.MatrixMap;
+import de.lars.openrgbwrapper.models.Mode;
+import de.lars.openrgbwrapper.models.Zone;
+import de.lars.openrgbwrapper.types.DeviceType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static de.lars.openrgbwrapper.utils.BufferUtil.getString;
+import static de.lars.openrgbwrapper.utils.BufferUtil.skipString;
+
+/**
+ * Read-only view of the controller data of a device.
+ * <p>Unlike {@link Device#decode(int, byte[])}, wrapping the received data only
+ * builds an index of offsets and the led count of each zone. Strings, modes, zones,
+ * leds and colors are decoded from the raw data on access, so a view is cheap to
+ * create for every device of a topology while the frame path only needs the counts.</p>
+ */
+public class DeviceView {
+
+    private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+    /** size of a mode without the name and colors */
+    private static final int MODE_FIELDS_SIZE = 9 * 4 + 2;
+    /** size of a zone without the name and matrix map */
+    private static final int ZONE_FIELDS_SIZE = 4 * 4 + 2;
+
+    private final int deviceId;
+    private final ByteBuffer buffer;
+    /** offsets of name, description, version, serial and location */
+    private final int[] stringOffsets;
+    private final int modeCount;
+    private final int activeMode;
+    private final int modesOffset;
+    private final int[] zoneOffsets;
+    private final int[] zoneLedCounts;
+    /** offset of the matrix map of each zone, -1 if the zone has no matrix map */
+    private final int[] matrixOffsets;
+    private final int ledCount;
+    private final int ledsOffset;
+    private final int colorCount;
+    private final int colorsOffset;
+    /** offsets of each led, built on first access */
+    private int[] ledOffsets;
+
+    private DeviceView(int deviceId, byte[] data) {
+        this.deviceId = deviceId;
+        buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int offset = 8; // data size and device type
+
+        stringOffsets = new int[5];
+        for(int i = 0; i < stringOffsets.length; i++) {
+            stringOffsets[i] = offset;
+            offset = skipString(buffer, offset);
+        }
+
+        modeCount = buffer.getShort(offset);
+        offset += 2;
+        activeMode = buffer.getInt(offset);
+        offset += 4;
+        modesOffset = offset;
+        for(int i = 0; i < modeCount; i++) {
+            offset = skipString(buffer, offset) + MODE_FIELDS_SIZE;
+            offset += buffer.getShort(offset - 2) * 4; // mode colors
+        }
+
+        int zoneCount = buffer.getShort(offset);
+        offset += 2;
+        zoneOffsets = new int[zoneCount];
+        zoneLedCounts = new int[zoneCount];
+        matrixOffsets = new int[zoneCount];
+        for(int i = 0; i < zoneCount; i++) {
+            zoneOffsets[i] = offset;
+            offset = skipString(buffer, offset);
+            zoneLedCounts[i] = buffer.getInt(offset + 12);
+            offset += ZONE_FIELDS_SIZE;
+            matrixOffsets[i] = -1;
+            if(buffer.getShort(offset - 2) != 0) {
+                matrixOffsets[i] = offset;
+                // matrix map: height, width and height * width values
+                offset += 8 + buffer.getInt(offset) * buffer.getInt(offset + 4) * 4;
+            }
+        }
+
+        ledCount = buffer.getShort(offset);
+        offset += 2;
+        ledsOffset = offset;
+        for(int i = 0; i < ledCount; i++)
+            offset = skipString(buffer, offset) + 4;
+
+        colorCount = buffer.getShort(offset);
+        offset += 2;
+        colorsOffset = offset;
+        if(colorsOffset + colorCount * 4 > data.length)
+            throw new IndexOutOfBoundsException("Controller data of device " + deviceId + " is truncated.");
+    }
+
+    /**
+     * Create a view over received controller data. The data array must not be modified afterwards.
+     * @param deviceId      device id (starting at 0)
+     * @param data          controller data as received from the server
+     * @return              view of the device
+     * @throws IndexOutOfBoundsException if the data is truncated
+     */
+    public static DeviceView wrap(int deviceId, byte[] data) {
+        return new DeviceView(deviceId, data);
+    }
+
+    /**
+     * Decode all fields into a {@link Device}
+     * @return          fully decoded device
+     */
+    public Device toDevice() {
+        return Device.decode(deviceId, buffer.array());
+    }
+
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    public DeviceType getType() {
+        int typeIndex = buffer.getInt(4);
+        if(typeIndex >= 0 && typeIndex < DEVICE_TYPES.length)
+            return DEVICE_TYPES[typeIndex];
+        return DeviceType.Unknown;
+    }
+
+    public String getName() {
+        return getString(buffer, stringOffsets[0]);
+    }
+
+    public String getDescription() {
+        return getString(buffer, stringOffsets[1]);
+    }
+
+    public String getVersion() {
+        return getString(buffer, stringOffsets[2]);
+    }
+
+    public String getSerial() {
+        return getString(buffer, stringOffsets[3]);
+    }
+
+    public String getLocation() {
+        return getString(buffer, stringOffsets[4]);
+    }
+
+    public int getActiveMode() {
+        return activeMode;
+    }
+
+    public int getModeCount() {
+        return modeCount;
+    }
+
+    /**
+     * Decode the modes of the device
+     * @return          new array of all modes
+     */
+    public Mode[] getModes() {
+        return Mode.Companion.decode(buffer.array(), modesOffset, modeCount).first;
+    }
+
+    public int getZoneCount() {
+        return zoneOffsets.length;
+    }
+
+    /**
+     * Get the number of leds of a zone without decoding the zone
+     * @param zoneId    zone index
+     * @return          led count of the zone
+     */
+    public int getZoneLedCount(int zoneId) {
+        return zoneLedCounts[zoneId];
+    }
+
+    /**
+     * Decode a single zone
+     * @param zoneId    zone index
+     * @return          decoded zone
+     */
+    public Zone getZone(int zoneId) {
+        return Zone.Companion.decode(buffer.array(), zoneOffsets[zoneId], 1).first[0];
+    }
+
+    /**
+     * Check if a zone has a matrix map
+     * @param zoneId    zone index
+     * @return          true if the leds of the zone are arranged in a matrix
+     */
+    public boolean hasMatrix(int zoneId) {
+        return matrixOffsets[zoneId] != -1;
+    }
+
+    /**
+     * Get the number of rows of the matrix map of a zone
+     * @param zoneId    zone index
+     * @return          matrix height or 0 if the zone has no matrix map
+     */
+    public int getMatrixHeight(int zoneId) {
+        return hasMatrix(zoneId) ? buffer.getInt(matrixOffsets[zoneId]) : 0;
+    }
+
+    /**
+     * Get the number of columns of the matrix map of a zone
+     * @param zoneId    zone index
+     * @return          matrix width or 0 if the zone has no matrix map
+     */
+    public int getMatrixWidth(int zoneId) {
+        return hasMatrix(zoneId) ? buffer.getInt(matrixOffsets[zoneId] + 4) : 0;
+    }
+
+    /**
+     * Read the matrix map of a zone into a flat lookup table without decoding the zone
+     * @param zoneId    zone index
+     * @return          led index within the zone for each cell in row-major order,
+     *                  {@link MatrixMap#NO_LED} for cells without led, or null if the
+     *                  zone has no matrix map
+     */
+    public int[] getMatrixLookupTable(int zoneId) {
+        if(!hasMatrix(zoneId))
+            return null;
+        int[] table = new int[getMatrixHeight(zoneId) * getMatrixWidth(zoneId)];
+        int offset = matrixOffsets[zoneId] + 8;
+        for(int i = 0; i < table.length; i++)
+            table[i] = buffer.getInt(offset + i * 4);
+        return table;
+    }
+
+    /**
+     * Decode the zones of the device
+     * @return          new array of all zones
+     */
+    public Zone[] getZones() {
+        if(zoneOffsets.length == 0)
+            return new Zone[0];
+        return Zone.Companion.decode(buffer.array(), zoneOffsets[0], zoneOffsets.length).first;
+    }
+
+    public int getLedCount() {
+        return ledCount;
+    }
+
+    /**
+     * Decode a single led
+     * @param ledId     led index
+     * @return          decoded led with its name and color
+     */
+    public Led getLed(int ledId) {
+        if(ledId < 0 || ledId >= ledCount)
+            throw new IndexOutOfBoundsException("Invalid led index " + ledId + " for " + ledCount + " leds.");
+        return Led.Companion.decode(buffer.array(), getLedOffsets()[ledId], (short) 1).first[0];
+    }
+
+    /**
+     * Decode the leds of the device
+     * @return          new array of all leds
+     */
+    public Led[] getLeds() {
+        return Led.Companion.decode(buffer.array(), ledsOffset, (short) ledCount).first;
+    }
+
+    public int getColorCount() {
+        return colorCount;
+    }
+
+    /**
+     * Get the current color of a led
+     * @param index     color index
+     * @return          color packed as {@code 0xRRGGBB}
+     */
+    public int getColor(int index) {
+        if(index < 0 || index >= colorCount)
+            throw new IndexOutOfBoundsException("Invalid color index " + index + " for " + colorCount + " colors.");
+        int offset = colorsOffset + index * 4;
+        return (buffer.get(offset) & 0xFF) << 16 | (buffer.get(offset + 1) & 0xFF) << 8 | buffer.get(offset + 2) & 0xFF;
+    }
+
+    /**
+     * Decode the current colors of all leds
+     * @return          new buffer with all colors
+     */
+    public ColorBuffer getColors() {
+        return ColorBuffer.decode(buffer.array(), colorsOffset, colorCount).first;
+    }
+
+    /**
+     * Decode the current colors of all leds into an existing buffer
+     * @param dest      destination buffer
+     * @param offset    index of the first color in the destination buffer
+     */
+    public void getColors(ColorBuffer dest, int offset) {
+        ColorBuffer.decodeInto(buffer.array(), colorsOffset, dest, offset, colorCount);
+    }
+
+    /**
+     * Led count of each zone. The array is shared and must not be modified.
+     */
+    int[] zoneLedCounts() {
+        return zoneLedCounts;
+    }
+
+    private synchronized int[] getLedOffsets() {
+        if(ledOffsets == null) {
+            int[] offsets = new int[ledCount];
+            int offset = ledsOffset;
+            for(int i = 0; i < ledCount; i++) {
+                offsets[i] = offset;
+                offset = skipString(buffer, offset) + 4;
+            }
+            ledOffsets = offsets;
+        }
+        return ledOffsets;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceView{" +
+                "deviceId=" + deviceId +
+                ", type=" + getType() +
+                ", name='" + getName() + '\'' +
+                ", zones=" + zoneOffsets.length +
+                ", leds=" + ledCount +
+                '}';
+    }
+}
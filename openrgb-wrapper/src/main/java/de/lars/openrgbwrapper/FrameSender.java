@@ -0,0 +1,848 @@
+package de.lars.openrgbwrapper;
+
+import de.lars.openrgbwrapper.models.ColorBuffer;
+import de.lars.openrgbwrapper.models.Zone;
+import de.lars.openrgbwrapper.network.protocol.LedFrame;
+import de.lars.openrgbwrapper.types.DeviceType;
+import de.lars.openrgbwrapper.utils.ColorCalibration;
+
+import java.util.Arrays;
+
+/**
+ * Asynchronous sender of led frames for one {@link OpenRGB} connection.
+ * <p>Submitted frames are copied into a mailbox that keeps only the newest frame
+ * per device. A dedicated thread takes all pending frames and sends them in a
+ * single batch, so the submitting (render) thread never blocks on socket I/O.
+ * A frame that is replaced before it was sent is dropped and counted.</p>
+ * <p>The sender remembers the last colors sent to each device and only transmits
+ * what changed. For every frame the cheapest encoding by bytes on the wire is chosen:
+ * a full {@code UPDATELEDS} packet, {@code UPDATEZONELEDS} packets for the changed
+ * zones or {@code UPDATESINGLELED} packets for the changed leds. Unchanged frames are
+ * skipped entirely.</p>
+ * <p>A {@link ColorCalibration} submitted with the colors is applied while the frame is
+ * encoded. Changes are detected on the uncalibrated colors, a new calibration causes the
+ * next frame of the device to be sent completely.</p>
+ * <p>Each device can have a maximum frame rate. A frame of a device that was sent
+ * too recently stays in the mailbox until the device is due, newer frames replace it
+ * and are counted as decimated. Other devices are not held back, so slow controllers
+ * only receive fewer frames instead of delaying the whole connection.</p>
+ * <p>If the server has a {@link BandwidthBudget}, frames are only taken while the budget
+ * has tokens left. Each device belongs to a {@link BandwidthBudget.Flow flow}, by default
+ * a flow of its own, see {@link #setFlow}. The due devices are ordered by the virtual start
+ * time of their flow and the budget decides which flows go first, so the flows share the
+ * budget by their weight across all connections of the server. The frames of the other
+ * devices wait and are coalesced with newer frames.</p>
+ */
+public class FrameSender {
+
+    /** default maximum frame rate of keyboards, mice and other USB peripherals */
+    public static final int DEFAULT_PERIPHERAL_MAX_FPS = 30;
+    /** default maximum frame rate of memory modules, which are controlled over SMBus */
+    public static final int DEFAULT_DRAM_MAX_FPS = 20;
+
+    private final OpenRGB openRGB;
+    /** mailbox slots indexed by device id */
+    private Slot[] slots = new Slot[0];
+    /** slots with a pending frame in submission order */
+    private Slot[] pendingSlots = new Slot[8];
+    private int pendingCount = 0;
+    /** time the first held back frame is due, only valid while a frame is held back */
+    private long nextDue;
+    /** virtual start time of each due slot while ordering them, only used by the sender thread */
+    private double[] startTags = new double[8];
+    /** budget the taken frames were charged to, only used by the sender thread */
+    private BandwidthBudget takenBudget;
+    /** bytes and packets queued for the slot that is sent, only used by the sender thread */
+    private int slotBytes;
+    private int slotPackets;
+    private final Object mailboxLock = new Object();
+
+    /** current sender thread, a replaced thread terminates after its batch */
+    private volatile Thread thread;
+
+    private long submittedFrames = 0;
+    private long droppedFrames = 0;
+    private long decimatedFrames = 0;
+    private long coalescedFrames = 0;
+    private volatile long sentFrames = 0;
+    private volatile long skippedFrames = 0;
+    private volatile long fullUpdates = 0;
+    private volatile long zoneUpdates = 0;
+    private volatile long singleLedUpdates = 0;
+
+    /**
+     * Create a new frame sender. The sender thread is started on the first submit.
+     * @param openRGB       connection used to send the frames
+     */
+    public FrameSender(OpenRGB openRGB) {
+        this.openRGB = openRGB;
+    }
+
+    /**
+     * Submit new colors for a device. The colors are copied, so the array can be reused
+     * by the caller immediately. A pending frame of the same device that was not sent yet
+     * is replaced and counted as dropped.
+     * @param deviceId          target device
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @param length            number of colors (must match the led count)
+     */
+    public void submit(int deviceId, int[] packedRgb, int offset, int length) {
+        submit(deviceId, null, packedRgb, offset, length);
+    }
+
+    /**
+     * Submit new colors for a device and use the zones of the device to send only changed zones.
+     * @param device            target device
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @see #submit(int, Zone[], int[], int, int)
+     */
+    public void submit(Device device, int[] packedRgb, int offset) {
+        submit(device.deviceId, device.zones, packedRgb, offset, device.leds.length);
+    }
+
+    /**
+     * Submit new colors for a device and use the zones of the device view to send only changed zones.
+     * @param device            target device
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @see #submit(int, Zone[], int[], int, int)
+     */
+    public void submit(DeviceView device, int[] packedRgb, int offset) {
+        submit(device, packedRgb, offset, null);
+    }
+
+    /**
+     * Submit new colors for a device and apply a calibration when the frame is encoded.
+     * @param device            target device
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color of the device in the array
+     * @param calibration       lookup tables of the device, null to send the colors unchanged
+     * @see #submit(DeviceView, int[], int)
+     */
+    public void submit(DeviceView device, int[] packedRgb, int offset, ColorCalibration calibration) {
+        submit(device.getDeviceId(), null, device.zoneLedCounts(), packedRgb, offset, device.getLedCount(), calibration);
+    }
+
+    /**
+     * Submit new colors for a device and use the zones of the device view to send only changed zones.
+     * @param device            target device
+     * @param colors            colors of all leds
+     * @param offset            index of the first color of the device in the buffer
+     * @see #submit(DeviceView, int[], int)
+     */
+    public void submit(DeviceView device, ColorBuffer colors, int offset) {
+        submit(device, colors.getArray(), offset);
+    }
+
+    /**
+     * Submit new colors for a device with a known zone layout. The colors are copied, so the
+     * array can be reused by the caller immediately. A pending frame of the same device that
+     * was not sent yet is replaced and counted as dropped.
+     * @param deviceId          target device
+     * @param zones             zones of the device used for partial updates, null if unknown
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @param length            number of colors (must match the led count)
+     */
+    public void submit(int deviceId, Zone[] zones, int[] packedRgb, int offset, int length) {
+        submit(deviceId, zones, null, packedRgb, offset, length, null);
+    }
+
+    private void submit(int deviceId, Zone[] zones, int[] zoneLedCounts, int[] packedRgb, int offset, int length,
+                        ColorCalibration calibration) {
+        if(deviceId < 0)
+            throw new IllegalArgumentException("Invalid device id " + deviceId);
+        if(offset < 0 || length < 0 || offset + length > packedRgb.length)
+            throw new IndexOutOfBoundsException("Invalid range (offset " + offset + ", length " + length
+                    + ") for color array of length " + packedRgb.length + ".");
+        synchronized (mailboxLock) {
+            Slot slot = getSlot(deviceId);
+            if(zoneLedCounts != null)
+                slot.setLayout(zoneLedCounts, zoneLedCounts);
+            else
+                slot.setZones(zones);
+            if(slot.pending.length < length)
+                slot.pending = new int[length];
+            System.arraycopy(packedRgb, offset, slot.pending, 0, length);
+            slot.pendingLength = length;
+            slot.calibration = calibration;
+            submittedFrames++;
+
+            if(slot.dirty) {
+                // previous frame was never sent
+                if(slot.heldBack) {
+                    slot.decimatedFrames++;
+                    decimatedFrames++;
+                } else if(slot.deferred) {
+                    slot.coalescedFrames++;
+                    coalescedFrames++;
+                } else {
+                    slot.droppedFrames++;
+                    droppedFrames++;
+                }
+            } else {
+                slot.dirty = true;
+                if(pendingCount == pendingSlots.length)
+                    pendingSlots = Arrays.copyOf(pendingSlots, pendingCount * 2);
+                pendingSlots[pendingCount++] = slot;
+                mailboxLock.notifyAll();
+            }
+        }
+        if(thread == null)
+            start();
+    }
+
+    /**
+     * Start the sender thread. Has no effect if the thread is already running.
+     */
+    public synchronized void start() {
+        if(thread != null) return;
+        Thread sender = new Thread(this::run, "OpenRGB Frame Sender");
+        sender.setDaemon(true);
+        thread = sender;
+        sender.start();
+    }
+
+    /**
+     * Stop the sender thread and discard all pending frames. Waits up to one
+     * second for a running batch to finish.
+     */
+    public void stop() {
+        stop(true);
+    }
+
+    /**
+     * Stop the sender thread and discard all pending frames
+     * @param wait          true to wait up to one second for a running batch to finish, false
+     *                      to only signal the thread, e.g. when a write error closes the connection
+     *                      on a thread that may hold the frame lock the sender waits for
+     */
+    synchronized void stop(boolean wait) {
+        Thread sender = thread;
+        if(sender == null) return;
+        // the old thread stops after its batch even if a new one is started meanwhile
+        thread = null;
+        synchronized (mailboxLock) {
+            for(int i = 0; i < pendingCount; i++) {
+                pendingSlots[i].dirty = false;
+                pendingSlots[i].heldBack = false;
+                pendingSlots[i].deferred = false;
+                pendingSlots[i] = null;
+            }
+            pendingCount = 0;
+            mailboxLock.notifyAll();
+        }
+        // the state of the devices is unknown after reconnecting
+        invalidate();
+        if(wait && sender != Thread.currentThread()) {
+            try {
+                sender.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Check if the sender thread is running
+     * @return          true if the sender thread is active
+     */
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    private void run() {
+        Thread current = Thread.currentThread();
+        // slots taken from the mailbox, only accessed by this thread
+        Slot[] sendingSlots = new Slot[8];
+        try {
+            while(thread == current) {
+                int count;
+                synchronized (mailboxLock) {
+                    while(true) {
+                        while(thread == current && pendingCount == 0)
+                            mailboxLock.wait();
+                        if(thread != current) return;
+                        if(sendingSlots.length < pendingCount)
+                            sendingSlots = new Slot[pendingSlots.length];
+                        count = takePending(sendingSlots, System.nanoTime());
+                        if(count > 0) break;
+                        // all pending frames are held back, wait until the first device is due
+                        long waitNanos = nextDue - System.nanoTime();
+                        if(waitNanos > 0)
+                            mailboxLock.wait(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                    }
+                }
+                sendSlots(sendingSlots, count);
+            }
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                // a new thread may have been started in the meantime
+                if(thread == current)
+                    thread = null;
+            }
+        }
+    }
+
+    /**
+     * Move the pending frames of devices that are due to the sending buffers. Frames of
+     * devices above their maximum frame rate stay pending, as well as frames that do not
+     * fit into the bandwidth budget. Must be called while holding the mailbox lock.
+     * @param sendingSlots  destination array for the taken slots
+     * @param now           current {@link System#nanoTime()}
+     * @return              number of taken slots
+     */
+    private int takePending(Slot[] sendingSlots, long now) {
+        int due = 0;
+        int kept = 0;
+        for(int i = 0; i < pendingCount; i++) {
+            Slot slot = pendingSlots[i];
+            pendingSlots[i] = null;
+            if(slot.minInterval > 0 && slot.nextSend - now > 0) {
+                // sent too recently, keep the frame in the mailbox
+                if(kept == 0 || slot.nextSend - nextDue < 0)
+                    nextDue = slot.nextSend;
+                slot.heldBack = true;
+                pendingSlots[kept++] = slot;
+                continue;
+            }
+            sendingSlots[due++] = slot;
+        }
+
+        BandwidthBudget budget = openRGB.getBandwidthBudget();
+        takenBudget = budget;
+        int count = due;
+        if(budget != null) {
+            // lowest virtual start time first, the number of devices is small
+            if(startTags.length < due)
+                startTags = new double[sendingSlots.length];
+            for(int i = 0; i < due; i++) {
+                Slot slot = sendingSlots[i];
+                double startTag = budget.getStartTag(slot.flow);
+                int j = i - 1;
+                while(j >= 0 && startTags[j] > startTag) {
+                    sendingSlots[j + 1] = sendingSlots[j];
+                    startTags[j + 1] = startTags[j];
+                    j--;
+                }
+                sendingSlots[j + 1] = slot;
+                startTags[j + 1] = startTag;
+            }
+            count = 0;
+            for(int i = 0; i < due; i++) {
+                Slot slot = sendingSlots[i];
+                // charge a full update, corrected by the actual size when the frame is sent
+                int estimatedBytes = LedFrame.ledsSize(slot.pendingLength);
+                if(!budget.tryTake(slot.flow, now, estimatedBytes)) {
+                    // budget exhausted or another flow goes first, newer frames of the device replace this one
+                    slot.deferred = true;
+                    pendingSlots[kept] = slot;
+                    long retry = now + budget.nanosUntilRetry(now);
+                    if(kept == 0 || retry - nextDue < 0)
+                        nextDue = retry;
+                    kept++;
+                    continue;
+                }
+                slot.chargedBytes = estimatedBytes;
+                sendingSlots[count++] = slot;
+            }
+        }
+
+        for(int i = 0; i < count; i++) {
+            Slot slot = sendingSlots[i];
+            if(slot.minInterval > 0) {
+                // keep the cadence unless the device was idle for more than one interval
+                long next = slot.nextSend + slot.minInterval;
+                slot.nextSend = next - now > 0 ? next : now + slot.minInterval;
+            }
+            slot.heldBack = false;
+            slot.deferred = false;
+            // swap buffers, the old sending buffer is reused for the next submit
+            int[] colors = slot.sending;
+            slot.sending = slot.pending;
+            slot.sendingLength = slot.pendingLength;
+            slot.pending = colors;
+            slot.sendingZoneCounts = slot.zoneLedCounts;
+            slot.sendingZoneChanged = slot.zoneChanged;
+            if(slot.sendingCalibration != slot.calibration) {
+                // the last sent colors were encoded with another calibration
+                slot.sendingCalibration = slot.calibration;
+                slot.invalidated = true;
+            }
+            slot.dirty = false;
+        }
+        pendingCount = kept;
+        return count;
+    }
+
+    /**
+     * Forget the last sent colors of all devices, so that the next frame of every
+     * device is sent completely.
+     */
+    public void invalidate() {
+        synchronized (mailboxLock) {
+            for(Slot slot : slots) {
+                if(slot != null)
+                    slot.invalidated = true;
+            }
+        }
+    }
+
+    private void sendSlots(Slot[] sendingSlots, int count) {
+        openRGB.beginBatch();
+        long start = System.nanoTime();
+        try {
+            BandwidthBudget budget = takenBudget;
+            for(int i = 0; i < count; i++) {
+                Slot slot = sendingSlots[i];
+                slotBytes = 0;
+                slotPackets = 0;
+                sendSlot(slot);
+                if(budget != null) {
+                    // replace the estimated cost by the actual packets of the frame
+                    budget.complete(slot.flow, slot.chargedBytes, slotBytes, slotPackets);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error while sending frames to the OpenRGB SDK server:");
+            e.printStackTrace();
+        } finally {
+            // the batch is written by the commit, so this is the compare and encode time only
+            openRGB.getStats().recordEncode(System.nanoTime() - start);
+            openRGB.commit();
+            // frames are counted as sent even if the client is disconnected in the meantime
+            sentFrames += count;
+        }
+    }
+
+    /**
+     * Compare the frame of the slot with the last sent colors and send the
+     * changes using the cheapest encoding.
+     */
+    private void sendSlot(Slot slot) {
+        final int length = slot.sendingLength;
+        final int[] colors = slot.sending;
+        final int[] last = slot.lastSent;
+
+        if(slot.invalidated || slot.lastSentLength != length) {
+            sendFull(slot);
+            return;
+        }
+
+        int[] zoneCounts = slot.sendingZoneCounts;
+        if(zoneCounts != null && sum(zoneCounts) != length)
+            zoneCounts = null; // zones do not match the frame
+        if(zoneCounts == null) {
+            // unknown zone layout, choose between full update and single leds
+            int changed = 0;
+            for(int i = 0; i < length; i++) {
+                if(colors[i] != last[i]) changed++;
+            }
+            if(changed == 0) {
+                skippedFrames++;
+            } else if(changed * LedFrame.SINGLE_LED_SIZE < LedFrame.ledsSize(length)) {
+                sendChangedLeds(slot, 0, length);
+                rememberSent(slot);
+            } else {
+                sendFull(slot);
+            }
+            return;
+        }
+
+        // count changed leds per zone and sum the cheapest cost of each zone
+        int[] zoneChanged = slot.sendingZoneChanged;
+        int partialCost = 0;
+        int changedTotal = 0;
+        int start = 0;
+        for(int z = 0; z < zoneCounts.length; z++) {
+            int end = start + zoneCounts[z];
+            int changed = 0;
+            for(int i = start; i < end; i++) {
+                if(colors[i] != last[i]) changed++;
+            }
+            zoneChanged[z] = changed;
+            changedTotal += changed;
+            if(changed > 0)
+                partialCost += Math.min(LedFrame.zoneSize(zoneCounts[z]), changed * LedFrame.SINGLE_LED_SIZE);
+            start = end;
+        }
+
+        if(changedTotal == 0) {
+            skippedFrames++;
+        } else if(partialCost >= LedFrame.ledsSize(length)) {
+            sendFull(slot);
+        } else {
+            start = 0;
+            for(int z = 0; z < zoneCounts.length; z++) {
+                int count = zoneCounts[z];
+                int changed = zoneChanged[z];
+                if(changed > 0) {
+                    if(LedFrame.zoneSize(count) <= changed * LedFrame.SINGLE_LED_SIZE) {
+                        openRGB.updateZone(slot.deviceId, z, colors, start, count, slot.sendingCalibration);
+                        slotBytes += LedFrame.zoneSize(count);
+                        slotPackets++;
+                        zoneUpdates++;
+                    } else {
+                        sendChangedLeds(slot, start, start + count);
+                    }
+                }
+                start += count;
+            }
+            rememberSent(slot);
+        }
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for(int value : values)
+            sum += value;
+        return sum;
+    }
+
+    private void sendFull(Slot slot) {
+        openRGB.updateLeds(slot.deviceId, slot.sending, 0, slot.sendingLength, slot.sendingCalibration);
+        slotBytes += LedFrame.ledsSize(slot.sendingLength);
+        slotPackets++;
+        fullUpdates++;
+        rememberSent(slot);
+    }
+
+    /**
+     * Send the changed leds of a range. The caller remembers the sent colors once
+     * all zones of the frame were compared.
+     */
+    private void sendChangedLeds(Slot slot, int start, int end) {
+        int[] colors = slot.sending;
+        int[] last = slot.lastSent;
+        for(int i = start; i < end; i++) {
+            if(colors[i] != last[i]) {
+                openRGB.updateSingleLed(slot.deviceId, i, colors[i], slot.sendingCalibration);
+                slotBytes += LedFrame.SINGLE_LED_SIZE;
+                slotPackets++;
+                singleLedUpdates++;
+            }
+        }
+    }
+
+    /**
+     * Copy the sending colors to the last sent colors of the slot
+     */
+    private void rememberSent(Slot slot) {
+        int length = slot.sendingLength;
+        if(slot.lastSent.length < length)
+            slot.lastSent = new int[length];
+        System.arraycopy(slot.sending, 0, slot.lastSent, 0, length);
+        slot.lastSentLength = length;
+        slot.invalidated = false;
+    }
+
+    /**
+     * Set the maximum frame rate of a device. Frames submitted faster are decimated,
+     * only the newest frame is sent when the device is due.
+     * @param deviceId      device id
+     * @param maxFps        maximum frames per second, 0 for no limit
+     */
+    public void setMaxFps(int deviceId, int maxFps) {
+        if(deviceId < 0)
+            throw new IllegalArgumentException("Invalid device id " + deviceId);
+        if(maxFps < 0)
+            throw new IllegalArgumentException("Maximum frame rate cannot be negative.");
+        synchronized (mailboxLock) {
+            Slot slot = getSlot(deviceId);
+            if(slot.maxFps == maxFps) return;
+            slot.maxFps = maxFps;
+            slot.minInterval = maxFps > 0 ? 1_000_000_000L / maxFps : 0;
+            slot.nextSend = System.nanoTime();
+            // a held back frame may be due now
+            mailboxLock.notifyAll();
+        }
+    }
+
+    /**
+     * Set the flow a device is scheduled in. Only used while the {@link BandwidthBudget}
+     * of the server is exhausted, the devices of a flow share the bytes of its weight,
+     * e.g. all devices of a device group.
+     * @param deviceId      device id
+     * @param flow          flow of the device, null for a flow of its own with the default weight
+     */
+    public void setFlow(int deviceId, BandwidthBudget.Flow flow) {
+        if(deviceId < 0)
+            throw new IllegalArgumentException("Invalid device id " + deviceId);
+        synchronized (mailboxLock) {
+            Slot slot = getSlot(deviceId);
+            slot.flow = flow != null ? flow : new BandwidthBudget.Flow();
+        }
+    }
+
+    /**
+     * Get the flow a device is scheduled in
+     * @param deviceId      device id
+     * @return              flow of the device, null if no frame was submitted for the device
+     */
+    public BandwidthBudget.Flow getFlow(int deviceId) {
+        synchronized (mailboxLock) {
+            if(deviceId < 0 || deviceId >= slots.length || slots[deviceId] == null)
+                return null;
+            return slots[deviceId].flow;
+        }
+    }
+
+    /**
+     * Get the maximum frame rate of a device
+     * @param deviceId      device id
+     * @return              maximum frames per second, 0 if there is no limit
+     */
+    public int getMaxFps(int deviceId) {
+        synchronized (mailboxLock) {
+            if(deviceId < 0 || deviceId >= slots.length || slots[deviceId] == null)
+                return 0;
+            return slots[deviceId].maxFps;
+        }
+    }
+
+    /**
+     * Get the default maximum frame rate for a type of device. Keyboards, mice and other
+     * USB peripherals as well as memory modules on the SMBus are often slower than
+     * the frame rate of RemoteLight, all other devices are not limited.
+     * @param type          device type
+     * @return              maximum frames per second, 0 for no limit
+     */
+    public static int getDefaultMaxFps(DeviceType type) {
+        if(type == null) return 0;
+        switch (type) {
+            case Dram:
+                return DEFAULT_DRAM_MAX_FPS;
+            case Keyboard:
+            case Mouse:
+            case Mousemat:
+            case Headset:
+            case HeadsetStand:
+                return DEFAULT_PERIPHERAL_MAX_FPS;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Get the mailbox slot of a device. Must be called while holding the mailbox lock.
+     */
+    private Slot getSlot(int deviceId) {
+        if(deviceId >= slots.length)
+            slots = Arrays.copyOf(slots, deviceId + 1);
+        Slot slot = slots[deviceId];
+        if(slot == null) {
+            slot = new Slot(deviceId);
+            slots[deviceId] = slot;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the number of frames submitted to the sender
+     * @return          total submitted frames
+     */
+    public long getSubmittedFrames() {
+        synchronized (mailboxLock) {
+            return submittedFrames;
+        }
+    }
+
+    /**
+     * Get the number of frames handed to the connection
+     * @return          total sent frames
+     */
+    public long getSentFrames() {
+        return sentFrames;
+    }
+
+    /**
+     * Get the number of stale frames that were replaced before they could be sent
+     * @return          total dropped frames
+     */
+    public long getDroppedFrames() {
+        synchronized (mailboxLock) {
+            return droppedFrames;
+        }
+    }
+
+    /**
+     * Get the number of frames that were replaced while the device was held back by
+     * its maximum frame rate
+     * @return          total decimated frames
+     */
+    public long getDecimatedFrames() {
+        synchronized (mailboxLock) {
+            return decimatedFrames;
+        }
+    }
+
+    /**
+     * Get the number of frames of a device that were replaced while the device was held
+     * back by its maximum frame rate
+     * @param deviceId      device id
+     * @return              decimated frames of the device
+     */
+    public long getDecimatedFrames(int deviceId) {
+        synchronized (mailboxLock) {
+            if(deviceId < 0 || deviceId >= slots.length || slots[deviceId] == null)
+                return 0;
+            return slots[deviceId].decimatedFrames;
+        }
+    }
+
+    /**
+     * Get the number of frames that were replaced while waiting for the bandwidth budget
+     * @return          total coalesced frames
+     */
+    public long getCoalescedFrames() {
+        synchronized (mailboxLock) {
+            return coalescedFrames;
+        }
+    }
+
+    /**
+     * Get the number of frames of a device that were replaced while waiting for the
+     * bandwidth budget
+     * @param deviceId      device id
+     * @return              coalesced frames of the device
+     */
+    public long getCoalescedFrames(int deviceId) {
+        synchronized (mailboxLock) {
+            if(deviceId < 0 || deviceId >= slots.length || slots[deviceId] == null)
+                return 0;
+            return slots[deviceId].coalescedFrames;
+        }
+    }
+
+    /**
+     * Get the number of frames that were not sent because no led changed
+     * @return          total skipped frames
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * Get the number of sent {@code UPDATELEDS} packets
+     * @return          total full device updates
+     */
+    public long getFullUpdates() {
+        return fullUpdates;
+    }
+
+    /**
+     * Get the number of sent {@code UPDATEZONELEDS} packets
+     * @return          total zone updates
+     */
+    public long getZoneUpdates() {
+        return zoneUpdates;
+    }
+
+    /**
+     * Get the number of sent {@code UPDATESINGLELED} packets
+     * @return          total single led updates
+     */
+    public long getSingleLedUpdates() {
+        return singleLedUpdates;
+    }
+
+    /**
+     * Get the number of stale frames of a device that were replaced before they could be sent
+     * @param deviceId      device id
+     * @return              dropped frames of the device
+     */
+    public long getDroppedFrames(int deviceId) {
+        synchronized (mailboxLock) {
+            if(deviceId < 0 || deviceId >= slots.length || slots[deviceId] == null)
+                return 0;
+            return slots[deviceId].droppedFrames;
+        }
+    }
+
+    /**
+     * Mailbox entry holding the newest pending frame of a device
+     */
+    private static class Slot {
+        final int deviceId;
+        /** newest submitted colors, guarded by the mailbox lock */
+        int[] pending = new int[0];
+        int pendingLength;
+        /** colors currently sent by the sender thread */
+        int[] sending = new int[0];
+        int sendingLength;
+        /** calibration of the newest submitted colors, guarded by the mailbox lock */
+        ColorCalibration calibration;
+        /** calibration of the colors currently sent, only used by the sender thread */
+        ColorCalibration sendingCalibration;
+        /** true if a pending frame was not taken by the sender thread yet */
+        boolean dirty;
+        long droppedFrames;
+        /** maximum frame rate, 0 if the device is not limited */
+        int maxFps;
+        /** minimum time between two frames in nanoseconds, 0 if the device is not limited */
+        long minInterval;
+        /** earliest {@link System#nanoTime()} the next frame can be sent */
+        long nextSend;
+        /** true if the pending frame is held back by the maximum frame rate */
+        boolean heldBack;
+        long decimatedFrames;
+        /** flow the device is scheduled in, guarded by the mailbox lock */
+        BandwidthBudget.Flow flow = new BandwidthBudget.Flow();
+        /** bytes charged to the budget when the frame was taken */
+        int chargedBytes;
+        /** true if the pending frame waits for the bandwidth budget */
+        boolean deferred;
+        long coalescedFrames;
+        /** colors of the last frame sent to the device */
+        int[] lastSent = new int[0];
+        int lastSentLength = -1;
+        /** true if the device state is unknown and the next frame must be sent completely */
+        volatile boolean invalidated = true;
+        /** zones or led counts the layout was created from, used to detect changes without comparing */
+        Object layout;
+        /** led count of each zone or null if unknown */
+        int[] zoneLedCounts;
+        /** changed leds per zone, only used by the sender thread */
+        int[] zoneChanged;
+        /** zone layout of the frame currently sent */
+        int[] sendingZoneCounts;
+        int[] sendingZoneChanged;
+
+        Slot(int deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        /**
+         * Update the zone layout if the zones changed. Must be called while holding the mailbox lock.
+         */
+        void setZones(Zone[] zones) {
+            if(layout == zones) return;
+            int[] counts = null;
+            if(zones != null) {
+                counts = new int[zones.length];
+                for(int i = 0; i < zones.length; i++)
+                    counts[i] = zones[i].getLedCount();
+            }
+            setLayout(zones, counts);
+        }
+
+        /**
+         * Update the zone layout if the source changed. Must be called while holding the mailbox lock.
+         * @param source        object the counts were taken from, compared by identity
+         * @param counts        led count of each zone, null if unknown
+         */
+        void setLayout(Object source, int[] counts) {
+            if(layout == source) return;
+            layout = source;
+            if(counts == null || counts.length == 0) {
+                zoneLedCounts = null;
+                return;
+            }
+            zoneLedCounts = counts;
+            zoneChanged = new int[counts.length];
+        }
+    }
+
+}
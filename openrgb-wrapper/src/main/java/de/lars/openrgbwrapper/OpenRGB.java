@@ -1,28 +1,92 @@
 package de.lars.openrgbwrapper;
 
 import de.lars.openrgbwrapper.models.Color;
+import de.lars.openrgbwrapper.models.ColorBuffer;
 import de.lars.openrgbwrapper.network.Client;
+import de.lars.openrgbwrapper.network.PacketDispatcher;
+import de.lars.openrgbwrapper.network.PacketListener;
+import de.lars.openrgbwrapper.network.Payload;
+import de.lars.openrgbwrapper.network.protocol.LedFrame;
 import de.lars.openrgbwrapper.network.protocol.Packet;
 import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+import de.lars.openrgbwrapper.utils.BufferPool;
+import de.lars.openrgbwrapper.utils.ColorCalibration;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class OpenRGB {
 
     /** the byte size of the header for a request */
-    public static final int HEADER_SIZE = 16;
+    public static final int HEADER_SIZE = Packet.HEADER_SIZE;
+    /** highest protocol version supported by this client */
+    public static final int CLIENT_PROTOCOL_VERSION = 1;
+    /** timeout in milliseconds for the protocol version reply, old servers do not reply at all */
+    private static final long PROTOCOL_VERSION_TIMEOUT = 1000;
+    /** scheduler for timeouts and periodic tasks shared by all instances */
+    private static ScheduledExecutorService scheduler;
     /** client name */
     private final String clientName;
     /** client used to communicate with the OpenRGB server */
     private final Client client;
     /** should connect, disconnect methods throw or catch exceptions */
     private boolean catchExceptionMode = false;
+    /** reusable update frames indexed by device id */
+    private LedFrame[] ledFrames = new LedFrame[0];
+    /** reusable zone update frames indexed by device id and zone id */
+    private LedFrame[][] zoneFrames = new LedFrame[0][];
+    /** frames queued for the current batch, also used for writing a single frame */
+    private ByteBuffer[] batchFrames = new ByteBuffer[16];
+    /** number of queued frames in the current batch */
+    private int batchSize = 0;
+    /** number of packets in the queued frames, single led packets are counted when sent */
+    private int batchPackets = 0;
+    /** buffer collecting single led packets, sent after the queued frames */
+    private ByteBuffer singleLedBuffer = ByteBuffer.allocate(LedFrame.SINGLE_LED_SIZE * 32).order(ByteOrder.LITTLE_ENDIAN);
+    /** guards the reusable frames while they are encoded and sent, held during a batch */
+    private final ReentrantLock frameLock = new ReentrantLock();
+    /** asynchronous sender for led frames */
+    private final FrameSender frameSender = new FrameSender(this);
+    /** reads incoming packets and routes replies to pending requests */
+    private final PacketDispatcher dispatcher;
+    /** packets no request was waiting for, returned by {@link #readMessage()} */
+    private final BlockingQueue<byte[]> unsolicitedPackets = new ArrayBlockingQueue<>(16);
+    /** timeout in milliseconds for the blocking request methods */
+    private long requestTimeout = 5000;
+    /** negotiated protocol version, -1 while unknown */
+    private volatile int protocolVersion = -1;
+    /** shared controller topology of this connection, null for pooled connections */
+    private final TopologyCache topologyCache;
+    /** output statistics of this connection */
+    private final ConnectionStats stats;
+    /** connection a pooled connection belongs to, null if this is no pooled connection */
+    private final OpenRGB parent;
+    /** additional connections used to send led frames, null if disabled */
+    private volatile ConnectionPool connectionPool;
+    /** called after the connection was lost unexpectedly */
+    private final List<Runnable> connectionLostListeners = new CopyOnWriteArrayList<>();
+    /** pool the buffers of packets that are encoded per call are leased from */
+    private volatile BufferPool bufferPool = BufferPool.getDefaultDirect();
+    /** limit of the led frames sent to the server, null if not limited */
+    private volatile BandwidthBudget bandwidthBudget;
 
     /**
      * Create a new OpenRGB instance to communicate with the OpenRGB server
@@ -31,9 +95,42 @@ public class OpenRGB {
      * @param clientName    client name
      */
     public OpenRGB(String hostname, int port, String clientName) {
+        this(new Client(hostname, port), clientName);
+    }
+
+    /**
+     * Create a new OpenRGB instance that uses the specified client implementation,
+     * e.g. a {@link de.lars.openrgbwrapper.network.ChannelClient}
+     * @param client        client used to communicate with the server
+     * @param clientName    client name
+     */
+    public OpenRGB(Client client, String clientName) {
+        this(client, clientName, null);
+    }
+
+    /**
+     * Create a new OpenRGB instance. Pooled connections share the statistics of
+     * their parent and do not load the topology.
+     * @param client        client used to communicate with the server
+     * @param clientName    client name
+     * @param parent        connection the pool belongs to or null
+     */
+    OpenRGB(Client client, String clientName, OpenRGB parent) {
+        if(client == null)
+            throw new IllegalArgumentException("Client cannot be null!");
         this.clientName = clientName;
-        // create new client instance
-        client = new Client(hostname, port);
+        this.client = client;
+        this.parent = parent;
+        this.stats = parent != null ? parent.stats : new ConnectionStats();
+        this.dispatcher = new PacketDispatcher(client, this::onConnectionLost);
+        // keep the latest unsolicited packets for readMessage()
+        dispatcher.addListener((packet, data) -> {
+            while(!unsolicitedPackets.offer(data))
+                unsolicitedPackets.poll();
+        });
+        // pooled connections use the topology of their parent, so a device list update
+        // notification does not make every connection of the pool fetch the topology
+        this.topologyCache = parent == null ? new TopologyCache(this) : null;
     }
 
     /**
@@ -73,8 +170,28 @@ public class OpenRGB {
         try {
             // connect client socket
             connected = client.connect();
+            // start reading replies
+            if(connected) {
+                // pooled connections are counted as part of their parent
+                if(parent == null)
+                    stats.recordConnect();
+                unsolicitedPackets.clear();
+                dispatcher.start();
+                // frames sent while disconnecting may not have reached the devices
+                frameSender.invalidate();
+            }
             // send client name
             sendMessage(PacketIdentifier.SET_CLIENT_NAME, (clientName+'\0').getBytes(StandardCharsets.US_ASCII), 0);
+            // negotiate protocol version and load the topology in the background
+            if(connected) {
+                CompletableFuture<Integer> version = negotiateProtocolVersion();
+                if(topologyCache != null)
+                    version.thenRun(topologyCache::start);
+                // open the pooled connections
+                ConnectionPool pool = connectionPool;
+                if(pool != null)
+                    pool.connect();
+            }
         } catch (IOException e) {
             if(!isCatchExceptionMode())
                 throw e;
@@ -91,7 +208,29 @@ public class OpenRGB {
      * @throws IOException  if an error occurs while closing the socket
      */
     public boolean disconnect() throws IOException {
+        return disconnect(true);
+    }
+
+    /**
+     * Close the connection
+     * @param waitForSender true to wait for a running batch of the frame senders,
+     *                      false if called because the connection was lost
+     * @return              true if the client was connected and could be closed
+     * @throws IOException  if an error occurs while closing the socket
+     */
+    boolean disconnect(boolean waitForSender) throws IOException {
         boolean disconnected = false;
+        // stop sender thread, it is restarted on the next submitted frame. The batch of a
+        // sender cannot finish while this thread holds the frame lock, so do not wait for it.
+        frameSender.stop(waitForSender && !frameLock.isHeldByCurrentThread());
+        ConnectionPool pool = connectionPool;
+        if(pool != null)
+            pool.disconnect(waitForSender);
+        // fail pending requests, the reader thread terminates when the socket is closed
+        dispatcher.stop();
+        if(topologyCache != null)
+            topologyCache.stop();
+        protocolVersion = -1;
         try {
             disconnected = client.disconnect();
         } catch (IOException e) {
@@ -122,37 +261,479 @@ public class OpenRGB {
         return client;
     }
 
+    /**
+     * Get the asynchronous frame sender of this connection. Frames submitted to
+     * the sender are sent by a dedicated thread, keeping only the newest frame per device.
+     * @return          frame sender of this connection
+     */
+    public FrameSender getFrameSender() {
+        return frameSender;
+    }
+
+    /**
+     * Get the frame sender that sends the frames of a device. Without a connection
+     * pool this is always the frame sender of this connection.
+     * @param deviceId  device id
+     * @return          frame sender of the connection the device is assigned to
+     * @see ConnectionPool#getConnectionForDevice(int)
+     */
+    public FrameSender getFrameSender(int deviceId) {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getConnectionForDevice(deviceId).getFrameSender() : frameSender;
+    }
+
+    /**
+     * Set additional connections used to send led frames. Can only be set while
+     * disconnected, the pooled connections are opened on the next connect.
+     * @param connectionPool    pool created for this instance or null to disable pooling
+     * @return                  false if the client is connected and the pool could not be set
+     */
+    public boolean setConnectionPool(ConnectionPool connectionPool) {
+        if(client.isConnected()) return false;
+        if(connectionPool != null && connectionPool.getConnection(0) != this)
+            throw new IllegalArgumentException("Connection pool was created for another instance.");
+        this.connectionPool = connectionPool;
+        return true;
+    }
+
+    /**
+     * Get the additional connections used to send led frames
+     * @return          connection pool or null if pooling is disabled
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Set the bytes and packets per second the frame senders of this server may use.
+     * The budget is shared by the pooled connections. While it is exhausted, the frames are
+     * scheduled by the {@link BandwidthBudget.Flow#setWeight weight} of their flow, e.g. of their
+     * device group (see {@link FrameSender#setFlow}), and the frames that have to wait are coalesced.
+     * @param bandwidthBudget   budget of the led frames, null to send without limit
+     */
+    public void setBandwidthBudget(BandwidthBudget bandwidthBudget) {
+        this.bandwidthBudget = bandwidthBudget;
+    }
+
+    /**
+     * Get the budget of the led frames sent to the server
+     * @return          budget of this server (of the parent for pooled connections), null if not limited
+     */
+    public BandwidthBudget getBandwidthBudget() {
+        return parent != null ? parent.getBandwidthBudget() : bandwidthBudget;
+    }
+
+    /**
+     * Get the shared controller topology of this connection. The topology is
+     * loaded after connecting and kept up to date automatically.
+     * @return          topology cache of this connection (of the parent for pooled connections)
+     */
+    public TopologyCache getTopologyCache() {
+        return parent != null ? parent.getTopologyCache() : topologyCache;
+    }
+
+    /**
+     * Get the output statistics of this connection
+     * @return          statistics, kept across reconnects
+     */
+    public ConnectionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Get the name sent to the server after connecting
+     * @return          client name
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * Get the protocol version negotiated with the server
+     * @return          protocol version, 0 for servers without version negotiation,
+     *                  -1 if not connected or not negotiated yet
+     */
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Send the client protocol version and wait for the version of the server.
+     * Servers that do not support the request do not reply, so protocol version 0
+     * is assumed after a short timeout.
+     * @return          future completed with the negotiated protocol version
+     */
+    private CompletableFuture<Integer> negotiateProtocolVersion() {
+        byte[] version = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(CLIENT_PROTOCOL_VERSION).array();
+        CompletableFuture<byte[]> reply = request(PacketIdentifier.REQUEST_PROTOCOL_VERSION, version, 0);
+        getScheduler().schedule(() -> {
+            if(!reply.isDone()) {
+                dispatcher.forget(PacketIdentifier.REQUEST_PROTOCOL_VERSION, 0, reply);
+                reply.complete(null);
+            }
+        }, PROTOCOL_VERSION_TIMEOUT, TimeUnit.MILLISECONDS);
+
+        return reply.handle((data, error) -> {
+            int serverVersion = 0;
+            if(data != null && data.length >= 4)
+                serverVersion = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            int negotiated = Math.min(CLIENT_PROTOCOL_VERSION, serverVersion);
+            if(error == null && client.isConnected())
+                protocolVersion = negotiated;
+            return negotiated;
+        });
+    }
+
+    /**
+     * Get the scheduler shared by all instances for timeouts and periodic tasks
+     * @return          scheduler with a single daemon thread
+     */
+    static synchronized ScheduledExecutorService getScheduler() {
+        if(scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "OpenRGB Scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // request timeouts are cancelled when the reply arrives, remove them from the queue
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    /**
+     * Set the timeout for the blocking request methods like {@link #getControllerCount()}
+     * @param timeout       timeout in milliseconds (default: 5000)
+     */
+    public void setRequestTimeout(long timeout) {
+        this.requestTimeout = timeout;
+    }
+
+    /**
+     * Get the timeout for the blocking request methods
+     * @return              timeout in milliseconds
+     */
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Set the maximum data length of a packet received from the server. A larger
+     * packet is treated as protocol error and closes the connection.
+     * @param maxPacketSize maximum data length in bytes (default: 16 MiB)
+     */
+    public void setMaxPacketSize(int maxPacketSize) {
+        dispatcher.setMaxPacketSize(maxPacketSize);
+    }
+
+    /**
+     * Get the maximum data length of a packet received from the server
+     * @return              maximum data length in bytes
+     */
+    public int getMaxPacketSize() {
+        return dispatcher.getMaxPacketSize();
+    }
+
+    /**
+     * Set the pool the buffers of sent packets are leased from. Led frames of the
+     * {@link #updateLeds(int, int[], int, int) packed color methods} are kept per device
+     * and do not use the pool.
+     * @param bufferPool    buffer pool (default: {@link BufferPool#getDefaultDirect()})
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        if(bufferPool == null)
+            throw new IllegalArgumentException("Buffer pool cannot be null!");
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Get the pool the buffers of sent packets are leased from
+     * @return              send buffer pool
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Get the pool the buffers of received packets are leased from
+     * @return              receive buffer pool
+     */
+    public BufferPool getReceiveBufferPool() {
+        return dispatcher.getBufferPool();
+    }
+
+    /**
+     * Add a listener for packets received from the server that are no reply to a request.
+     * The listener is called on the reader thread.
+     * @param listener      listener to add
+     */
+    public void addPacketListener(PacketListener listener) {
+        dispatcher.addListener(listener);
+    }
+
+    /**
+     * Remove a previously added packet listener
+     * @param listener      listener to remove
+     */
+    public void removePacketListener(PacketListener listener) {
+        dispatcher.removeListener(listener);
+    }
+
+    /**
+     * Add a listener that is called after the connection was lost because of a read
+     * or write error, e.g. to start reconnecting. It is not called by {@link #disconnect()}.
+     * The listener is called on the thread that detected the error.
+     * @param listener      listener to add
+     */
+    public void addConnectionLostListener(Runnable listener) {
+        connectionLostListeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added connection lost listener
+     * @param listener      listener to remove
+     */
+    public void removeConnectionLostListener(Runnable listener) {
+        connectionLostListeners.remove(listener);
+    }
+
+    /**
+     * Send a request and return a future that is completed with the data of the reply.
+     * The reply is matched by packet id and device id, so requests of multiple
+     * threads can be sent at the same time.
+     * @param identifier    request packet type, the reply is expected with the same type
+     * @param dataBuffer    data to send as byte array, set to null if not needed
+     * @param deviceId      target device id, set it to 0 if not needed for the request
+     * @return              future completed with the reply data, or completed exceptionally
+     *                      if the client is not connected, disconnects before the reply
+     *                      or the reply is not received within the request timeout
+     */
+    public CompletableFuture<byte[]> request(PacketIdentifier identifier, byte[] dataBuffer, int deviceId) {
+        CompletableFuture<byte[]> reply = dispatcher.expect(identifier, deviceId);
+        if(!reply.isDone()) {
+            expireAfterTimeout(identifier, deviceId, reply);
+            sendMessage(identifier, dataBuffer, deviceId);
+        }
+        return reply;
+    }
+
+    /**
+     * Forget a reply that is not received within the request timeout. Otherwise a lost
+     * reply would leave the future queued and the next reply of the same packet type and
+     * device would complete it instead of the future of the next request.
+     * @param identifier    packet type the future was registered for
+     * @param deviceId      device id the future was registered for
+     * @param reply         future to expire
+     */
+    private void expireAfterTimeout(PacketIdentifier identifier, int deviceId, CompletableFuture<?> reply) {
+        long timeout = requestTimeout;
+        ScheduledFuture<?> expiry = getScheduler().schedule(() -> {
+            if(!reply.isDone()) {
+                dispatcher.forget(identifier, deviceId, reply);
+                reply.completeExceptionally(new TimeoutException("No reply to " + identifier + " within " + timeout + " ms."));
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        // do not keep the task and the future until the timeout once the reply is received
+        reply.whenComplete((result, error) -> expiry.cancel(false));
+    }
+
+    /**
+     * Request the number of controllers asynchronously
+     * @return              future completed with the number of controllers
+     */
+    public CompletableFuture<Integer> getControllerCountAsync() {
+        return request(PacketIdentifier.REQUEST_CONTROLLER_COUNT, null, 0)
+                .thenApply(data -> ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).getInt());
+    }
+
+    /**
+     * Request the controller data for a given device id asynchronously
+     * @param deviceId      device id (starting at 0)
+     * @return              future completed with the controller data / device
+     */
+    public CompletableFuture<Device> getControllerDataAsync(int deviceId) {
+        return request(PacketIdentifier.REQUEST_CONTROLLER_DATA, null, deviceId)
+                .thenApply(data -> Device.decode(deviceId, data));
+    }
+
+    /**
+     * Request the controller data for multiple devices asynchronously. All requests are
+     * sent with a single write before the first reply is read, and each reply is
+     * decoded while the following replies are still received.
+     * @param deviceIds     device ids to request
+     * @return              future completed with the devices in the order of the ids
+     */
+    public CompletableFuture<Device[]> getControllerDataAsync(int[] deviceIds) {
+        // the decoder copies all fields, so it can read the pooled array directly
+        return requestControllerData(deviceIds, (id, payload) -> Device.decode(id, payload.array()), new Device[deviceIds.length]);
+    }
+
+    /**
+     * Request the controller data for multiple devices asynchronously and wrap each
+     * reply into a {@link DeviceView} instead of decoding it. The requests are pipelined,
+     * see {@link #getControllerDataAsync(int[])}.
+     * @param deviceIds     device ids to request
+     * @return              future completed with the device views in the order of the ids
+     */
+    public CompletableFuture<DeviceView[]> getControllerViewsAsync(int[] deviceIds) {
+        // views keep the array, so they get an exact copy of the pooled data
+        return requestControllerData(deviceIds, (id, payload) -> DeviceView.wrap(id, payload.toArray()), new DeviceView[deviceIds.length]);
+    }
+
+    /**
+     * Send pipelined controller data requests and convert each reply off the reader thread.
+     * The replies are received into pooled buffers that are released after converting.
+     * @param deviceIds     device ids to request
+     * @param decoder       converts the device id and reply payload
+     * @param results       array the converted replies are stored in
+     * @return              future completed with the results array
+     */
+    private <T> CompletableFuture<T[]> requestControllerData(int[] deviceIds, BiFunction<Integer, Payload, T> decoder, T[] results) {
+        final int n = deviceIds.length;
+        if(n == 0)
+            return CompletableFuture.completedFuture(results);
+
+        // register all replies before sending the requests
+        List<CompletableFuture<Payload>> replies = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            CompletableFuture<Payload> reply = dispatcher.expectPayload(PacketIdentifier.REQUEST_CONTROLLER_DATA, deviceIds[i]);
+            expireAfterTimeout(PacketIdentifier.REQUEST_CONTROLLER_DATA, deviceIds[i], reply);
+            replies.add(reply);
+        }
+
+        // send all request headers at once
+        BufferPool pool = bufferPool;
+        ByteBuffer requests = pool.acquire(n * HEADER_SIZE);
+        try {
+            for(int i = 0; i < n; i++)
+                Packet.writeHeader(requests, i * HEADER_SIZE, PacketIdentifier.REQUEST_CONTROLLER_DATA, deviceIds[i], 0);
+            send(requests);
+        } finally {
+            pool.release(requests);
+        }
+
+        // decode off the reader thread, so decoding overlaps with reading the next replies
+        CompletableFuture<?>[] decoded = new CompletableFuture<?>[n];
+        for(int i = 0; i < n; i++) {
+            final int index = i;
+            decoded[i] = replies.get(i).thenAcceptAsync(payload -> {
+                try {
+                    results[index] = decoder.apply(deviceIds[index], payload);
+                } finally {
+                    payload.release();
+                }
+            });
+        }
+        return CompletableFuture.allOf(decoded).thenApply(v -> results);
+    }
+
+    /**
+     * Request the controller data for all controllers asynchronously. The requests
+     * are pipelined, see {@link #getControllerDataAsync(int[])}.
+     * @return              future completed with an array of all controller data / devices
+     */
+    public CompletableFuture<Device[]> getAllControllerDataAsync() {
+        // send the data requests from a pool thread, not from the reader thread
+        return getControllerCountAsync().thenComposeAsync(n -> getControllerDataAsync(allDeviceIds(n)));
+    }
+
+    /**
+     * Request views of the controller data for all controllers asynchronously.
+     * @return              future completed with views of all controllers
+     * @see #getControllerViewsAsync(int[])
+     */
+    public CompletableFuture<DeviceView[]> getAllControllerViewsAsync() {
+        return getControllerCountAsync().thenComposeAsync(n -> getControllerViewsAsync(allDeviceIds(n)));
+    }
+
     /**
      * Request the number of controllers
-     * @return              number of controllers as int
+     * @return              number of controllers as int or -1 if the request failed
      */
     public int getControllerCount() {
-        sendMessage(PacketIdentifier.REQUEST_CONTROLLER_COUNT, 0);
-        byte[] data = readMessage();
-        return data != null ? ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).getInt() : -1;
+        Integer count = await(getControllerCountAsync());
+        return count != null ? count : -1;
     }
 
     /**
      * Request the controller data for a given device id
      * @param deviceId      device id (starting at 0)
-     * @return              the controller data / device
+     * @return              the controller data / device or null if the request failed
      */
     public Device getControllerData(int deviceId) {
-        sendMessage(PacketIdentifier.REQUEST_CONTROLLER_DATA, deviceId);
-        byte[] data = readMessage();
-        return data != null ? Device.decode(deviceId, data) : null;
+        return await(getControllerDataAsync(deviceId));
+    }
+
+    /**
+     * Request the controller data for multiple devices with pipelined requests
+     * @param deviceIds     device ids to request
+     * @return              the devices in the order of the ids or null if the request failed
+     */
+    public Device[] getControllerData(int[] deviceIds) {
+        return await(getControllerDataAsync(deviceIds));
     }
 
     /**
      * Get the controller data for all controllers (0 to {@link #getControllerCount()})
-     * @return              array with all controller data / devices
+     * @return              array with all controller data / devices or an empty array
+     *                      if the request failed
      */
     public Device[] getAllControllerData() {
-        int n = getControllerCount();
-        Device[] devices = new Device[n];
-        for(int i = 0; i < n; i++)
-            devices[i] = getControllerData(i);
-        return devices;
+        Device[] devices = await(getAllControllerDataAsync());
+        return devices != null ? devices : new Device[0];
+    }
+
+    private static int[] allDeviceIds(int count) {
+        int[] deviceIds = new int[Math.max(count, 0)];
+        for(int i = 0; i < deviceIds.length; i++)
+            deviceIds[i] = i;
+        return deviceIds;
+    }
+
+    /**
+     * Wait for the future with the request timeout
+     * @return              the result or null if the request failed or timed out
+     */
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(requestTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Request to the OpenRGB SDK server failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            System.err.println("Request to the OpenRGB SDK server timed out.");
+        }
+        return null;
+    }
+
+    /**
+     * Called by the reader thread or after a write error if the connection was lost
+     */
+    private void onConnectionLost() {
+        if(parent != null) {
+            // a pooled connection closes the whole pool, unless it is already closing
+            if(parent.isConnected())
+                parent.onConnectionLost();
+            return;
+        }
+        stats.recordConnectionLost();
+        try {
+            // may be called on a thread that holds the frame lock, only signal the senders to stop
+            disconnect(false);
+        } catch (IOException ioException) {
+            System.err.println("Error while disconnecting: ");
+            ioException.printStackTrace();
+        }
+        for(Runnable listener : connectionLostListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error in OpenRGB connection lost listener:");
+                e.printStackTrace();
+            }
+        }
     }
 
     /**
@@ -167,15 +748,23 @@ public class OpenRGB {
             throw new IllegalArgumentException("The length of the color array exceeds the maximum byte capacity (16-bit).");
 
         int size = 4 + 2 + (4 * colors.length);
-        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
-        buffer.putInt(size);                    // 4 bytes for buffer length
-        buffer.putShort((short) colors.length); // 2 bytes for color count
+        BufferPool pool = bufferPool;
+        ByteBuffer buffer = pool.acquire(HEADER_SIZE + size);
+        try {
+            Packet.writeHeader(buffer, 0, PacketIdentifier.RGBCONTROLLER_UPDATELEDS, deviceId, size);
+            buffer.position(HEADER_SIZE);
+            buffer.putInt(size);                    // 4 bytes for buffer length
+            buffer.putShort((short) colors.length); // 2 bytes for color count
 
-        for (Color color : colors) {            // 4 bytes for each color
-            buffer.put(color.encode());
-        }
+            for (Color color : colors) {            // 4 bytes for each color
+                buffer.putInt(LedFrame.toWire(color.toPacked()));
+            }
 
-        sendMessage(PacketIdentifier.RGBCONTROLLER_UPDATELEDS, buffer.array(), deviceId);
+            buffer.flip();
+            send(buffer);
+        } finally {
+            pool.release(buffer);
+        }
     }
 
     /**
@@ -191,16 +780,292 @@ public class OpenRGB {
             throw new IllegalArgumentException("The length of the color array exceeds the maximum byte capacity (16-bit).");
 
         int size = 4 + 4 + 2 + (4 * colors.length);
-        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
-        buffer.putInt(size);                    // 4 bytes for buffer length
-        buffer.putInt(zoneId);                  // 4 bytes for zone id
-        buffer.putShort((short) colors.length); // 2 bytes for color count
+        BufferPool pool = bufferPool;
+        ByteBuffer buffer = pool.acquire(HEADER_SIZE + size);
+        try {
+            Packet.writeHeader(buffer, 0, PacketIdentifier.RGBCONTROLLER_UPDATEZONELEDS, deviceId, size);
+            buffer.position(HEADER_SIZE);
+            buffer.putInt(size);                    // 4 bytes for buffer length
+            buffer.putInt(zoneId);                  // 4 bytes for zone id
+            buffer.putShort((short) colors.length); // 2 bytes for color count
+
+            for (Color color : colors) {            // 4 bytes for each color
+                buffer.putInt(LedFrame.toWire(color.toPacked()));
+            }
+
+            buffer.flip();
+            send(buffer);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Update the color for each led for the specified device id without allocating.
+     * The packet is encoded into a frame that is reused for every update of the device.
+     * @param deviceId          target device
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @param length            number of colors (must match the led count)
+     */
+    public void updateLeds(int deviceId, int[] packedRgb, int offset, int length) {
+        updateLeds(deviceId, packedRgb, offset, length, null);
+    }
+
+    /**
+     * Update the color for each led for the specified device id without allocating and
+     * apply a calibration while encoding the colors.
+     * @param deviceId          target device
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @param length            number of colors (must match the led count)
+     * @param calibration       lookup tables of the device, null to send the colors unchanged
+     * @see #updateLeds(int, int[], int, int)
+     */
+    public void updateLeds(int deviceId, int[] packedRgb, int offset, int length, ColorCalibration calibration) {
+        checkColorRange(packedRgb, offset, length);
+        frameLock.lock();
+        try {
+            LedFrame frame = getLedFrame(deviceId, length);
+            frame.encode(packedRgb, offset, calibration);
+            sendFrame(frame);
+        } finally {
+            frameLock.unlock();
+        }
+    }
+
+    /**
+     * Update the colors for the specified zone and device without allocating.
+     * The packet is encoded into a frame that is reused for every update of the zone.
+     * @param deviceId          target device
+     * @param zoneId            target zone
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @param length            number of colors (must match the led count of the zone)
+     */
+    public void updateZone(int deviceId, int zoneId, int[] packedRgb, int offset, int length) {
+        updateZone(deviceId, zoneId, packedRgb, offset, length, null);
+    }
+
+    /**
+     * Update the colors for the specified zone and device without allocating and
+     * apply a calibration while encoding the colors.
+     * @param deviceId          target device
+     * @param zoneId            target zone
+     * @param packedRgb         colors packed as {@code 0xRRGGBB}
+     * @param offset            index of the first color in the array
+     * @param length            number of colors (must match the led count of the zone)
+     * @param calibration       lookup tables of the device, null to send the colors unchanged
+     * @see #updateZone(int, int, int[], int, int)
+     */
+    public void updateZone(int deviceId, int zoneId, int[] packedRgb, int offset, int length, ColorCalibration calibration) {
+        checkColorRange(packedRgb, offset, length);
+        frameLock.lock();
+        try {
+            LedFrame frame = getZoneFrame(deviceId, zoneId, length);
+            frame.encode(packedRgb, offset, calibration);
+            sendFrame(frame);
+        } finally {
+            frameLock.unlock();
+        }
+    }
+
+    /**
+     * Update the color for each led for the specified device id without allocating.
+     * @param deviceId          target device
+     * @param colors            colors for the leds (size must match the led count)
+     * @see #updateLeds(int, int[], int, int)
+     */
+    public void updateLeds(int deviceId, ColorBuffer colors) {
+        updateLeds(deviceId, colors.getArray(), 0, colors.getSize());
+    }
+
+    /**
+     * Update the colors for the specified zone and device without allocating.
+     * @param deviceId          target device
+     * @param zoneId            target zone
+     * @param colors            colors for the leds (size must match the led count of the zone)
+     * @see #updateZone(int, int, int[], int, int)
+     */
+    public void updateZone(int deviceId, int zoneId, ColorBuffer colors) {
+        updateZone(deviceId, zoneId, colors.getArray(), 0, colors.getSize());
+    }
+
+    /**
+     * Update the color of a single led. Inside a batch the packet is sent after all
+     * queued led and zone frames.
+     * @param deviceId          target device
+     * @param ledId             target led
+     * @param packedRgb         color packed as {@code 0xRRGGBB}
+     */
+    public void updateSingleLed(int deviceId, int ledId, int packedRgb) {
+        updateSingleLed(deviceId, ledId, packedRgb, null);
+    }
+
+    /**
+     * Update the color of a single led and apply a calibration while encoding the color.
+     * @param deviceId          target device
+     * @param ledId             target led
+     * @param packedRgb         color packed as {@code 0xRRGGBB}
+     * @param calibration       lookup tables of the device, null to send the color unchanged
+     * @see #updateSingleLed(int, int, int)
+     */
+    public void updateSingleLed(int deviceId, int ledId, int packedRgb, ColorCalibration calibration) {
+        if(deviceId < 0 || ledId < 0)
+            throw new IllegalArgumentException("Invalid device id " + deviceId + " or led id " + ledId);
+        frameLock.lock();
+        try {
+            if(singleLedBuffer.remaining() < LedFrame.SINGLE_LED_SIZE) {
+                ByteBuffer buffer = ByteBuffer.allocate(singleLedBuffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                singleLedBuffer.flip();
+                singleLedBuffer = buffer.put(singleLedBuffer);
+            }
+            int index = singleLedBuffer.position();
+            Packet.writeHeader(singleLedBuffer, index, PacketIdentifier.RGBCONTROLLER_UPDATESINGLELED, deviceId, 8);
+            singleLedBuffer.putInt(index + Packet.HEADER_SIZE, ledId);
+            singleLedBuffer.putInt(index + Packet.HEADER_SIZE + 4,
+                    calibration == null ? LedFrame.toWire(packedRgb) : calibration.toWire(packedRgb));
+            singleLedBuffer.position(index + LedFrame.SINGLE_LED_SIZE);
+            if(frameLock.getHoldCount() == 1) {
+                // not batching, send immediately
+                sendQueued();
+            }
+        } finally {
+            frameLock.unlock();
+        }
+    }
+
+    private void checkColorRange(int[] packedRgb, int offset, int length) {
+        if(packedRgb == null)
+            throw new IllegalArgumentException("Colors cannot be null!");
+        if(length >= Short.MAX_VALUE)
+            throw new IllegalArgumentException("The length of the color array exceeds the maximum byte capacity (16-bit).");
+        if(offset < 0 || length < 0 || offset + length > packedRgb.length)
+            throw new IndexOutOfBoundsException("Invalid range (offset " + offset + ", length " + length
+                    + ") for color array of length " + packedRgb.length + ".");
+    }
 
-        for (Color color : colors) {            // 4 bytes for each color
-            buffer.put(color.encode());
+    /**
+     * Get the cached update frame for the device or create a new one
+     * if the led count changed. Must be called while holding the frame lock.
+     */
+    private LedFrame getLedFrame(int deviceId, int ledCount) {
+        if(deviceId < 0)
+            throw new IllegalArgumentException("Invalid device id " + deviceId);
+        if(deviceId >= ledFrames.length)
+            ledFrames = Arrays.copyOf(ledFrames, deviceId + 1);
+        LedFrame frame = ledFrames[deviceId];
+        if(frame == null || frame.getLedCount() != ledCount) {
+            frame = LedFrame.forLeds(deviceId, ledCount);
+            ledFrames[deviceId] = frame;
         }
+        return frame;
+    }
 
-        sendMessage(PacketIdentifier.RGBCONTROLLER_UPDATEZONELEDS, buffer.array(), deviceId);
+    /**
+     * Get the cached zone update frame or create a new one if the
+     * led count changed. Must be called while holding the frame lock.
+     */
+    private LedFrame getZoneFrame(int deviceId, int zoneId, int ledCount) {
+        if(deviceId < 0 || zoneId < 0)
+            throw new IllegalArgumentException("Invalid device id " + deviceId + " or zone id " + zoneId);
+        if(deviceId >= zoneFrames.length)
+            zoneFrames = Arrays.copyOf(zoneFrames, deviceId + 1);
+        LedFrame[] frames = zoneFrames[deviceId];
+        if(frames == null || zoneId >= frames.length) {
+            frames = frames == null ? new LedFrame[zoneId + 1] : Arrays.copyOf(frames, zoneId + 1);
+            zoneFrames[deviceId] = frames;
+        }
+        LedFrame frame = frames[zoneId];
+        if(frame == null || frame.getLedCount() != ledCount) {
+            frame = LedFrame.forZone(deviceId, zoneId, ledCount);
+            frames[zoneId] = frame;
+        }
+        return frame;
+    }
+
+    /**
+     * Start a frame batch. All following led and zone updates of the calling thread
+     * are queued and sent with a single write when {@link #commit()} is called.
+     * Other threads trying to update leds are blocked until the batch is committed,
+     * so always call {@link #commit()} in a finally block. Batches can be nested,
+     * only the outermost commit sends the frames.
+     * <p>Only {@link #updateLeds(int, int[], int, int)} and {@link #updateZone(int, int, int[], int, int)}
+     * are batched, all other packets are sent immediately.</p>
+     */
+    public void beginBatch() {
+        frameLock.lock();
+    }
+
+    /**
+     * Send all frames queued since {@link #beginBatch()} with a single gathering write
+     * and end the batch.
+     * @throws IllegalStateException    if the calling thread did not begin a batch
+     */
+    public void commit() {
+        if(!frameLock.isHeldByCurrentThread())
+            throw new IllegalStateException("No batch started by the current thread.");
+        try {
+            if(frameLock.getHoldCount() == 1)
+                sendQueued();
+        } finally {
+            frameLock.unlock();
+        }
+    }
+
+    /**
+     * Check if the calling thread is currently batching frames
+     * @return          true if {@link #beginBatch()} was called without commit
+     */
+    public boolean isBatching() {
+        return frameLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Send a single encoded frame or add it to the current batch.
+     * Must be called while holding the frame lock.
+     */
+    private void sendFrame(LedFrame frame) {
+        ByteBuffer buffer = frame.prepare();
+        if(frameLock.getHoldCount() > 1) {
+            // batch is active, queue frame unless it is already queued
+            for(int i = 0; i < batchSize; i++) {
+                if(batchFrames[i] == buffer) return;
+            }
+            if(batchSize == batchFrames.length)
+                batchFrames = Arrays.copyOf(batchFrames, batchSize * 2);
+            batchFrames[batchSize++] = buffer;
+            batchPackets++;
+        } else {
+            batchFrames[0] = buffer;
+            batchSize = 1;
+            batchPackets = 1;
+            sendQueued();
+        }
+    }
+
+    /**
+     * Send all queued frames followed by the collected single led packets with a
+     * single write and clear the queue. Must be called while holding the frame lock.
+     */
+    private void sendQueued() {
+        try {
+            if(singleLedBuffer.position() > 0) {
+                if(batchSize == batchFrames.length)
+                    batchFrames = Arrays.copyOf(batchFrames, batchSize + 1);
+                batchPackets += singleLedBuffer.position() / LedFrame.SINGLE_LED_SIZE;
+                singleLedBuffer.flip();
+                batchFrames[batchSize++] = singleLedBuffer;
+            }
+            if(batchSize > 0)
+                send(batchFrames, batchSize, batchPackets);
+        } finally {
+            for(int i = 0; i < batchSize; i++)
+                batchFrames[i] = null;
+            batchSize = 0;
+            batchPackets = 0;
+            singleLedBuffer.clear();
+        }
     }
 
     /**
@@ -218,24 +1083,50 @@ public class OpenRGB {
      * @param deviceId      target device id, set it to 0 if not needed for the request
      */
     public void sendMessage(PacketIdentifier identifier, byte[] dataBuffer, int deviceId) {
-        if(!client.isConnected() || client.getOutStream() == null) return;
-        // encode header
-        byte[] header = encodeHeader(new Packet(identifier, deviceId, dataBuffer != null ? dataBuffer.length : 0));
+        if(!client.isConnected()) return;
+        int dataLength = dataBuffer != null ? dataBuffer.length : 0;
+        BufferPool pool = bufferPool;
+        ByteBuffer buffer = pool.acquire(HEADER_SIZE + dataLength);
         try {
-            DataOutputStream out = client.getOutStream();
-            // send header
-            out.write(header);
-            // send data
-            if(dataBuffer != null) out.write(dataBuffer);
-            out.flush();
+            // encode header and copy the data behind it
+            Packet.writeHeader(buffer, 0, identifier, deviceId, dataLength);
+            buffer.position(HEADER_SIZE);
+            if(dataBuffer != null)
+                buffer.put(dataBuffer);
+            buffer.flip();
+            send(buffer);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Write the buffers of a single packet to the server and disconnect the client if an error occurs
+     * @param buffers       header and data of the packet
+     */
+    private void send(ByteBuffer... buffers) {
+        send(buffers, buffers.length, 1);
+    }
+
+    /**
+     * Write the first {@code count} buffers to the server and disconnect the client if an error occurs
+     * @param buffers       encoded packets
+     * @param count         number of buffers to write
+     * @param packets       number of packets in the buffers
+     */
+    private void send(ByteBuffer[] buffers, int count, int packets) {
+        if(!client.isConnected()) return;
+        long bytes = 0;
+        for(int i = 0; i < count; i++)
+            bytes += buffers[i].remaining();
+        try {
+            long start = System.nanoTime();
+            client.write(buffers, 0, count);
+            stats.recordWrite(packets, bytes, System.nanoTime() - start);
         } catch (IOException e) {
+            stats.recordWriteError();
             System.err.println("Error while sending packet to the OpenRGB SDK server. Disconnecting client due to exception.");
-            try {
-                disconnect();
-            } catch (IOException ioException) {
-                System.err.println("Error while disconnecting: ");
-                ioException.printStackTrace();
-            }
+            onConnectionLost();
         }
     }
 
@@ -249,70 +1140,22 @@ public class OpenRGB {
     }
 
     /**
-     * Read from the client input stream, decode the data and return it
-     * @return          received data as byte array or null if data could
-     *                  not be read
+     * Return the data of the next received packet that was no reply to a request.
+     * Replies are routed to the request futures by a reader thread, use the
+     * request methods or {@link #addPacketListener(PacketListener)} instead.
+     * @return          received data as byte array or null if no packet
+     *                  was received within the request timeout
      */
+    @Deprecated
     public byte[] readMessage() {
-        if(!client.isConnected() || client.getInStream() == null) return null;
-        DataInputStream in = client.getInStream();
+        if(!client.isConnected()) return null;
         try {
-            byte[] header = new byte[HEADER_SIZE];
-            // read header
-            if (in.read(header) == -1) return null;
-            // decode header
-            Packet packet = decodeHeader(header);
-            // check if data length is 0
-            if (packet.dataLength <= 0) return null;
-
-            byte[] data = new byte[packet.dataLength];
-            // read data
-            if (in.read(data) == -1) return null;
-            return data;
-        } catch(SocketException se) {
-            System.err.println("Error while reading packet from the OpenRGB SDK server. Disconnecting client due to exception.");
-            try {
-                disconnect();
-            } catch (IOException ioException) {
-                System.err.println("Error while disconnecting: ");
-                ioException.printStackTrace();
-            }
-        } catch (IOException e) {
-            System.err.println("Error while reading from the server:");
-            e.printStackTrace();
+            byte[] data = unsolicitedPackets.poll(requestTimeout, TimeUnit.MILLISECONDS);
+            return data != null && data.length > 0 ? data : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
-        return null;
-    }
-
-    private byte[] encodeHeader(Packet packet) {
-        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
-        // put magic header bytes
-        buffer.put("ORGB".getBytes(StandardCharsets.US_ASCII));
-        // put device id, identifier id and the data length
-        buffer.putInt(packet.deviceId);
-        buffer.putInt(packet.identifier.id);
-        buffer.putInt(packet.dataLength);
-        // return the buffer as byte array
-        return buffer.array();
-        //out.write("ORGB".getBytes(StandardCharsets.US_ASCII));
-        //out.writeByte(deviceId);
-    }
-
-    private Packet decodeHeader(byte[] header) {
-        if(header.length != HEADER_SIZE)
-            throw new IllegalArgumentException("Wrong header length! Expected a header length of " + HEADER_SIZE + " but is " + header.length + ".");
-
-        ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
-        // read the magic header bytes
-        String magic = new String(header, 0, 4, StandardCharsets.US_ASCII);
-        if(!magic.equals("ORGB"))
-            throw new IllegalArgumentException("Invalid header. Header does not contains magic byte 'ORGB'.");
-
-        // create and return packet
-        return new Packet(
-                PacketIdentifier.fromId(buffer.getInt(4)),
-                buffer.getInt(8),
-                buffer.getInt(12));
     }
 
 }
@@ -0,0 +1,218 @@
+package de.lars.openrgbwrapper;
+
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Shared, versioned cache of the controller topology of an {@link OpenRGB} connection.
+ * <p>The topology is fetched once with pipelined requests and shared by all users of
+ * the connection. It is fetched again when the server sends a
+ * {@link PacketIdentifier#DEVICE_LIST_UPDATED} notification. Servers that do not
+ * support notifications (protocol version 0) are polled for their controller count
+ * instead, which only triggers a refresh if the count changed.</p>
+ */
+public class TopologyCache {
+
+    /** default controller count poll interval for old servers in milliseconds */
+    public static final long DEFAULT_POLL_INTERVAL = 5000;
+
+    private final OpenRGB openRGB;
+    private final List<Consumer<DeviceTopology>> listeners = new CopyOnWriteArrayList<>();
+    private volatile DeviceTopology topology;
+    private long nextVersion = 1;
+    /** incremented on stop, so refreshes of a closed connection are not published */
+    private long generation;
+    /** refresh currently in progress or null */
+    private CompletableFuture<DeviceTopology> refreshFuture;
+    /** true if another refresh was requested while one was in progress */
+    private boolean refreshAgain;
+    private ScheduledFuture<?> pollTask;
+    private long pollInterval = DEFAULT_POLL_INTERVAL;
+
+    TopologyCache(OpenRGB openRGB) {
+        this.openRGB = openRGB;
+        openRGB.addPacketListener((packet, data) -> {
+            if(packet.identifier == PacketIdentifier.DEVICE_LIST_UPDATED)
+                invalidate();
+        });
+    }
+
+    /**
+     * Called after the connection was established and the protocol version is known
+     */
+    synchronized void start() {
+        // refreshes started since the connection was opened are still valid
+        stopPolling();
+        if(!openRGB.isConnected()) return;
+        if(openRGB.getProtocolVersion() < 1) {
+            // server does not send device list notifications
+            pollTask = OpenRGB.getScheduler().scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        }
+        invalidate();
+    }
+
+    /**
+     * Called after the connection was closed
+     */
+    synchronized void stop() {
+        generation++;
+        stopPolling();
+        topology = null;
+        refreshAgain = false;
+    }
+
+    private void stopPolling() {
+        if(pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+    }
+
+    private void poll() {
+        DeviceTopology current = topology;
+        if(!openRGB.isConnected() || current == null) return;
+        openRGB.getControllerCountAsync().thenAccept(count -> {
+            if(count != current.getDeviceCount())
+                invalidate();
+        });
+    }
+
+    /**
+     * Get the current topology without blocking
+     * @return          the newest topology or null if it was not fetched yet
+     */
+    public DeviceTopology get() {
+        return topology;
+    }
+
+    /**
+     * Get the version of the current topology
+     * @return          version or 0 if no topology is available
+     */
+    public long getVersion() {
+        DeviceTopology current = topology;
+        return current != null ? current.getVersion() : 0;
+    }
+
+    /**
+     * Get the current topology or wait for it if it was not fetched yet
+     * @return          the topology or null if it could not be fetched within the request timeout
+     */
+    public DeviceTopology await() {
+        DeviceTopology current = topology;
+        if(current != null) return current;
+        try {
+            return refresh().get(openRGB.getRequestTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Could not fetch controller data from the OpenRGB SDK server: " + e);
+        }
+        return null;
+    }
+
+    /**
+     * Mark the topology as outdated and fetch it again. Requests while a refresh
+     * is in progress are combined into one additional refresh.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            if(refreshFuture != null) {
+                refreshAgain = true;
+                return;
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Fetch the topology from the server. Returns the running refresh if there is one.
+     * @return          future completed with the new topology, or with null if the
+     *                  connection was closed in the meantime
+     */
+    public synchronized CompletableFuture<DeviceTopology> refresh() {
+        if(refreshFuture != null)
+            return refreshFuture;
+        long refreshGeneration = generation;
+        CompletableFuture<DeviceTopology> future = openRGB.getAllControllerViewsAsync()
+                .thenApply(devices -> update(devices, refreshGeneration));
+        if(future.isDone()) {
+            // failed immediately, e.g. not connected
+            return future;
+        }
+        refreshFuture = future;
+        future.whenComplete((result, error) -> onRefreshDone());
+        return future;
+    }
+
+    private void onRefreshDone() {
+        boolean again;
+        synchronized (this) {
+            refreshFuture = null;
+            again = refreshAgain && openRGB.isConnected();
+            refreshAgain = false;
+        }
+        if(again)
+            refresh();
+    }
+
+    /**
+     * Publish a fetched topology
+     * @param devices           fetched devices
+     * @param refreshGeneration generation the refresh was started in
+     * @return                  the new topology or null if the connection was closed
+     *                          since the refresh was started
+     */
+    private DeviceTopology update(DeviceView[] devices, long refreshGeneration) {
+        DeviceTopology newTopology;
+        synchronized (this) {
+            if(refreshGeneration != generation)
+                return null;
+            newTopology = new DeviceTopology(nextVersion++, devices);
+            topology = newTopology;
+        }
+        for(Consumer<DeviceTopology> listener : listeners) {
+            try {
+                listener.accept(newTopology);
+            } catch (RuntimeException e) {
+                System.err.println("Error in OpenRGB topology listener:");
+                e.printStackTrace();
+            }
+        }
+        return newTopology;
+    }
+
+    /**
+     * Set the controller count poll interval used for servers without device list notifications.
+     * Takes effect on the next connection.
+     * @param pollInterval  interval in milliseconds
+     */
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Add a listener that is called with every new topology
+     * @param listener      listener to add
+     */
+    public void addListener(Consumer<DeviceTopology> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<DeviceTopology> listener) {
+        listeners.remove(listener);
+    }
+
+}
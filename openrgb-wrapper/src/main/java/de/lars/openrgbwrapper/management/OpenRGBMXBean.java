@@ -0,0 +1,58 @@
+package de.lars.openrgbwrapper.management;
+
+/**
+ * Management interface of an {@link de.lars.openrgbwrapper.OpenRGB} connection.
+ * Latencies are reported in microseconds.
+ */
+public interface OpenRGBMXBean {
+
+    String getClientName();
+    String getHostname();
+    int getPort();
+    boolean isConnected();
+    int getProtocolVersion();
+    int getDeviceCount();
+    int getConnectionCount();
+
+    long getFramesSubmitted();
+    long getFramesSent();
+    long getFramesDropped();
+    long getFramesDecimated();
+    long getFramesCoalesced();
+    long getFramesSkipped();
+    long getFullUpdates();
+    long getZoneUpdates();
+    long getSingleLedUpdates();
+
+    long getPacketsSent();
+    long getBytesSent();
+    double getPacketsPerSecond();
+    double getBytesPerSecond();
+    long getWriteErrors();
+
+    double getEncodeTimeP50();
+    double getEncodeTimeP99();
+    double getEncodeTimeMax();
+    double getWriteLatencyP50();
+    double getWriteLatencyP99();
+    double getWriteLatencyMax();
+
+    long getConnects();
+    long getReconnects();
+    long getConnectionLosses();
+
+    double getStringPoolHitRate();
+    double getSendBufferPoolHitRate();
+    long getSendBufferPoolMisses();
+    long getSendBufferPoolOversized();
+    long getSendBufferPoolBytes();
+    double getReceiveBufferPoolHitRate();
+    long getReceiveBufferPoolMisses();
+    long getReceiveBufferPoolOversized();
+    long getReceiveBufferPoolBytes();
+
+    /**
+     * Reset the connection statistics
+     */
+    void resetStatistics();
+}
@@ -0,0 +1,309 @@
+package de.lars.openrgbwrapper.management;
+
+import de.lars.openrgbwrapper.ConnectionPool;
+import de.lars.openrgbwrapper.ConnectionStats;
+import de.lars.openrgbwrapper.DeviceTopology;
+import de.lars.openrgbwrapper.FrameSender;
+import de.lars.openrgbwrapper.OpenRGB;
+import de.lars.openrgbwrapper.utils.StringPool;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the statistics of an {@link OpenRGB} connection as MXBean. All values are
+ * read from the counters of the connection when requested, so the monitor adds no
+ * cost to the output path.
+ * <p>The monitor is not registered automatically, call {@link #register(String)}
+ * to make it visible in JConsole, VisualVM or any other JMX client.</p>
+ */
+public class OpenRGBMonitor implements OpenRGBMXBean {
+
+    /** domain of the object names registered by the wrapper */
+    public static final String DOMAIN = "de.lars.openrgbwrapper";
+
+    private final OpenRGB openRGB;
+    private final RateMeter packetRate = new RateMeter();
+    private final RateMeter byteRate = new RateMeter();
+    private ObjectName objectName;
+
+    /**
+     * Create a new monitor for a connection
+     * @param openRGB       connection to monitor
+     */
+    public OpenRGBMonitor(OpenRGB openRGB) {
+        this.openRGB = openRGB;
+    }
+
+    /**
+     * Register the monitor at the platform MBean server as
+     * {@code de.lars.openrgbwrapper:type=OpenRGB,name=<name>}
+     * @param name          name of the connection, must be unique
+     * @return              true if the monitor was registered
+     */
+    public synchronized boolean register(String name) {
+        if(objectName != null) return false;
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=OpenRGB,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            return true;
+        } catch (JMException e) {
+            System.err.println("Could not register OpenRGB MBean '" + name + "': " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Unregister the monitor from the platform MBean server. Has no effect if it is not registered.
+     */
+    public synchronized void unregister() {
+        if(objectName == null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if(server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("Could not unregister OpenRGB MBean '" + objectName + "': " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    /**
+     * Get the name the monitor is registered with
+     * @return          object name or null if not registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public String getClientName() {
+        return openRGB.getClientName();
+    }
+
+    @Override
+    public String getHostname() {
+        return openRGB.getClient().getHostname();
+    }
+
+    @Override
+    public int getPort() {
+        return openRGB.getClient().getPort();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return openRGB.isConnected();
+    }
+
+    @Override
+    public int getProtocolVersion() {
+        return openRGB.getProtocolVersion();
+    }
+
+    @Override
+    public int getDeviceCount() {
+        // never request the count from the server, only report the cached topology
+        DeviceTopology topology = openRGB.getTopologyCache().get();
+        return topology != null ? topology.getDeviceCount() : 0;
+    }
+
+    @Override
+    public int getConnectionCount() {
+        ConnectionPool pool = openRGB.getConnectionPool();
+        if(pool != null)
+            return pool.getConnectedCount();
+        return openRGB.isConnected() ? 1 : 0;
+    }
+
+    @Override
+    public long getFramesSubmitted() {
+        return sumSenders(FrameSender::getSubmittedFrames);
+    }
+
+    @Override
+    public long getFramesSent() {
+        return sumSenders(FrameSender::getSentFrames);
+    }
+
+    @Override
+    public long getFramesDropped() {
+        return sumSenders(FrameSender::getDroppedFrames);
+    }
+
+    @Override
+    public long getFramesDecimated() {
+        return sumSenders(FrameSender::getDecimatedFrames);
+    }
+
+    @Override
+    public long getFramesCoalesced() {
+        return sumSenders(FrameSender::getCoalescedFrames);
+    }
+
+    @Override
+    public long getFramesSkipped() {
+        return sumSenders(FrameSender::getSkippedFrames);
+    }
+
+    @Override
+    public long getFullUpdates() {
+        return sumSenders(FrameSender::getFullUpdates);
+    }
+
+    @Override
+    public long getZoneUpdates() {
+        return sumSenders(FrameSender::getZoneUpdates);
+    }
+
+    @Override
+    public long getSingleLedUpdates() {
+        return sumSenders(FrameSender::getSingleLedUpdates);
+    }
+
+    @Override
+    public long getPacketsSent() {
+        return stats().getPacketsSent();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return stats().getBytesSent();
+    }
+
+    @Override
+    public double getPacketsPerSecond() {
+        return packetRate.rate(stats().getPacketsSent());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return byteRate.rate(stats().getBytesSent());
+    }
+
+    @Override
+    public long getWriteErrors() {
+        return stats().getWriteErrors();
+    }
+
+    @Override
+    public double getEncodeTimeP50() {
+        return micros(stats().getEncodeTime().getPercentile(50));
+    }
+
+    @Override
+    public double getEncodeTimeP99() {
+        return micros(stats().getEncodeTime().getPercentile(99));
+    }
+
+    @Override
+    public double getEncodeTimeMax() {
+        return micros(stats().getEncodeTime().getMax());
+    }
+
+    @Override
+    public double getWriteLatencyP50() {
+        return micros(stats().getWriteLatency().getPercentile(50));
+    }
+
+    @Override
+    public double getWriteLatencyP99() {
+        return micros(stats().getWriteLatency().getPercentile(99));
+    }
+
+    @Override
+    public double getWriteLatencyMax() {
+        return micros(stats().getWriteLatency().getMax());
+    }
+
+    @Override
+    public long getConnects() {
+        return stats().getConnects();
+    }
+
+    @Override
+    public long getReconnects() {
+        return stats().getReconnects();
+    }
+
+    @Override
+    public long getConnectionLosses() {
+        return stats().getConnectionLosses();
+    }
+
+    @Override
+    public double getStringPoolHitRate() {
+        return StringPool.getDefault().getHitRate();
+    }
+
+    @Override
+    public double getSendBufferPoolHitRate() {
+        return openRGB.getBufferPool().getHitRate();
+    }
+
+    @Override
+    public long getSendBufferPoolMisses() {
+        return openRGB.getBufferPool().getMisses();
+    }
+
+    @Override
+    public long getSendBufferPoolOversized() {
+        return openRGB.getBufferPool().getOversized();
+    }
+
+    @Override
+    public long getSendBufferPoolBytes() {
+        return openRGB.getBufferPool().getPooledBytes();
+    }
+
+    @Override
+    public double getReceiveBufferPoolHitRate() {
+        return openRGB.getReceiveBufferPool().getHitRate();
+    }
+
+    @Override
+    public long getReceiveBufferPoolMisses() {
+        return openRGB.getReceiveBufferPool().getMisses();
+    }
+
+    @Override
+    public long getReceiveBufferPoolOversized() {
+        return openRGB.getReceiveBufferPool().getOversized();
+    }
+
+    @Override
+    public long getReceiveBufferPoolBytes() {
+        return openRGB.getReceiveBufferPool().getPooledBytes();
+    }
+
+    @Override
+    public void resetStatistics() {
+        // frame counters of the sender are totals and are not reset
+        stats().reset();
+    }
+
+    private ConnectionStats stats() {
+        return openRGB.getStats();
+    }
+
+    /**
+     * Sum a counter of the frame senders of all pooled connections
+     */
+    private long sumSenders(ToLongFunction<FrameSender> counter) {
+        ConnectionPool pool = openRGB.getConnectionPool();
+        if(pool == null)
+            return counter.applyAsLong(openRGB.getFrameSender());
+        long sum = 0;
+        for(int i = 0; i < pool.getSize(); i++)
+            sum += counter.applyAsLong(pool.getConnection(i).getFrameSender());
+        return sum;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
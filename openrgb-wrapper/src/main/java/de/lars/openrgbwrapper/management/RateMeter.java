@@ -0,0 +1,50 @@
+package de.lars.openrgbwrapper.management;
+
+/**
+ * Computes the rate of a monotonic counter from samples taken when the rate is read.
+ * The rate is updated at most once per sample interval, so monitoring clients that
+ * poll at different intervals still see a stable value.
+ */
+public class RateMeter {
+
+    /** default minimum time between two samples in nanoseconds */
+    public static final long DEFAULT_INTERVAL = 1_000_000_000L;
+
+    private final long interval;
+    private long lastTime;
+    private long lastValue;
+    private double rate;
+
+    /**
+     * Create a new rate meter with the default sample interval of one second
+     */
+    public RateMeter() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Create a new rate meter
+     * @param interval      minimum time between two samples in nanoseconds
+     */
+    public RateMeter(long interval) {
+        this.interval = interval;
+        this.lastTime = System.nanoTime();
+    }
+
+    /**
+     * Get the rate of the counter
+     * @param value     current value of the counter
+     * @return          change per second between the last two samples
+     */
+    public synchronized double rate(long value) {
+        long now = System.nanoTime();
+        long elapsed = now - lastTime;
+        if(elapsed >= interval) {
+            // counters may be reset in between, never report a negative rate
+            rate = Math.max(0, value - lastValue) * 1e9 / elapsed;
+            lastTime = now;
+            lastValue = value;
+        }
+        return rate;
+    }
+}
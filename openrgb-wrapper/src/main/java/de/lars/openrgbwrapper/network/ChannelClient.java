@@ -0,0 +1,243 @@
+package de.lars.openrgbwrapper.network;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Client implementation based on a blocking {@link SocketChannel}.
+ * <p>Outgoing packets are copied into a direct buffer that is reused for
+ * every write, so the JDK does not need a temporary direct copy per packet.
+ * Incoming data is read through a reusable direct receive buffer.</p>
+ */
+public class ChannelClient extends Client {
+
+    /** default capacity of the send and receive buffers in bytes */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private SocketChannel channel;
+    private final int bufferSize;
+    /** direct buffer all outgoing data is copied into */
+    private ByteBuffer sendBuffer;
+    /** direct buffer all incoming data is read into (always in read mode) */
+    private ByteBuffer receiveBuffer;
+    private DataOutputStream outStream;
+    private DataInputStream inStream;
+
+    private final Object sendLock = new Object();
+    private final Object receiveLock = new Object();
+
+    /**
+     * Create a new channel client instance with TCP_NODELAY enabled
+     * @param hostname      hostname of the server
+     * @param port          port of the server
+     * @param bufferSize    capacity of the send and receive buffers in bytes
+     */
+    public ChannelClient(String hostname, int port, int bufferSize) {
+        super(hostname, port);
+        if(bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be greater than 0.");
+        this.bufferSize = bufferSize;
+        setTcpNoDelay(true);
+    }
+
+    /**
+     * Create a new channel client instance with the default buffer size
+     * @param hostname      hostname of the server
+     * @param port          port of the server
+     */
+    public ChannelClient(String hostname, int port) {
+        this(hostname, port, DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public synchronized boolean connect() throws IOException {
+        // return if client is already connected or channel tries to connect
+        if(channel != null) return false;
+        channel = SocketChannel.open();
+
+        try {
+            // apply socket options
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, isTcpNoDelay());
+            if(getSendBufferSize() > 0)
+                channel.setOption(StandardSocketOptions.SO_SNDBUF, getSendBufferSize());
+            // connect using the socket adaptor to support the connection timeout
+            channel.socket().connect(new InetSocketAddress(getHostname(), getPort()), getConnectionTimeout());
+
+            // buffers are kept across connections
+            if(sendBuffer == null) {
+                sendBuffer = ByteBuffer.allocateDirect(bufferSize);
+                receiveBuffer = ByteBuffer.allocateDirect(bufferSize);
+            }
+            sendBuffer.clear();
+            receiveBuffer.clear().limit(0);
+            outStream = new DataOutputStream(new ChannelOutputStream());
+            inStream = new DataInputStream(new ChannelInputStream());
+            connected = true;
+            return true;
+        } catch (IOException e) {
+            connected = false;
+            try {
+                channel.close();
+            } finally {
+                channel = null;
+                outStream = null;
+                inStream = null;
+            }
+            throw new IOException("Could not connect to server.", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean disconnect() throws IOException {
+        // return if client is not connected
+        if(!isConnected() || channel == null) return false;
+        connected = false;
+        try {
+            channel.close();
+        } finally {
+            channel = null;
+            outStream = null;
+            inStream = null;
+        }
+        return true;
+    }
+
+    @Override
+    public void write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+        SocketChannel ch = channel;
+        if(ch == null)
+            throw new IOException("Client is not connected.");
+        synchronized (sendLock) {
+            if(isDirect(buffers, offset, length)) {
+                // no copy needed, write all buffers with a single gathering write
+                long remaining = remaining(buffers, offset, length);
+                while(remaining > 0)
+                    remaining -= ch.write(buffers, offset, length);
+                return;
+            }
+            sendBuffer.clear();
+            for(int i = offset; i < offset + length; i++) {
+                ByteBuffer buffer = buffers[i];
+                while(buffer.hasRemaining()) {
+                    if(!sendBuffer.hasRemaining())
+                        drainSendBuffer(ch);
+                    // copy as much as fits into the send buffer
+                    int count = Math.min(buffer.remaining(), sendBuffer.remaining());
+                    int limit = buffer.limit();
+                    buffer.limit(buffer.position() + count);
+                    sendBuffer.put(buffer);
+                    buffer.limit(limit);
+                }
+            }
+            drainSendBuffer(ch);
+        }
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        SocketChannel ch = channel;
+        if(ch == null)
+            throw new IOException("Client is not connected.");
+        if(length == 0) return 0;
+        synchronized (receiveLock) {
+            if(!receiveBuffer.hasRemaining()) {
+                // refill receive buffer from the channel
+                receiveBuffer.clear();
+                int read = ch.read(receiveBuffer);
+                receiveBuffer.flip();
+                if(read == -1) return -1;
+            }
+            int count = Math.min(length, receiveBuffer.remaining());
+            receiveBuffer.get(data, offset, count);
+            return count;
+        }
+    }
+
+    /**
+     * Get the underlying socket channel
+     * @return          socket channel or null if the client is not connected
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Get an output stream that writes through the channel
+     * @return          output stream of the connected channel or
+     *                  null if the channel is not connected
+     */
+    @Override
+    public DataOutputStream getOutStream() {
+        return outStream;
+    }
+
+    /**
+     * Get an input stream that reads through the channel
+     * @return          input stream of the connected channel or
+     *                  null if the channel is not connected
+     */
+    @Override
+    public DataInputStream getInStream() {
+        return inStream;
+    }
+
+    private void drainSendBuffer(SocketChannel ch) throws IOException {
+        sendBuffer.flip();
+        while(sendBuffer.hasRemaining())
+            ch.write(sendBuffer);
+        sendBuffer.clear();
+    }
+
+    private static boolean isDirect(ByteBuffer[] buffers, int offset, int length) {
+        for(int i = offset; i < offset + length; i++) {
+            if(!buffers[i].isDirect())
+                return false;
+        }
+        return true;
+    }
+
+    private static long remaining(ByteBuffer[] buffers, int offset, int length) {
+        long remaining = 0;
+        for(int i = offset; i < offset + length; i++)
+            remaining += buffers[i].remaining();
+        return remaining;
+    }
+
+    /**
+     * Output stream adapter that writes through {@link #write(ByteBuffer...)}
+     */
+    private class ChannelOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ChannelClient.this.write(ByteBuffer.wrap(b, off, len));
+        }
+    }
+
+    /**
+     * Input stream adapter that reads through {@link #read(byte[], int, int)}
+     */
+    private class ChannelInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return ChannelClient.this.read(b, off, len);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 public class Client {
 
@@ -14,8 +15,14 @@ public class Client {
     private DataOutputStream outStream;
     private DataInputStream inStream;
 
-    private boolean connected = false;
+    protected volatile boolean connected = false;
     private int timeout = 5000;
+    private boolean tcpNoDelay = false;
+    private int sendBufferSize = 0;
+    /** scratch array used to write buffers without accessible backing array */
+    private byte[] writeScratch;
+    /** lock that keeps packets of concurrent writers from interleaving */
+    private final Object writeLock = new Object();
 
     /**
      * Create a new client instance
@@ -80,6 +87,10 @@ public class Client {
 
         try {
             InetSocketAddress address = new InetSocketAddress(hostname, port);
+            // apply socket options
+            socket.setTcpNoDelay(tcpNoDelay);
+            if(sendBufferSize > 0)
+                socket.setSendBufferSize(sendBufferSize);
             // connect to address
             socket.connect(address, timeout);
             connected = true;
@@ -130,6 +141,122 @@ public class Client {
         this.timeout = timeout;
     }
 
+    /**
+     * Get the socket connection timeout
+     * @return              timeout in milliseconds
+     */
+    public int getConnectionTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Enable or disable Nagle's algorithm (TCP_NODELAY) for the next connection
+     * @param tcpNoDelay    true to send small packets immediately
+     */
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * Get whether TCP_NODELAY is applied to new connections
+     * @return              true if Nagle's algorithm is disabled
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Set the socket send buffer size (SO_SNDBUF) for the next connection
+     * @param sendBufferSize    size in bytes, 0 to use the system default
+     */
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * Get the socket send buffer size applied to new connections
+     * @return              size in bytes or 0 if the system default is used
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Write the remaining bytes of all buffers to the server. The position
+     * of each buffer is advanced to its limit.
+     * @param buffers       buffers to write in the given order
+     * @throws IOException  if the client is not connected or an error occurs while writing
+     */
+    public void write(ByteBuffer... buffers) throws IOException {
+        write(buffers, 0, buffers.length);
+    }
+
+    /**
+     * Write the remaining bytes of a range of buffers to the server with as few
+     * socket writes as possible. The position of each buffer is advanced to its limit.
+     * @param buffers       buffers to write in the given order
+     * @param offset        index of the first buffer
+     * @param length        number of buffers to write
+     * @throws IOException  if the client is not connected or an error occurs while writing
+     */
+    public void write(ByteBuffer[] buffers, int offset, int length) throws IOException {
+        DataOutputStream out = outStream;
+        if(out == null)
+            throw new IOException("Client is not connected.");
+        synchronized (writeLock) {
+            if(length == 1) {
+                writeBuffer(out, buffers[offset]);
+            } else {
+                // join all buffers so they are written with a single socket write
+                int size = 0;
+                for(int i = offset; i < offset + length; i++)
+                    size += buffers[i].remaining();
+                if(writeScratch == null || writeScratch.length < size)
+                    writeScratch = new byte[Math.max(size, 8192)];
+                int index = 0;
+                for(int i = offset; i < offset + length; i++) {
+                    ByteBuffer buffer = buffers[i];
+                    int remaining = buffer.remaining();
+                    buffer.get(writeScratch, index, remaining);
+                    index += remaining;
+                }
+                out.write(writeScratch, 0, index);
+            }
+            out.flush();
+        }
+    }
+
+    private void writeBuffer(DataOutputStream out, ByteBuffer buffer) throws IOException {
+        if(buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        } else {
+            // buffer has no accessible array (e.g. direct buffer), copy it in chunks
+            if(writeScratch == null)
+                writeScratch = new byte[8192];
+            while(buffer.hasRemaining()) {
+                int length = Math.min(buffer.remaining(), writeScratch.length);
+                buffer.get(writeScratch, 0, length);
+                out.write(writeScratch, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Read up to {@code length} bytes from the server into the array
+     * @param data          destination array
+     * @param offset        start offset in the array
+     * @param length        maximum number of bytes to read
+     * @return              number of bytes read or -1 if the end of the stream is reached
+     * @throws IOException  if the client is not connected or an error occurs while reading
+     */
+    public int read(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = inStream;
+        if(in == null)
+            throw new IOException("Client is not connected.");
+        return in.read(data, offset, length);
+    }
+
     /**
      * Get the output stream of the current socket connection
      * @return          output stream of the connected socket or
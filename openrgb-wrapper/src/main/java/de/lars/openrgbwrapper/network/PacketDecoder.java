@@ -0,0 +1,143 @@
+package de.lars.openrgbwrapper.network;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.utils.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental decoder for the packets of a byte stream.
+ * <p>The received bytes are fed in chunks of any size, e.g. as returned by a single
+ * socket read. A packet can be split over several chunks and a chunk can contain
+ * several packets. The data of each packet is collected in a buffer leased from a
+ * {@link BufferPool} and passed to the handler as soon as it is complete.</p>
+ * <p>Packets with a data length above the maximum packet size are rejected before
+ * any buffer is allocated.</p>
+ */
+public class PacketDecoder {
+
+    /** default maximum data length of a packet */
+    public static final int DEFAULT_MAX_PACKET_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Receives the decoded packets
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Called for every complete packet
+         * @param packet        decoded packet header
+         * @param payload       packet data, the handler is responsible for releasing it
+         */
+        void onPacket(Packet packet, Payload payload);
+
+    }
+
+    private static final Payload EMPTY = new Payload(null, 0, null);
+
+    private final BufferPool pool;
+    private volatile int maxPacketSize = DEFAULT_MAX_PACKET_SIZE;
+    private final byte[] header = new byte[Packet.HEADER_SIZE];
+    /** number of header bytes received */
+    private int headerOffset;
+    /** header of the packet whose data is received, null while receiving a header */
+    private Packet packet;
+    /** buffer the data of the current packet is written to */
+    private ByteBuffer data;
+    /** number of data bytes received */
+    private int dataOffset;
+
+    /**
+     * Create a new decoder
+     * @param pool          heap buffer pool to lease the data buffers from
+     */
+    public PacketDecoder(BufferPool pool) {
+        if(pool.isDirect())
+            throw new IllegalArgumentException("The decoder needs a heap buffer pool.");
+        this.pool = pool;
+    }
+
+    /**
+     * Decode the next bytes of the stream
+     * @param bytes         array holding the received bytes
+     * @param offset        index of the first byte
+     * @param length        number of bytes
+     * @param handler       receives all packets completed by these bytes
+     * @throws IOException  if a header is invalid or a packet is too large
+     */
+    public void feed(byte[] bytes, int offset, int length, Handler handler) throws IOException {
+        int end = offset + length;
+        while(offset < end) {
+            if(packet == null) {
+                // collect the header
+                int count = Math.min(Packet.HEADER_SIZE - headerOffset, end - offset);
+                System.arraycopy(bytes, offset, header, headerOffset, count);
+                headerOffset += count;
+                offset += count;
+                if(headerOffset < Packet.HEADER_SIZE)
+                    return;
+                headerOffset = 0;
+                Packet next;
+                try {
+                    next = Packet.decodeHeader(header);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                if(next.dataLength < 0 || next.dataLength > maxPacketSize)
+                    throw new IOException("Invalid packet data length " + next.dataLength + ". Maximum packet size is " + maxPacketSize + ".");
+                if(next.dataLength == 0) {
+                    handler.onPacket(next, EMPTY);
+                    continue;
+                }
+                packet = next;
+                data = pool.acquire(next.dataLength);
+                dataOffset = 0;
+            }
+            // collect the data
+            int count = Math.min(packet.dataLength - dataOffset, end - offset);
+            System.arraycopy(bytes, offset, data.array(), dataOffset, count);
+            dataOffset += count;
+            offset += count;
+            if(dataOffset == packet.dataLength) {
+                Packet complete = packet;
+                Payload payload = new Payload(data, dataOffset, pool);
+                packet = null;
+                data = null;
+                handler.onPacket(complete, payload);
+            }
+        }
+    }
+
+    /**
+     * Discard a partially received packet and release its buffer
+     */
+    public void reset() {
+        if(data != null)
+            pool.release(data);
+        data = null;
+        packet = null;
+        headerOffset = 0;
+        dataOffset = 0;
+    }
+
+    /**
+     * Set the maximum data length of a packet. Larger packets are treated as protocol error.
+     * @param maxPacketSize maximum data length in bytes (default: {@link #DEFAULT_MAX_PACKET_SIZE})
+     */
+    public void setMaxPacketSize(int maxPacketSize) {
+        if(maxPacketSize < 0)
+            throw new IllegalArgumentException("Maximum packet size cannot be negative.");
+        this.maxPacketSize = maxPacketSize;
+    }
+
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+
+    public BufferPool getPool() {
+        return pool;
+    }
+
+}
@@ -0,0 +1,262 @@
+package de.lars.openrgbwrapper.network;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+import de.lars.openrgbwrapper.utils.BufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Reads all packets of a client on a background thread and routes them to the
+ * waiting request futures, keyed by packet id and device id. Replies with the same
+ * key are assigned in request order. Packets no request is waiting for are passed
+ * to the registered {@link PacketListener}s.
+ * <p>The stream is read in chunks and decoded by a {@link PacketDecoder}, so packets
+ * split over several reads are reassembled and the data buffers are leased from a
+ * {@link BufferPool}.</p>
+ */
+public class PacketDispatcher {
+
+    /** size of the array a single socket read is stored in */
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final Client client;
+    /** called on the reader thread when the connection is lost unexpectedly */
+    private final Runnable connectionLostHandler;
+    private final BufferPool pool;
+    private volatile int maxPacketSize = PacketDecoder.DEFAULT_MAX_PACKET_SIZE;
+    /** decoder of the current reader thread, every thread has its own decoder */
+    private volatile PacketDecoder decoder;
+    private final Map<Long, Queue<PendingReply>> pendingRequests = new ConcurrentHashMap<>();
+    private final List<PacketListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Thread thread;
+
+    /**
+     * Create a new packet dispatcher
+     * @param client                    client to read from
+     * @param connectionLostHandler     called when reading fails while the client is connected
+     */
+    public PacketDispatcher(Client client, Runnable connectionLostHandler) {
+        this(client, connectionLostHandler, BufferPool.getDefault());
+    }
+
+    /**
+     * Create a new packet dispatcher
+     * @param client                    client to read from
+     * @param connectionLostHandler     called when reading fails while the client is connected
+     * @param pool                      heap buffer pool the received packets are leased from
+     */
+    public PacketDispatcher(Client client, Runnable connectionLostHandler, BufferPool pool) {
+        this.client = client;
+        this.connectionLostHandler = connectionLostHandler;
+        if(pool.isDirect())
+            throw new IllegalArgumentException("The decoder needs a heap buffer pool.");
+        this.pool = pool;
+    }
+
+    /**
+     * Start the reader thread. Must be called after the client is connected.
+     */
+    public synchronized void start() {
+        if(thread != null) return;
+        // remove requests left from a previous connection
+        failPending(new IOException("Client reconnected."));
+        // a reader of the previous connection may still be running and resets its own decoder
+        PacketDecoder readerDecoder = new PacketDecoder(pool);
+        readerDecoder.setMaxPacketSize(maxPacketSize);
+        decoder = readerDecoder;
+        thread = new Thread(() -> run(readerDecoder), "OpenRGB Packet Reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop dispatching and fail all pending requests. The reader thread terminates
+     * as soon as the client socket is closed.
+     */
+    public synchronized void stop() {
+        thread = null;
+        failPending(new IOException("Client disconnected."));
+    }
+
+    /**
+     * Register a future that is completed with the data of the next packet with the specified
+     * identifier and device id. Register before sending the request to not miss the reply.
+     * @param identifier    expected reply packet type
+     * @param deviceId      expected reply device id
+     * @return              future completed with the reply data
+     */
+    public CompletableFuture<byte[]> expect(PacketIdentifier identifier, int deviceId) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        register(identifier, deviceId, new PendingReply(future, null));
+        return future;
+    }
+
+    /**
+     * Register a future that is completed with the pooled data of the next packet with the
+     * specified identifier and device id. Avoids copying large replies, but the caller must
+     * {@link Payload#release() release} the payload after decoding it.
+     * @param identifier    expected reply packet type
+     * @param deviceId      expected reply device id
+     * @return              future completed with the reply payload
+     */
+    public CompletableFuture<Payload> expectPayload(PacketIdentifier identifier, int deviceId) {
+        CompletableFuture<Payload> future = new CompletableFuture<>();
+        register(identifier, deviceId, new PendingReply(null, future));
+        return future;
+    }
+
+    private void register(PacketIdentifier identifier, int deviceId, PendingReply reply) {
+        Queue<PendingReply> queue = pendingRequests.computeIfAbsent(key(identifier.id, deviceId), k -> new ConcurrentLinkedQueue<>());
+        queue.add(reply);
+        if(thread == null) {
+            // not running, e.g. disconnected while registering
+            queue.remove(reply);
+            reply.fail(new IOException("Client is not connected."));
+        }
+    }
+
+    /**
+     * Remove a future that will never be completed by the server, e.g. because the
+     * server does not support the request
+     * @param identifier    packet type the future was registered for
+     * @param deviceId      device id the future was registered for
+     * @param future        future to remove
+     */
+    public void forget(PacketIdentifier identifier, int deviceId, CompletableFuture<?> future) {
+        Queue<PendingReply> queue = pendingRequests.get(key(identifier.id, deviceId));
+        if(queue != null)
+            queue.removeIf(reply -> reply.bytes == future || reply.payload == future);
+    }
+
+    /**
+     * Set the maximum data length of a received packet. Larger packets are treated as
+     * protocol error and close the connection.
+     * @param maxPacketSize maximum data length in bytes (default: {@link PacketDecoder#DEFAULT_MAX_PACKET_SIZE})
+     */
+    public void setMaxPacketSize(int maxPacketSize) {
+        if(maxPacketSize < 0)
+            throw new IllegalArgumentException("Maximum packet size cannot be negative.");
+        this.maxPacketSize = maxPacketSize;
+        PacketDecoder current = decoder;
+        if(current != null)
+            current.setMaxPacketSize(maxPacketSize);
+    }
+
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+
+    /**
+     * Get the pool the buffers of received packets are leased from
+     * @return              heap buffer pool
+     */
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    public void addListener(PacketListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PacketListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void run(PacketDecoder decoder) {
+        Thread current = Thread.currentThread();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try {
+            while(thread == current) {
+                // decode whatever the socket returns, packets may span several reads
+                int read = client.read(chunk, 0, chunk.length);
+                if(read == -1)
+                    throw new EOFException("Connection closed by the server.");
+                decoder.feed(chunk, 0, read, this::dispatch);
+            }
+        } catch (IOException e) {
+            if(thread == current && client.isConnected()) {
+                System.err.println("Error while reading packet from the OpenRGB SDK server. Disconnecting client due to exception.");
+                e.printStackTrace();
+                failPending(e);
+                connectionLostHandler.run();
+            }
+        } finally {
+            decoder.reset();
+        }
+    }
+
+    private void dispatch(Packet packet, Payload payload) {
+        if(packet.identifier != null) {
+            Queue<PendingReply> queue = pendingRequests.get(key(packet.identifier.id, packet.deviceId));
+            PendingReply reply = queue != null ? queue.poll() : null;
+            if(reply != null) {
+                reply.complete(payload);
+                return;
+            }
+        }
+        // listeners may keep the data, so they get a copy of their own
+        byte[] data = payload.toArray();
+        payload.release();
+        for(PacketListener listener : listeners) {
+            try {
+                listener.onPacket(packet, data);
+            } catch (RuntimeException e) {
+                System.err.println("Error in OpenRGB packet listener:");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void failPending(Throwable cause) {
+        for(Queue<PendingReply> queue : pendingRequests.values()) {
+            PendingReply reply;
+            while((reply = queue.poll()) != null)
+                reply.fail(cause);
+        }
+    }
+
+    private static long key(int packetId, int deviceId) {
+        return ((long) packetId << 32) | (deviceId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Future waiting for a reply, either for a copy of the data or for the pooled payload
+     */
+    private static final class PendingReply {
+
+        final CompletableFuture<byte[]> bytes;
+        final CompletableFuture<Payload> payload;
+
+        PendingReply(CompletableFuture<byte[]> bytes, CompletableFuture<Payload> payload) {
+            this.bytes = bytes;
+            this.payload = payload;
+        }
+
+        void complete(Payload data) {
+            if(bytes != null) {
+                bytes.complete(data.toArray());
+                data.release();
+            } else if(!payload.complete(data)) {
+                // already completed or cancelled, nobody will release it
+                data.release();
+            }
+        }
+
+        void fail(Throwable cause) {
+            if(bytes != null)
+                bytes.completeExceptionally(cause);
+            else
+                payload.completeExceptionally(cause);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package de.lars.openrgbwrapper.network;
+
+import de.lars.openrgbwrapper.network.protocol.Packet;
+
+/**
+ * Listener for packets received from the server that are no reply to a pending request
+ */
+@FunctionalInterface
+public interface PacketListener {
+
+    /**
+     * Called by the reader thread for every received packet that no request is waiting for
+     * @param packet        decoded packet header
+     * @param data          packet data (empty if the packet has no data)
+     */
+    void onPacket(Packet packet, byte[] data);
+
+}
@@ -0,0 +1,68 @@
+package de.lars.openrgbwrapper.network;
+
+import de.lars.openrgbwrapper.utils.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Data of a received packet stored in a buffer leased from a {@link BufferPool}.
+ * The backing array can be larger than the packet data, only the first
+ * {@link #length()} bytes are valid. The owner must call {@link #release()}
+ * after decoding, the data must not be used afterwards.
+ */
+public class Payload {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ByteBuffer buffer;
+    private final int length;
+    private final BufferPool pool;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * Create a new payload
+     * @param buffer        heap buffer holding the data starting at index 0
+     * @param length        number of valid bytes
+     * @param pool          pool the buffer is returned to or null
+     */
+    public Payload(ByteBuffer buffer, int length, BufferPool pool) {
+        this.buffer = buffer;
+        this.length = length;
+        this.pool = pool;
+    }
+
+    /**
+     * Get the backing array of the payload
+     * @return          array with the data in the first {@link #length()} bytes
+     */
+    public byte[] array() {
+        return buffer != null ? buffer.array() : EMPTY;
+    }
+
+    /**
+     * Get the number of valid bytes
+     * @return          packet data length
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Copy the data into a new array of the exact length
+     * @return          copy of the packet data
+     */
+    public byte[] toArray() {
+        return length == 0 ? EMPTY : Arrays.copyOf(buffer.array(), length);
+    }
+
+    /**
+     * Return the buffer to the pool. Has no effect if already released.
+     */
+    public void release() {
+        if(pool != null && released.compareAndSet(false, true))
+            pool.release(buffer);
+    }
+
+}
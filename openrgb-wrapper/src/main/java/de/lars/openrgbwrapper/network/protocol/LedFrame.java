@@ -0,0 +1,169 @@
+package de.lars.openrgbwrapper.network.protocol;
+
+import de.lars.openrgbwrapper.utils.ColorCalibration;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Pre-encoded wire frame (header and data) of an {@link PacketIdentifier#RGBCONTROLLER_UPDATELEDS}
+ * or {@link PacketIdentifier#RGBCONTROLLER_UPDATEZONELEDS} packet. The frame is allocated once
+ * and only the color values are rewritten for every update.
+ */
+public class LedFrame {
+
+    /** size on the wire of an {@link PacketIdentifier#RGBCONTROLLER_UPDATESINGLELED} packet */
+    public static final int SINGLE_LED_SIZE = Packet.HEADER_SIZE + 4 + 4;
+
+    private final PacketIdentifier identifier;
+    private final int deviceId;
+    private final int zoneId;
+    private final int ledCount;
+    /** absolute index of the first color in the buffer */
+    private final int colorIndex;
+    private final ByteBuffer buffer;
+
+    private LedFrame(PacketIdentifier identifier, int deviceId, int zoneId, int ledCount) {
+        if(ledCount < 0 || ledCount >= Short.MAX_VALUE)
+            throw new IllegalArgumentException("The led count exceeds the maximum byte capacity (16-bit).");
+        this.identifier = identifier;
+        this.deviceId = deviceId;
+        this.zoneId = zoneId;
+        this.ledCount = ledCount;
+
+        boolean zone = identifier == PacketIdentifier.RGBCONTROLLER_UPDATEZONELEDS;
+        int dataSize = (zone ? zoneSize(ledCount) : ledsSize(ledCount)) - Packet.HEADER_SIZE;
+        buffer = ByteBuffer.allocate(Packet.HEADER_SIZE + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        // header and data prefix never change
+        Packet.writeHeader(buffer, 0, identifier, deviceId, dataSize);
+        int index = Packet.HEADER_SIZE;
+        buffer.putInt(index, dataSize);             // 4 bytes for buffer length
+        index += 4;
+        if(zone) {
+            buffer.putInt(index, zoneId);           // 4 bytes for zone id
+            index += 4;
+        }
+        buffer.putShort(index, (short) ledCount);   // 2 bytes for color count
+        colorIndex = index + 2;
+    }
+
+    /**
+     * Create a frame for updating all leds of a device
+     * @param deviceId      target device
+     * @param ledCount      number of leds
+     * @return              new frame with all leds set to black
+     */
+    public static LedFrame forLeds(int deviceId, int ledCount) {
+        return new LedFrame(PacketIdentifier.RGBCONTROLLER_UPDATELEDS, deviceId, -1, ledCount);
+    }
+
+    /**
+     * Create a frame for updating the leds of a single zone
+     * @param deviceId      target device
+     * @param zoneId        target zone
+     * @param ledCount      number of leds in the zone
+     * @return              new frame with all leds set to black
+     */
+    public static LedFrame forZone(int deviceId, int zoneId, int ledCount) {
+        return new LedFrame(PacketIdentifier.RGBCONTROLLER_UPDATEZONELEDS, deviceId, zoneId, ledCount);
+    }
+
+    /**
+     * Write packed colors into the frame
+     * @param packedRgb     colors packed as {@code 0xRRGGBB}
+     * @param offset        index of the first color in the array
+     */
+    public void encode(int[] packedRgb, int offset) {
+        encode(packedRgb, offset, null);
+    }
+
+    /**
+     * Write packed colors into the frame and apply the calibration of the device
+     * in the same pass
+     * @param packedRgb     colors packed as {@code 0xRRGGBB}
+     * @param offset        index of the first color in the array
+     * @param calibration   lookup tables applied to the colors, null to write the colors unchanged
+     */
+    public void encode(int[] packedRgb, int offset, ColorCalibration calibration) {
+        if(offset < 0 || offset + ledCount > packedRgb.length)
+            throw new IndexOutOfBoundsException("Array of length " + packedRgb.length + " does not contain "
+                    + ledCount + " colors starting at offset " + offset + ".");
+        int index = colorIndex;
+        if(calibration == null) {
+            for(int i = offset; i < offset + ledCount; i++) {
+                buffer.putInt(index, toWire(packedRgb[i]));
+                index += 4;
+            }
+        } else {
+            for(int i = offset; i < offset + ledCount; i++) {
+                buffer.putInt(index, calibration.toWire(packedRgb[i]));
+                index += 4;
+            }
+        }
+    }
+
+    /**
+     * Reset the position of the frame buffer so that it can be written
+     * @return              the frame buffer containing header and data
+     */
+    public ByteBuffer prepare() {
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Get the size on the wire of an {@link PacketIdentifier#RGBCONTROLLER_UPDATELEDS} packet
+     * @param ledCount      number of leds
+     * @return              header and data size in bytes
+     */
+    public static int ledsSize(int ledCount) {
+        return Packet.HEADER_SIZE + 4 + 2 + (4 * ledCount);
+    }
+
+    /**
+     * Get the size on the wire of an {@link PacketIdentifier#RGBCONTROLLER_UPDATEZONELEDS} packet
+     * @param ledCount      number of leds in the zone
+     * @return              header and data size in bytes
+     */
+    public static int zoneSize(int ledCount) {
+        return Packet.HEADER_SIZE + 4 + 4 + 2 + (4 * ledCount);
+    }
+
+    /**
+     * Convert a packed {@code 0xRRGGBB} color to the little endian wire format (red, green, blue, 0)
+     * @param packedRgb     packed color
+     * @return              color as it is written with a little endian int
+     */
+    public static int toWire(int packedRgb) {
+        return ((packedRgb >> 16) & 0xFF) | (packedRgb & 0xFF00) | ((packedRgb & 0xFF) << 16);
+    }
+
+    public PacketIdentifier getIdentifier() {
+        return identifier;
+    }
+
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Get the target zone
+     * @return          zone id or -1 if the frame updates the whole device
+     */
+    public int getZoneId() {
+        return zoneId;
+    }
+
+    public int getLedCount() {
+        return ledCount;
+    }
+
+    /**
+     * Get the size of the frame on the wire
+     * @return          header and data size in bytes
+     */
+    public int getSize() {
+        return buffer.capacity();
+    }
+}
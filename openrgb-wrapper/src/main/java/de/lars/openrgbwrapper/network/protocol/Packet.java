@@ -1,7 +1,15 @@
 package de.lars.openrgbwrapper.network.protocol;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 public class Packet {
 
+    /** the byte size of the packet header */
+    public static final int HEADER_SIZE = 16;
+    /** magic header bytes 'ORGB' as little endian int */
+    public static final int MAGIC = 'O' | ('R' << 8) | ('G' << 16) | ('B' << 24);
+
     public final PacketIdentifier identifier;
     public final int deviceId;
     public final int dataLength;
@@ -12,6 +20,44 @@ public class Packet {
         this.dataLength = dataLength;
     }
 
+    /**
+     * Write a packet header at the specified index of a little endian buffer
+     * without changing the buffer position
+     * @param buffer        little endian buffer with at least {@link #HEADER_SIZE} bytes after index
+     * @param index         absolute index where the header starts
+     * @param identifier    packet identifier/type
+     * @param deviceId      target device id
+     * @param dataLength    length of the data following the header
+     */
+    public static void writeHeader(ByteBuffer buffer, int index, PacketIdentifier identifier, int deviceId, int dataLength) {
+        buffer.putInt(index, MAGIC);
+        buffer.putInt(index + 4, deviceId);
+        buffer.putInt(index + 8, identifier.id);
+        buffer.putInt(index + 12, dataLength);
+    }
+
+    /**
+     * Decode a packet header
+     * @param header        header bytes with a length of {@link #HEADER_SIZE}
+     * @return              decoded packet, the identifier is null for unknown packet ids
+     * @throws IllegalArgumentException if the header length or magic bytes are invalid
+     */
+    public static Packet decodeHeader(byte[] header) {
+        if(header.length != HEADER_SIZE)
+            throw new IllegalArgumentException("Wrong header length! Expected a header length of " + HEADER_SIZE + " but is " + header.length + ".");
+
+        ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        // check the magic header bytes
+        if(buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Invalid header. Header does not contains magic byte 'ORGB'.");
+
+        // create and return packet
+        return new Packet(
+                PacketIdentifier.fromId(buffer.getInt(8)),
+                buffer.getInt(4),
+                buffer.getInt(12));
+    }
+
     @Override
     public String toString() {
         return "Packet{" +
@@ -13,8 +13,14 @@ public enum PacketIdentifier {
      *-------------------*/
     REQUEST_CONTROLLER_COUNT(0),
     REQUEST_CONTROLLER_DATA(1),
+    REQUEST_PROTOCOL_VERSION(40),
     SET_CLIENT_NAME(50),
 
+    /*-------------------
+     * Server notifications
+     *-------------------*/
+    DEVICE_LIST_UPDATED(100),
+
     /*-------------------
      * RGB controller functions
      *-------------------*/
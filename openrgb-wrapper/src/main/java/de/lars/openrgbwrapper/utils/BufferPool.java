@@ -0,0 +1,311 @@
+package de.lars.openrgbwrapper.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of heap or direct byte buffers in size classes.
+ * <p>{@link #acquire(int)} returns a buffer of the smallest class that fits the requested
+ * size, so the capacity can be larger than the requested size. Released buffers are kept
+ * in a queue per class and handed out again, so packets like controller data or led
+ * updates do not allocate a new buffer every time. Each class keeps at most a fixed number
+ * of buffers; buffers released to a full class are left to the garbage collector.</p>
+ * <p>The classes are the powers of two and the sizes halfway between them (256, 384, 512,
+ * 768, ...). A led update is 4 bytes per led plus a few bytes of header, so a frame never
+ * wastes more than a third of its buffer. Sizes above the largest class are allocated
+ * without pooling and counted as {@link #getOversized() oversized}.</p>
+ * <p>Direct buffers can be written to a channel without an intermediate copy, heap buffers
+ * are used where the data is decoded from the backing array.</p>
+ */
+public class BufferPool {
+
+    /** size of the smallest class in bytes */
+    public static final int MIN_CLASS_SIZE = 256;
+    /** default size of the largest class in bytes */
+    public static final int DEFAULT_MAX_CLASS_SIZE = 1 << 20;
+    /** largest possible size of the largest class in bytes */
+    public static final int MAX_CLASS_SIZE = 1 << 30;
+    /** default number of buffers kept per class */
+    public static final int DEFAULT_BUFFERS_PER_CLASS = 16;
+
+    private static final BufferPool DEFAULT = new BufferPool(DEFAULT_MAX_CLASS_SIZE, DEFAULT_BUFFERS_PER_CLASS, false);
+    private static final BufferPool DEFAULT_DIRECT = new BufferPool(DEFAULT_MAX_CLASS_SIZE, DEFAULT_BUFFERS_PER_CLASS, true);
+
+    private final List<ArrayBlockingQueue<ByteBuffer>> classes;
+    /** capacity of the buffers by class index */
+    private final int[] classSizes;
+    private final int maxClassSize;
+    private final int buffersPerClass;
+    private final boolean direct;
+    private final LongAdder acquires = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    /**
+     * Create a new pool of heap buffers
+     * @param maxClassSize      size of the largest class, rounded up to the next class
+     * @param buffersPerClass   maximum number of buffers kept per class
+     */
+    public BufferPool(int maxClassSize, int buffersPerClass) {
+        this(maxClassSize, buffersPerClass, false);
+    }
+
+    /**
+     * Create a new buffer pool
+     * @param maxClassSize      size of the largest class, rounded up to the next class
+     * @param buffersPerClass   maximum number of buffers kept per class
+     * @param direct            true to allocate direct buffers, false for heap buffers
+     */
+    public BufferPool(int maxClassSize, int buffersPerClass, boolean direct) {
+        if(maxClassSize < MIN_CLASS_SIZE || maxClassSize > MAX_CLASS_SIZE)
+            throw new IllegalArgumentException("Maximum class size must be between " + MIN_CLASS_SIZE + " and " + MAX_CLASS_SIZE + ".");
+        if(buffersPerClass <= 0)
+            throw new IllegalArgumentException("Buffers per class must be greater than 0.");
+        this.maxClassSize = classSize(maxClassSize);
+        this.buffersPerClass = buffersPerClass;
+        this.direct = direct;
+        int classCount = classIndex(this.maxClassSize) + 1;
+        classes = new ArrayList<>(classCount);
+        classSizes = new int[classCount];
+        for(int i = 0, size = MIN_CLASS_SIZE; i < classCount; i++, size = classSize(size + 1)) {
+            classes.add(new ArrayBlockingQueue<>(buffersPerClass));
+            classSizes[i] = size;
+        }
+    }
+
+    /**
+     * Get the heap buffer pool shared by all connections of the wrapper,
+     * used for received packets
+     * @return          default heap buffer pool
+     */
+    public static BufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the direct buffer pool shared by all connections of the wrapper,
+     * used for encoded packets
+     * @return          default direct buffer pool
+     */
+    public static BufferPool getDefaultDirect() {
+        return DEFAULT_DIRECT;
+    }
+
+    /**
+     * Get a cleared little endian buffer with at least the requested capacity.
+     * The limit is set to the requested size.
+     * @param size      minimum capacity in bytes
+     * @return          pooled or newly allocated buffer
+     */
+    public ByteBuffer acquire(int size) {
+        if(size < 0)
+            throw new IllegalArgumentException("Size cannot be negative.");
+        acquires.increment();
+        ByteBuffer buffer = null;
+        int capacity = size;
+        if(size <= maxClassSize) {
+            capacity = classSize(size);
+            buffer = classes.get(classIndex(capacity)).poll();
+            if(buffer != null)
+                hits.increment();
+        } else {
+            oversized.increment();
+        }
+        if(buffer == null) {
+            misses.increment();
+            allocatedBytes.add(capacity);
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+        buffer.clear().limit(size);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Return a buffer to the pool. The buffer must not be used after releasing it.
+     * Buffers that do not match a size class or that are released to a full class
+     * are discarded.
+     * @param buffer    buffer returned by {@link #acquire(int)}
+     */
+    public void release(ByteBuffer buffer) {
+        if(buffer == null) return;
+        releases.increment();
+        int capacity = buffer.capacity();
+        if(capacity < MIN_CLASS_SIZE || capacity > maxClassSize || classSize(capacity) != capacity
+                || buffer.isDirect() != direct || !classes.get(classIndex(capacity)).offer(buffer))
+            discards.increment();
+    }
+
+    /**
+     * Remove all pooled buffers and reset the statistics
+     */
+    public void clear() {
+        for(ArrayBlockingQueue<ByteBuffer> queue : classes)
+            queue.clear();
+        acquires.reset();
+        hits.reset();
+        misses.reset();
+        releases.reset();
+        discards.reset();
+        oversized.reset();
+        allocatedBytes.reset();
+    }
+
+    /**
+     * Get the number of acquired buffers
+     * @return          number of acquires
+     */
+    public long getAcquires() {
+        return acquires.sum();
+    }
+
+    /**
+     * Get the number of acquires that returned a pooled buffer
+     * @return          number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of acquires that had to allocate a new buffer
+     * @return          number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of released buffers
+     * @return          number of releases
+     */
+    public long getReleases() {
+        return releases.sum();
+    }
+
+    /**
+     * Get the number of released buffers that were not kept by the pool
+     * @return          number of discarded buffers
+     */
+    public long getDiscards() {
+        return discards.sum();
+    }
+
+    /**
+     * Get the number of acquires larger than the largest class. These buffers are
+     * allocated on every acquire, raise the maximum class size if this grows.
+     * @return          number of oversized acquires
+     */
+    public long getOversized() {
+        return oversized.sum();
+    }
+
+    /**
+     * Get the memory allocated by all misses
+     * @return          allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * Get the ratio of hits to all acquires
+     * @return          hit rate between 0 and 1, or 0 if nothing was acquired
+     */
+    public double getHitRate() {
+        long acquires = getAcquires();
+        return acquires == 0 ? 0 : (double) getHits() / acquires;
+    }
+
+    /**
+     * Get the number of buffers currently kept by the pool
+     * @return          number of pooled buffers of all classes
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for(ArrayBlockingQueue<ByteBuffer> queue : classes)
+            count += queue.size();
+        return count;
+    }
+
+    /**
+     * Get the memory of the buffers currently kept by the pool
+     * @return          pooled bytes of all classes
+     */
+    public long getPooledBytes() {
+        long bytes = 0;
+        for(int i = 0; i < classes.size(); i++)
+            bytes += (long) classes.get(i).size() * classSizes[i];
+        return bytes;
+    }
+
+    /**
+     * Get the number of buffers currently kept in a size class
+     * @param classSize     capacity of the class, see {@link #getClassSizes()}
+     * @return              number of pooled buffers or 0 if there is no such class
+     */
+    public int getPooledCount(int classSize) {
+        if(classSize < MIN_CLASS_SIZE || classSize > maxClassSize || classSize(classSize) != classSize)
+            return 0;
+        return classes.get(classIndex(classSize)).size();
+    }
+
+    /**
+     * Get the capacities of all size classes
+     * @return              class sizes in ascending order
+     */
+    public int[] getClassSizes() {
+        return classSizes.clone();
+    }
+
+    public int getMaxClassSize() {
+        return maxClassSize;
+    }
+
+    public int getBuffersPerClass() {
+        return buffersPerClass;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Round a size up to the next size class
+     */
+    private static int classSize(int size) {
+        if(size <= MIN_CLASS_SIZE)
+            return MIN_CLASS_SIZE;
+        // power of two below the size, the size is at most twice as large
+        int lower = Integer.highestOneBit(size - 1);
+        int half = lower + (lower >> 1);
+        return size <= half ? half : lower << 1;
+    }
+
+    /**
+     * Get the index of a class size, 0 is {@link #MIN_CLASS_SIZE}
+     */
+    private static int classIndex(int classSize) {
+        int exponent = Integer.numberOfTrailingZeros(Integer.highestOneBit(classSize));
+        // two classes per power of two, the one halfway up comes second
+        return 2 * (exponent - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE)) + (Integer.bitCount(classSize) == 1 ? 0 : 1);
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool{" +
+                "direct=" + direct +
+                ", maxClassSize=" + maxClassSize +
+                ", pooled=" + getPooledCount() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                '}';
+    }
+}
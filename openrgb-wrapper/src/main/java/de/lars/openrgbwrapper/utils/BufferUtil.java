@@ -1,8 +1,6 @@
 package de.lars.openrgbwrapper.utils;
 
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 
 public class BufferUtil {
 
@@ -15,10 +13,33 @@ public class BufferUtil {
      */
     public static Pair<String, Integer> readString(ByteBuffer buffer, int offset) {
         short length = buffer.getShort(offset); // read the string byte length
-        offset += 2;
-        String text = new String(Arrays.copyOfRange(buffer.array(), offset, offset + length - 1), StandardCharsets.US_ASCII);
-        offset += length;
+        String text = getString(buffer, offset);
+        offset += 2 + length;
         return new Pair<>(text, offset);
     }
 
+    /**
+     * Read a string at an absolute offset without copying the bytes first. Strings are
+     * shared through the {@link StringPool#getDefault() default string pool}.
+     * There should be 2 leading bytes which describes the length of the string.
+     * @param buffer        ByteBuffer to read from
+     * @param offset        offset of the length prefix
+     * @return              parsed string value
+     */
+    public static String getString(ByteBuffer buffer, int offset) {
+        short length = buffer.getShort(offset);
+        // decode without the null terminator
+        return StringPool.getDefault().get(buffer.array(), offset + 2, Math.max(length - 1, 0));
+    }
+
+    /**
+     * Skip a string with 2 leading length bytes.
+     * @param buffer        ByteBuffer to read from
+     * @param offset        offset of the length prefix
+     * @return              offset after the string
+     */
+    public static int skipString(ByteBuffer buffer, int offset) {
+        return offset + 2 + buffer.getShort(offset);
+    }
+
 }
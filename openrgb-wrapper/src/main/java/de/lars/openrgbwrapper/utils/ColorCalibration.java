@@ -0,0 +1,120 @@
+package de.lars.openrgbwrapper.utils;
+
+import java.util.Arrays;
+
+/**
+ * Color correction of a device as one lookup table with 256 entries per channel.
+ * <p>The tables are applied while the colors are encoded into the wire format
+ * (see {@link de.lars.openrgbwrapper.network.protocol.LedFrame#encode(int[], int, ColorCalibration)}),
+ * so calibrating a frame needs no additional pass over the colors and no allocation.
+ * Gamma, white balance and brightness are combined into the same tables.</p>
+ * <p>Instances are immutable and can be shared by several devices.</p>
+ */
+public final class ColorCalibration {
+
+    /** number of entries of each table */
+    public static final int TABLE_SIZE = 256;
+
+    private final byte[] red;
+    private final byte[] green;
+    private final byte[] blue;
+
+    /**
+     * Create a calibration from lookup tables. The tables are copied.
+     * @param red       output value for each red input value
+     * @param green     output value for each green input value
+     * @param blue      output value for each blue input value
+     */
+    public ColorCalibration(byte[] red, byte[] green, byte[] blue) {
+        if(red == null || green == null || blue == null)
+            throw new IllegalArgumentException("Tables cannot be null!");
+        if(red.length != TABLE_SIZE || green.length != TABLE_SIZE || blue.length != TABLE_SIZE)
+            throw new IllegalArgumentException("Each table must have " + TABLE_SIZE + " entries.");
+        this.red = red.clone();
+        this.green = green.clone();
+        this.blue = blue.clone();
+    }
+
+    /**
+     * Create a calibration from a gamma curve and a scale for each channel.
+     * The output value is {@code round(255 * scale * (value / 255) ^ gamma)}.
+     * @param gamma         gamma exponent, 1 for a linear curve
+     * @param redScale      red scale between 0 and 1, e.g. white balance multiplied with brightness
+     * @param greenScale    green scale between 0 and 1
+     * @param blueScale     blue scale between 0 and 1
+     * @return              new calibration
+     */
+    public static ColorCalibration of(double gamma, double redScale, double greenScale, double blueScale) {
+        if(!(gamma > 0) || Double.isInfinite(gamma))
+            throw new IllegalArgumentException("Gamma must be greater than 0.");
+        return new ColorCalibration(table(gamma, redScale), table(gamma, greenScale), table(gamma, blueScale));
+    }
+
+    private static byte[] table(double gamma, double scale) {
+        if(!(scale >= 0 && scale <= 1))
+            throw new IllegalArgumentException("Scale must be between 0 and 1.");
+        byte[] table = new byte[TABLE_SIZE];
+        for(int i = 0; i < TABLE_SIZE; i++)
+            table[i] = (byte) Math.round(255 * scale * Math.pow(i / 255.0, gamma));
+        return table;
+    }
+
+    /**
+     * Calibrate a packed color
+     * @param packedRgb     color packed as {@code 0xRRGGBB}
+     * @return              calibrated color packed as {@code 0xRRGGBB}
+     */
+    public int apply(int packedRgb) {
+        return ((red[(packedRgb >> 16) & 0xFF] & 0xFF) << 16)
+                | ((green[(packedRgb >> 8) & 0xFF] & 0xFF) << 8)
+                | (blue[packedRgb & 0xFF] & 0xFF);
+    }
+
+    /**
+     * Calibrate a packed color and convert it to the little endian wire format (red, green, blue, 0)
+     * @param packedRgb     color packed as {@code 0xRRGGBB}
+     * @return              calibrated color as it is written with a little endian int
+     */
+    public int toWire(int packedRgb) {
+        return (red[(packedRgb >> 16) & 0xFF] & 0xFF)
+                | ((green[(packedRgb >> 8) & 0xFF] & 0xFF) << 8)
+                | ((blue[packedRgb & 0xFF] & 0xFF) << 16);
+    }
+
+    /**
+     * Check if the tables map every value to itself
+     * @return              true if the calibration has no effect
+     */
+    public boolean isIdentity() {
+        for(int i = 0; i < TABLE_SIZE; i++) {
+            if((red[i] & 0xFF) != i || (green[i] & 0xFF) != i || (blue[i] & 0xFF) != i)
+                return false;
+        }
+        return true;
+    }
+
+    public byte[] getRed() {
+        return red.clone();
+    }
+
+    public byte[] getGreen() {
+        return green.clone();
+    }
+
+    public byte[] getBlue() {
+        return blue.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof ColorCalibration)) return false;
+        ColorCalibration other = (ColorCalibration) o;
+        return Arrays.equals(red, other.red) && Arrays.equals(green, other.green) && Arrays.equals(blue, other.blue);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(red) + Arrays.hashCode(green)) + Arrays.hashCode(blue);
+    }
+}
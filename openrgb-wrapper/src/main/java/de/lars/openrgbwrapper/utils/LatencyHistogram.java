@@ -0,0 +1,107 @@
+package de.lars.openrgbwrapper.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds. Values are counted in logarithmic
+ * buckets with 8 linear sub-buckets per power of two, so percentiles are accurate
+ * to about 12.5% at any magnitude.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency, negative values are ignored
+     * @param nanos     latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if(nanos < 0) return;
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean latency
+     * @return          mean in nanoseconds or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Get the latency at a percentile
+     * @param percentile    percentile between 0 and 100
+     * @return              upper bound of the bucket containing the percentile in nanoseconds,
+     *                      or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++)
+            total += counts.get(i);
+        if(total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if(seen >= rank)
+                return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Remove all recorded values
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKET_COUNT; i++)
+            counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int bucket(long value) {
+        if(value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus",
+                getCount(), getMean() / 1000,
+                getPercentile(50) / 1000.0, getPercentile(99) / 1000.0,
+                getPercentile(99.9) / 1000.0, getMax() / 1000.0);
+    }
+}
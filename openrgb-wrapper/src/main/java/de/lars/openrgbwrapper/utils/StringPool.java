@@ -0,0 +1,161 @@
+package de.lars.openrgbwrapper.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of shared strings decoded from ASCII bytes.
+ * <p>Controller data repeats the same names over and over (e.g. {@code "Key: A"} for
+ * every keyboard and every refresh). The pool hashes the bytes in place and returns the
+ * pooled instance if the same string was decoded before, so no intermediate array or
+ * duplicate string is created. The pool is a fixed size table where each string has
+ * exactly one slot; a colliding string replaces the previous one.</p>
+ * <p>Strings longer than {@link #MAX_LENGTH} or with non-ASCII bytes are not pooled.</p>
+ */
+public class StringPool {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    /** maximum length of pooled strings in bytes */
+    public static final int MAX_LENGTH = 64;
+
+    private static final StringPool DEFAULT = new StringPool(DEFAULT_CAPACITY);
+
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a new string pool
+     * @param capacity      maximum number of pooled strings, rounded up to a power of two
+     */
+    public StringPool(int capacity) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than 0.");
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity)
+            size <<= 1;
+        table = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Get the pool shared by all decoders of the wrapper
+     * @return          default string pool
+     */
+    public static StringPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the pooled string for the ASCII bytes or decode and pool it.
+     * @param data      array to read from
+     * @param offset    index of the first byte
+     * @param length    number of bytes
+     * @return          pooled or newly created string
+     */
+    public String get(byte[] data, int offset, int length) {
+        if(length > MAX_LENGTH)
+            return decode(data, offset, length);
+
+        int hash = 0;
+        for(int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if(b < 0) // not ASCII, would not match the decoded chars
+                return decode(data, offset, length);
+            hash = 31 * hash + b;
+        }
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        String pooled = table.get(index);
+        if(pooled != null && matches(pooled, data, offset, length)) {
+            hits.increment();
+            return pooled;
+        }
+        misses.increment();
+        String text = decode(data, offset, length);
+        table.set(index, text);
+        return text;
+    }
+
+    /**
+     * Remove all pooled strings and reset the statistics
+     */
+    public void clear() {
+        for(int i = 0; i < table.length(); i++)
+            table.set(i, null);
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Get the number of strings that were returned from the pool
+     * @return          number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of poolable strings that had to be decoded
+     * @return          number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the ratio of hits to all lookups
+     * @return          hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Get the number of pooled strings
+     * @return          number of occupied slots
+     */
+    public int size() {
+        int size = 0;
+        for(int i = 0; i < table.length(); i++) {
+            if(table.get(i) != null)
+                size++;
+        }
+        return size;
+    }
+
+    /**
+     * Get the maximum number of pooled strings
+     * @return          capacity of the pool
+     */
+    public int getCapacity() {
+        return table.length();
+    }
+
+    private static boolean matches(String text, byte[] data, int offset, int length) {
+        if(text.length() != length)
+            return false;
+        for(int i = 0; i < length; i++) {
+            if(text.charAt(i) != data[offset + i])
+                return false;
+        }
+        return true;
+    }
+
+    private static String decode(byte[] data, int offset, int length) {
+        return new String(data, offset, length, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+        return "StringPool{" +
+                "capacity=" + getCapacity() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                '}';
+    }
+}
@@ -13,6 +13,12 @@ data class Color constructor(var red: Int, var green: Int, var blue: Int) {
     @ExperimentalUnsignedTypes
     fun encode() = byteArrayOf(red.toByte(), green.toByte(), blue.toByte(), 0)
 
+    /**
+     * Pack color into an int
+     * @return      color packed as `0xRRGGBB`
+     */
+    fun toPacked(): Int = ColorBuffer.pack(red, green, blue)
+
     companion object {
         /**
          * Decode byte buffer to a specified amount of colors
@@ -0,0 +1,187 @@
+package de.lars.openrgbwrapper.models
+
+import de.lars.openrgbwrapper.utils.Pair
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+/**
+ * Fixed size buffer of colors packed as `0xRRGGBB` into a single int array.
+ * Unlike an array of [Color] objects there is no object per led, so a buffer
+ * can be reused for every frame without allocating.
+ */
+class ColorBuffer(val size: Int) {
+
+    /** backing array of packed colors, can be passed to the packed update methods directly */
+    val array: IntArray = IntArray(size)
+
+    /**
+     * Get the packed color at the index
+     * @param index     led index
+     * @return          color packed as `0xRRGGBB`
+     */
+    operator fun get(index: Int): Int = array[index]
+
+    /**
+     * Set the packed color at the index
+     * @param index     led index
+     * @param rgb       color packed as `0xRRGGBB`
+     */
+    operator fun set(index: Int, rgb: Int) {
+        array[index] = rgb and 0xFFFFFF
+    }
+
+    /**
+     * Set the color at the index
+     * @param index     led index
+     * @param red       red value (0-255)
+     * @param green     green value (0-255)
+     * @param blue      blue value (0-255)
+     */
+    fun set(index: Int, red: Int, green: Int, blue: Int) {
+        array[index] = pack(red, green, blue)
+    }
+
+    fun getRed(index: Int): Int = array[index] shr 16 and 0xFF
+
+    fun getGreen(index: Int): Int = array[index] shr 8 and 0xFF
+
+    fun getBlue(index: Int): Int = array[index] and 0xFF
+
+    /**
+     * Get the color at the index as new [Color] instance
+     */
+    fun getColor(index: Int): Color = Color(getRed(index), getGreen(index), getBlue(index))
+
+    /**
+     * Set the color at the index from a [Color] instance
+     */
+    fun setColor(index: Int, color: Color) = set(index, color.red, color.green, color.blue)
+
+    /**
+     * Fill a range of the buffer with a color
+     * @param rgb       color packed as `0xRRGGBB`
+     * @param from      first index (inclusive)
+     * @param to        last index (exclusive)
+     */
+    @JvmOverloads
+    fun fill(rgb: Int, from: Int = 0, to: Int = size) {
+        array.fill(rgb and 0xFFFFFF, from, to)
+    }
+
+    /**
+     * Copy packed colors into this buffer
+     * @param src       packed colors to copy
+     * @param srcOffset index of the first color in the source
+     * @param offset    index of the first color in this buffer
+     * @param length    number of colors
+     */
+    @JvmOverloads
+    fun copyFrom(src: IntArray, srcOffset: Int = 0, offset: Int = 0, length: Int = src.size - srcOffset) {
+        System.arraycopy(src, srcOffset, array, offset, length)
+    }
+
+    /**
+     * Copy colors of another buffer into this buffer
+     */
+    @JvmOverloads
+    fun copyFrom(src: ColorBuffer, srcOffset: Int = 0, offset: Int = 0, length: Int = src.size - srcOffset) {
+        System.arraycopy(src.array, srcOffset, array, offset, length)
+    }
+
+    /**
+     * Copy colors of this buffer into a packed array
+     * @param dest      destination array
+     * @param destOffset index of the first color in the destination
+     * @param offset    index of the first color in this buffer
+     * @param length    number of colors
+     */
+    @JvmOverloads
+    fun copyTo(dest: IntArray, destOffset: Int = 0, offset: Int = 0, length: Int = size - offset) {
+        System.arraycopy(array, offset, dest, destOffset, length)
+    }
+
+    /**
+     * Encode colors in wire format (red, green, blue, 0) at the position of the buffer
+     * @param dest      buffer to write to, must have little endian byte order
+     * @param offset    index of the first color
+     * @param length    number of colors
+     */
+    @JvmOverloads
+    fun encode(dest: ByteBuffer, offset: Int = 0, length: Int = size - offset) {
+        for (i in offset until offset + length)
+            dest.putInt(toWire(array[i]))
+    }
+
+    /**
+     * Create new [Color] instances of all colors
+     */
+    fun toColors(): Array<Color> = Array(size) { getColor(it) }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is ColorBuffer) return false
+        return array.contentEquals(other.array)
+    }
+
+    override fun hashCode(): Int = array.contentHashCode()
+
+    override fun toString(): String = "ColorBuffer(size=$size)"
+
+    companion object {
+
+        /**
+         * Pack color values into an int
+         * @return          color packed as `0xRRGGBB`
+         */
+        @JvmStatic
+        fun pack(red: Int, green: Int, blue: Int): Int =
+                (red and 0xFF shl 16) or (green and 0xFF shl 8) or (blue and 0xFF)
+
+        /**
+         * Convert a packed color to the int that is written little endian as (red, green, blue, 0)
+         */
+        @JvmStatic
+        fun toWire(rgb: Int): Int = (rgb shr 16 and 0xFF) or (rgb and 0xFF00) or (rgb and 0xFF shl 16)
+
+        /**
+         * Create a buffer from an array of colors
+         */
+        @JvmStatic
+        fun of(colors: Array<Color>): ColorBuffer {
+            val buffer = ColorBuffer(colors.size)
+            for (i in colors.indices)
+                buffer.setColor(i, colors[i])
+            return buffer
+        }
+
+        /**
+         * Decode colors in wire format from a byte buffer
+         * @param buffer        byte array to read from
+         * @param bufOffset     the start index (inclusive)
+         * @param colorCount    the number of colors to decode
+         * @return              Pair containing the color buffer and the absolute buffer offset
+         */
+        @JvmStatic
+        fun decode(buffer: ByteArray, bufOffset: Int, colorCount: Int): Pair<ColorBuffer, Int> {
+            val colors = ColorBuffer(colorCount)
+            decodeInto(buffer, bufOffset, colors, 0, colorCount)
+            return Pair(colors, bufOffset + colorCount * 4)
+        }
+
+        /**
+         * Decode colors in wire format into an existing color buffer
+         * @param buffer        byte array to read from
+         * @param bufOffset     the start index (inclusive)
+         * @param dest          buffer to decode into
+         * @param offset        index of the first color in the destination
+         * @param colorCount    the number of colors to decode
+         */
+        @JvmStatic
+        fun decodeInto(buffer: ByteArray, bufOffset: Int, dest: ColorBuffer, offset: Int, colorCount: Int) {
+            val buf: ByteBuffer = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN)
+            for (i in 0 until colorCount)
+                dest.array[offset + i] = toWire(buf.getInt(bufOffset + i * 4))
+        }
+    }
+
+}
@@ -6,8 +6,22 @@ import java.nio.ByteOrder
 
 data class MatrixMap(val height: Int, val width: Int, val matrix: Array<IntArray>) {
 
+    /**
+     * Flatten the matrix into a lookup table
+     * @return      led index for each cell in row-major order, [NO_LED] for cells without led
+     */
+    fun toLookupTable(): IntArray {
+        val table = IntArray(height * width)
+        for (row in 0 until height)
+            System.arraycopy(matrix[row], 0, table, row * width, width)
+        return table
+    }
+
     companion object {
 
+        /** value of matrix cells without led (0xFFFFFFFF) */
+        const val NO_LED: Int = -1
+
         /**
          * Decode and build a MatrixMap from a byte buffer
          * @return a Pair with the MatrixMap and the absolut offset after decoding the MatrixMap
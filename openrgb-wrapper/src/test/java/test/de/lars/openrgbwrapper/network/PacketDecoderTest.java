@@ -0,0 +1,193 @@
+package test.de.lars.openrgbwrapper.network;
+
+import de.lars.openrgbwrapper.network.PacketDecoder;
+import de.lars.openrgbwrapper.network.protocol.Packet;
+import de.lars.openrgbwrapper.network.protocol.PacketIdentifier;
+import de.lars.openrgbwrapper.utils.BufferPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PacketDecoderTest {
+
+    /** replies of an OpenRGB server: controller count 2, protocol version 1 and a device list notification */
+    private static final byte[] CAPTURED = hex(
+            "4f52474200000000000000000400000002000000" +
+            "4f52474200000000280000000400000001000000" +
+            "4f524742000000006400000000000000");
+
+    private BufferPool pool;
+    private PacketDecoder decoder;
+    private List<Packet> packets;
+    private List<byte[]> payloads;
+    /** captured replies followed by a controller data reply larger than a single read */
+    private byte[] stream;
+    private byte[] controllerData;
+
+    @Before
+    public void setUp() {
+        pool = new BufferPool(BufferPool.DEFAULT_MAX_CLASS_SIZE, BufferPool.DEFAULT_BUFFERS_PER_CLASS, false);
+        decoder = new PacketDecoder(pool);
+        packets = new ArrayList<>();
+        payloads = new ArrayList<>();
+        controllerData = new byte[3000];
+        new Random(1).nextBytes(controllerData);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(CAPTURED, 0, CAPTURED.length);
+        out.write(packet(PacketIdentifier.REQUEST_CONTROLLER_DATA, 1, controllerData), 0, Packet.HEADER_SIZE + controllerData.length);
+        stream = out.toByteArray();
+    }
+
+    @Test
+    public void severalPacketsInOneRead() throws IOException {
+        feed(stream, 0, stream.length);
+        assertStream();
+    }
+
+    @Test
+    public void oneByteAtATime() throws IOException {
+        for(int i = 0; i < stream.length; i++)
+            feed(stream, i, 1);
+        assertStream();
+    }
+
+    @Test
+    public void randomChunks() throws IOException {
+        for(long seed = 0; seed < 100; seed++) {
+            Random random = new Random(seed);
+            packets.clear();
+            payloads.clear();
+            int offset = 0;
+            while(offset < stream.length) {
+                // mostly small chunks, sometimes a whole socket read
+                int max = random.nextInt(4) == 0 ? 2048 : 40;
+                int length = Math.min(1 + random.nextInt(max), stream.length - offset);
+                feed(stream, offset, length);
+                offset += length;
+            }
+            assertStream();
+        }
+    }
+
+    @Test
+    public void headerSplitAcrossReads() throws IOException {
+        byte[] bytes = packet(PacketIdentifier.REQUEST_CONTROLLER_COUNT, 0, new byte[] {5, 0, 0, 0});
+        feed(bytes, 0, 7);
+        assertTrue(packets.isEmpty());
+        feed(bytes, 7, bytes.length - 7);
+        assertEquals(1, packets.size());
+        assertEquals(PacketIdentifier.REQUEST_CONTROLLER_COUNT, packets.get(0).identifier);
+        assertArrayEquals(new byte[] {5, 0, 0, 0}, payloads.get(0));
+    }
+
+    @Test
+    public void dataSplitAcrossReads() throws IOException {
+        byte[] bytes = packet(PacketIdentifier.REQUEST_CONTROLLER_DATA, 3, controllerData);
+        int split = Packet.HEADER_SIZE + 1000;
+        feed(bytes, 0, split);
+        assertTrue(packets.isEmpty());
+        feed(bytes, split, bytes.length - split);
+        assertEquals(1, packets.size());
+        assertEquals(3, packets.get(0).deviceId);
+        assertArrayEquals(controllerData, payloads.get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void badMagic() throws IOException {
+        byte[] bytes = packet(PacketIdentifier.REQUEST_CONTROLLER_COUNT, 0, new byte[4]);
+        bytes[3] = 'X';
+        feed(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void badMagicAfterValidPacket() throws IOException {
+        // the controller count reply followed by zeros instead of the next header
+        byte[] bytes = new byte[20 + Packet.HEADER_SIZE];
+        System.arraycopy(CAPTURED, 0, bytes, 0, 20);
+        feed(bytes, 0, 20);
+        assertEquals(1, packets.size());
+        try {
+            feed(bytes, 20, Packet.HEADER_SIZE);
+            fail("Invalid header was accepted");
+        } catch (IOException e) {
+            assertEquals(1, packets.size());
+        }
+    }
+
+    @Test
+    public void maxPacketSizeRejectsLargerPackets() throws IOException {
+        decoder.setMaxPacketSize(controllerData.length - 1);
+        byte[] bytes = packet(PacketIdentifier.REQUEST_CONTROLLER_DATA, 0, controllerData);
+        try {
+            // the header alone is rejected
+            feed(bytes, 0, Packet.HEADER_SIZE);
+            fail("Packet above the maximum size was accepted");
+        } catch (IOException e) {
+            // no buffer is allocated for the rejected packet
+            assertEquals(0, pool.getAcquires());
+        }
+    }
+
+    @Test
+    public void maxPacketSizeAcceptsPacketsOfMaximumSize() throws IOException {
+        decoder.setMaxPacketSize(controllerData.length);
+        byte[] bytes = packet(PacketIdentifier.REQUEST_CONTROLLER_DATA, 0, controllerData);
+        feed(bytes, 0, bytes.length);
+        assertArrayEquals(controllerData, payloads.get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeDataLength() throws IOException {
+        byte[] bytes = packet(PacketIdentifier.REQUEST_CONTROLLER_COUNT, 0, new byte[0]);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(12, -1);
+        feed(bytes, 0, bytes.length);
+    }
+
+    private void feed(byte[] bytes, int offset, int length) throws IOException {
+        decoder.feed(bytes, offset, length, (packet, payload) -> {
+            packets.add(packet);
+            payloads.add(payload.toArray());
+            payload.release();
+        });
+    }
+
+    private void assertStream() {
+        assertEquals(4, packets.size());
+        assertEquals(PacketIdentifier.REQUEST_CONTROLLER_COUNT, packets.get(0).identifier);
+        assertArrayEquals(new byte[] {2, 0, 0, 0}, payloads.get(0));
+        assertEquals(PacketIdentifier.REQUEST_PROTOCOL_VERSION, packets.get(1).identifier);
+        assertArrayEquals(new byte[] {1, 0, 0, 0}, payloads.get(1));
+        assertEquals(PacketIdentifier.DEVICE_LIST_UPDATED, packets.get(2).identifier);
+        assertEquals(0, payloads.get(2).length);
+        assertEquals(PacketIdentifier.REQUEST_CONTROLLER_DATA, packets.get(3).identifier);
+        assertEquals(1, packets.get(3).deviceId);
+        assertArrayEquals(controllerData, payloads.get(3));
+    }
+
+    private static byte[] packet(PacketIdentifier identifier, int deviceId, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.allocate(Packet.HEADER_SIZE + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        Packet.writeHeader(buffer, 0, identifier, deviceId, data.length);
+        buffer.position(Packet.HEADER_SIZE);
+        buffer.put(data);
+        return buffer.array();
+    }
+
+    private static byte[] hex(String text) {
+        byte[] bytes = new byte[text.length() / 2];
+        for(int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(text.substring(2 * i, 2 * i + 2), 16);
+        return bytes;
+    }
+}